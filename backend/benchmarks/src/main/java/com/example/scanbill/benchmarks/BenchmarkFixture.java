@@ -0,0 +1,266 @@
+package com.example.scanbill.benchmarks;
+
+import com.example.scanbill.component.CartStore;
+import com.example.scanbill.component.MongoCartStore;
+import com.example.scanbill.component.ProductCatalogCache;
+import com.example.scanbill.component.ScanBillMetrics;
+import com.example.scanbill.component.StoreEventBroadcaster;
+import com.example.scanbill.controller.ReceiptController;
+import com.example.scanbill.model.Cart;
+import com.example.scanbill.model.CartItem;
+import com.example.scanbill.model.InventoryItem;
+import com.example.scanbill.model.Order;
+import com.example.scanbill.model.Product;
+import com.example.scanbill.repository.CartRepository;
+import com.example.scanbill.repository.CartRepositoryImpl;
+import com.example.scanbill.repository.InventoryItemRepository;
+import com.example.scanbill.repository.InventoryItemRepositoryImpl;
+import com.example.scanbill.repository.OrderRepository;
+import com.example.scanbill.repository.OrderRepositoryImpl;
+import com.example.scanbill.repository.ProductRepository;
+import com.example.scanbill.repository.StoreDailyStatsRepository;
+import com.example.scanbill.service.CartService;
+import com.example.scanbill.service.CheckoutTransactionRunner;
+import com.example.scanbill.service.InventoryHoldService;
+import com.example.scanbill.service.OrderService;
+import com.example.scanbill.service.ReceiptService;
+import com.example.scanbill.service.StockLevelService;
+import com.example.scanbill.service.StoreStatsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wires the real services against either the in-memory repository stand-ins
+ * ({@code memory}) or a live Mongo ({@code mongo}, URI from {@code -Dbench.mongo.uri},
+ * default the docker-compose instance on localhost). The Mongo database is dropped
+ * and reseeded on every trial.
+ */
+final class BenchmarkFixture implements AutoCloseable {
+    static final String STORE_ID = "bench-store";
+    private static final String DATABASE = "scanbill_bench";
+
+    private final CartRepository cartRepository;
+    private final InventoryItemRepository inventoryItemRepository;
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final MongoClient mongoClient;
+    private final MongoTemplate mongoTemplate;
+    private final InMemoryRepositories memory;
+
+    private final CartService cartService;
+    private final OrderService orderService;
+    private final ReceiptController receiptController;
+    private final List<String> serials = new ArrayList<>();
+
+    private BenchmarkFixture(String backend) {
+        StoreStatsService stats;
+        StockLevelService stockLevels;
+        if ("mongo".equals(backend)) {
+            memory = null;
+            mongoClient = MongoClients.create(System.getProperty("bench.mongo.uri", "mongodb://127.0.0.1:27017"));
+            mongoClient.getDatabase(DATABASE).drop();
+            mongoTemplate = new MongoTemplate(mongoClient, DATABASE);
+            ensureIndexes(mongoTemplate);
+            MongoRepositoryFactory factory = new MongoRepositoryFactory(mongoTemplate);
+            cartRepository = factory.getRepository(CartRepository.class, new CartRepositoryImpl(mongoTemplate));
+            inventoryItemRepository = factory.getRepository(InventoryItemRepository.class,
+                    new InventoryItemRepositoryImpl(mongoTemplate));
+            orderRepository = factory.getRepository(OrderRepository.class, new OrderRepositoryImpl(mongoTemplate));
+            productRepository = factory.getRepository(ProductRepository.class);
+            stats = new StoreStatsService(factory.getRepository(StoreDailyStatsRepository.class), orderRepository,
+                    productRepository, mongoTemplate);
+            stockLevels = new StockLevelService(mongoTemplate, inventoryItemRepository, Duration.ofSeconds(5), 100_000);
+        } else if ("memory".equals(backend)) {
+            mongoClient = null;
+            mongoTemplate = null;
+            memory = new InMemoryRepositories();
+            cartRepository = memory.cartRepository();
+            inventoryItemRepository = memory.inventoryItemRepository();
+            orderRepository = memory.orderRepository();
+            productRepository = memory.productRepository();
+            stats = new NoOpStats();
+            stockLevels = new NoOpStockLevels();
+        } else {
+            throw new IllegalArgumentException("Unknown backend: " + backend);
+        }
+
+        ProductCatalogCache catalog = new ProductCatalogCache(productRepository, 100_000, Duration.ofMinutes(10));
+        ScanBillMetrics metrics = new ScanBillMetrics(new SimpleMeterRegistry());
+        CartStore cartStore = new MongoCartStore(cartRepository);
+        InventoryHoldService holds = new InventoryHoldService(inventoryItemRepository, metrics, Duration.ofMinutes(15));
+        cartService = new CartService(cartStore, catalog, inventoryItemRepository, metrics, holds);
+        // Claim-and-compensate checkout; transactions need a replica set the benchmark does not assume
+        CheckoutTransactionRunner transactions = new CheckoutTransactionRunner(null, metrics, "claim", 1,
+                Duration.ZERO, Duration.ZERO, Duration.ZERO);
+        // Nobody subscribes, so checkout pays only the feed's empty-store check
+        StoreEventBroadcaster storeEvents = new StoreEventBroadcaster(metrics, 4, 256,
+                Duration.ofMinutes(30), false);
+        orderService = new OrderService(orderRepository, cartStore, inventoryItemRepository, holds, stats,
+                stockLevels, metrics, transactions, storeEvents);
+        receiptController = new ReceiptController(new ReceiptService(orderRepository,
+                new ObjectMapper().findAndRegisterModules(), 10_000, 42));
+    }
+
+    static BenchmarkFixture create(String backend, int products, int unitsPerProduct) {
+        BenchmarkFixture fixture = new BenchmarkFixture(backend);
+        fixture.seed(products, unitsPerProduct);
+        return fixture;
+    }
+
+    CartService cartService() {
+        return cartService;
+    }
+
+    OrderService orderService() {
+        return orderService;
+    }
+
+    ReceiptController receiptController() {
+        return receiptController;
+    }
+
+    /**
+     * Serial numbers spread round-robin over products, starting at {@code offset}.
+     */
+    List<String> serials(int offset, int count) {
+        if (offset + count > serials.size()) {
+            throw new IllegalArgumentException("Fixture only seeded " + serials.size() + " units");
+        }
+        return new ArrayList<>(serials.subList(offset, offset + count));
+    }
+
+    /**
+     * Scans {@code serialNumbers} into a fresh cart for {@code userId} and returns a
+     * detached snapshot of it, suitable as a {@link #restore} template.
+     */
+    Cart fillCart(String userId, List<String> serialNumbers) {
+        cartRepository.findByUserId(userId).ifPresent(c -> cartRepository.deleteById(c.getId()));
+        Cart cart = cartService.getCartByUserId(userId, STORE_ID);
+        for (String serial : serialNumbers) {
+            cart = cartService.addToCart(userId, serial, STORE_ID);
+        }
+        Cart snapshot = new Cart();
+        snapshot.setUserId(userId);
+        snapshot.setStoreId(STORE_ID);
+        snapshot.setItems(new ArrayList<>(cart.getItems()));
+        CartService.calculateTotal(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Puts the world back the way it was before a checkout: units held by
+     * {@code userId} again and the cart holding the same lines as {@code template}.
+     */
+    void restore(String userId, Cart template, List<String> serialNumbers) {
+        LocalDateTime heldUntil = LocalDateTime.now().plusHours(1);
+        if (memory != null) {
+            for (String serial : serialNumbers) {
+                InventoryItem item = memory.inventory.get(serial);
+                item.setStatus("RESERVED");
+                item.setClaimToken(null);
+                item.setHeldBy(userId);
+                item.setHeldUntil(heldUntil);
+            }
+        } else {
+            mongoTemplate.updateMulti(new Query(Criteria.where("serialNumber").in(serialNumbers)),
+                    new Update().set("status", "RESERVED").set("heldBy", userId).set("heldUntil", heldUntil)
+                            .unset("claimToken"), InventoryItem.class);
+        }
+        cartRepository.findByUserId(userId).ifPresent(c -> cartRepository.deleteById(c.getId()));
+        Cart copy = new Cart();
+        copy.setUserId(userId);
+        copy.setStoreId(STORE_ID);
+        copy.setItems(new ArrayList<>(template.getItems()));
+        CartService.calculateTotal(copy);
+        cartRepository.save(copy);
+    }
+
+    @Override
+    public void close() {
+        if (mongoClient != null) {
+            mongoClient.close();
+        }
+    }
+
+    private void seed(int productCount, int unitsPerProduct) {
+        List<Product> products = new ArrayList<>();
+        for (int p = 0; p < productCount; p++) {
+            Product product = new Product();
+            product.setBarcode(String.format("BENCH%05d", p));
+            product.setName("Bench Item " + p);
+            product.setPrice(10.0 + (p % 97) * 1.25);
+            product.setBasePrice(product.getPrice());
+            product.setCostPrice(product.getPrice() * 0.6);
+            product.setTaxRate(p % 2 == 0 ? 18.0 : 5.0);
+            product.setCategory("Bench");
+            product.setStoreId(STORE_ID);
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+
+        List<InventoryItem> units = new ArrayList<>();
+        for (int u = 0; u < unitsPerProduct; u++) {
+            for (Product product : products) {
+                InventoryItem item = new InventoryItem();
+                item.setBarcode(product.getBarcode());
+                item.setSerialNumber(product.getBarcode() + "-" + String.format("%04d", u));
+                item.setStatus("AVAILABLE");
+                item.setStoreId(STORE_ID);
+                units.add(item);
+                serials.add(item.getSerialNumber());
+            }
+        }
+        inventoryItemRepository.saveAll(units);
+    }
+
+    private static void ensureIndexes(MongoTemplate template) {
+        MongoMappingContext context = (MongoMappingContext) template.getConverter().getMappingContext();
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(context);
+        for (Class<?> type : List.of(InventoryItem.class, Product.class, Order.class, Cart.class)) {
+            IndexOperations ops = template.indexOps(type);
+            resolver.resolveIndexFor(type).forEach(ops::ensureIndex);
+        }
+    }
+
+    /**
+     * The in-memory run measures service logic only; the stats rollup is a Mongo
+     * upsert with no meaningful stand-in.
+     */
+    private static final class NoOpStats extends StoreStatsService {
+        NoOpStats() {
+            super(null, null, null, null);
+        }
+
+        @Override
+        public void recordOrder(Order order) {
+        }
+    }
+
+    /**
+     * Same reasoning as {@link NoOpStats}: the counters are Mongo bulk updates.
+     */
+    private static final class NoOpStockLevels extends StockLevelService {
+        NoOpStockLevels() {
+            super(null, null, Duration.ofSeconds(5), 1);
+        }
+
+        @Override
+        public void recordSold(String storeId, List<CartItem> items, String claimToken) {
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.scanbill.benchmarks;
+
+import com.example.scanbill.service.CartService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One scan followed by one removal of the same unit, against a cart that already
+ * holds {@code basketSize - 1} lines. The pair leaves the cart unchanged, so every
+ * invocation sees the same basket size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartBenchmark {
+    private static final String USER_ID = "bench-cart-user";
+
+    @Param({ "memory", "mongo" })
+    public String backend;
+
+    @Param({ "1", "10", "60", "200" })
+    public int basketSize;
+
+    private BenchmarkFixture fixture;
+    private CartService cartService;
+    private String scannedSerial;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = BenchmarkFixture.create(backend, 50, 10);
+        cartService = fixture.cartService();
+        List<String> serials = fixture.serials(0, basketSize);
+        scannedSerial = serials.remove(serials.size() - 1);
+        fixture.fillCart(USER_ID, serials);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void addThenRemove(Blackhole bh) {
+        bh.consume(cartService.addToCart(USER_ID, scannedSerial, BenchmarkFixture.STORE_ID));
+        bh.consume(cartService.removeFromCart(USER_ID, scannedSerial, BenchmarkFixture.STORE_ID));
+    }
+}
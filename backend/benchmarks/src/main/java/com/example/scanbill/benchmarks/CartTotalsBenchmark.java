@@ -0,0 +1,48 @@
+package com.example.scanbill.benchmarks;
+
+import com.example.scanbill.model.Cart;
+import com.example.scanbill.service.CartService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full recalculation of cart totals. Run with {@code -prof gc}: the
+ * {@code gc.alloc.rate.norm} column should read 0 B/op at every basket size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartTotalsBenchmark {
+    @Param({ "1", "10", "60", "200" })
+    public int basketSize;
+
+    private Cart cart;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        try (BenchmarkFixture fixture = BenchmarkFixture.create("memory", 50, 10)) {
+            cart = fixture.fillCart("bench-totals-user", fixture.serials(0, basketSize));
+        }
+    }
+
+    @Benchmark
+    public long calculateTotal() {
+        CartService.calculateTotal(cart);
+        return cart.getTotalPaise();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.scanbill.benchmarks;
+
+import com.example.scanbill.model.Cart;
+import com.example.scanbill.model.Order;
+import com.example.scanbill.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkout of a {@code basketSize}-line cart. Each invocation gets the same cart
+ * and freshly AVAILABLE units back from the per-invocation setup, so the numbers
+ * track how checkout cost scales with basket size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutBenchmark {
+    private static final String USER_ID = "bench-checkout-user";
+
+    @Param({ "memory", "mongo" })
+    public String backend;
+
+    @Param({ "1", "10", "60", "200" })
+    public int basketSize;
+
+    private BenchmarkFixture fixture;
+    private OrderService orderService;
+    private List<String> serials;
+    private Cart template;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = BenchmarkFixture.create(backend, 50, 10);
+        orderService = fixture.orderService();
+        serials = fixture.serials(0, basketSize);
+        template = fixture.fillCart(USER_ID, serials);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetBasket() {
+        fixture.restore(USER_ID, template, serials);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Order checkout() {
+        return orderService.checkout(USER_ID, "Bench Customer", "9999999999", BenchmarkFixture.STORE_ID, null);
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.scanbill.benchmarks;
+
+import com.example.scanbill.model.Cart;
+import com.example.scanbill.model.CartItem;
+import com.example.scanbill.model.InventoryItem;
+import com.example.scanbill.model.Order;
+import com.example.scanbill.model.Product;
+import com.example.scanbill.model.Receipt;
+import com.example.scanbill.repository.CartRepository;
+import com.example.scanbill.repository.InventoryItemRepository;
+import com.example.scanbill.repository.OrderRepository;
+import com.example.scanbill.repository.ProductRepository;
+import com.example.scanbill.service.CartService;
+import org.springframework.beans.BeanUtils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Map-backed stand-ins for the Spring Data repositories. Only the methods the
+ * benchmarked paths call are implemented; anything else throws, so a new
+ * repository call on the hot path shows up as a failing benchmark rather than a
+ * silently skipped round trip.
+ */
+final class InMemoryRepositories {
+    final Map<String, InventoryItem> inventory = new ConcurrentHashMap<>();
+    final Map<String, Product> products = new ConcurrentHashMap<>();
+    final Map<String, Cart> carts = new ConcurrentHashMap<>();
+    final Map<String, Order> orders = new ConcurrentHashMap<>();
+
+    InventoryItemRepository inventoryItemRepository() {
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("findBySerialNumber", a -> Optional.ofNullable(inventory.get((String) a[0])));
+        methods.put("findByBarcodeAndStatusAndStoreId", a -> inventory.values().stream()
+                .filter(i -> i.getBarcode().equals(a[0]) && i.getStatus().equals(a[1]) && i.getStoreId().equals(a[2]))
+                .toList());
+        methods.put("saveAll", a -> {
+            List<InventoryItem> saved = new ArrayList<>();
+            for (Object o : (Iterable<?>) a[0]) {
+                InventoryItem item = (InventoryItem) o;
+                inventory.put(item.getSerialNumber(), item);
+                saved.add(item);
+            }
+            return saved;
+        });
+        methods.put("claimUnits", a -> {
+            long claimed = 0;
+            for (Object serial : (Collection<?>) a[0]) {
+                InventoryItem item = inventory.get((String) serial);
+                if (item != null && item.getStatus().equals(a[1])) {
+                    item.setStatus((String) a[2]);
+                    item.setClaimToken((String) a[3]);
+                    claimed++;
+                }
+            }
+            return claimed;
+        });
+        methods.put("releaseClaim", a -> {
+            long released = 0;
+            for (InventoryItem item : inventory.values()) {
+                if (a[0].equals(item.getClaimToken())) {
+                    item.setStatus((String) a[1]);
+                    item.setClaimToken(null);
+                    item.setHeldBy(null);
+                    item.setHeldUntil(null);
+                    released++;
+                }
+            }
+            return released;
+        });
+        methods.put("holdUnit", a -> {
+            InventoryItem item = inventory.get((String) a[0]);
+            if (item == null || !holdable(item, (String) a[1], (LocalDateTime) a[3])) {
+                return Optional.empty();
+            }
+            hold(item, (String) a[1], (LocalDateTime) a[2]);
+            return Optional.of(item);
+        });
+        methods.put("holdUnits", a -> {
+            long held = 0;
+            for (Object serial : (Collection<?>) a[0]) {
+                InventoryItem item = inventory.get((String) serial);
+                if (item != null && holdable(item, (String) a[1], (LocalDateTime) a[3])) {
+                    hold(item, (String) a[1], (LocalDateTime) a[2]);
+                    held++;
+                }
+            }
+            return held;
+        });
+        methods.put("releaseHolds", a -> {
+            long released = 0;
+            for (Object serial : (Collection<?>) a[0]) {
+                InventoryItem item = inventory.get((String) serial);
+                if (item != null && "RESERVED".equals(item.getStatus()) && a[1].equals(item.getHeldBy())) {
+                    item.setStatus("AVAILABLE");
+                    item.setHeldBy(null);
+                    item.setHeldUntil(null);
+                    released++;
+                }
+            }
+            return released;
+        });
+        methods.put("convertHolds", a -> {
+            long claimed = 0;
+            for (Object serial : (Collection<?>) a[0]) {
+                InventoryItem item = inventory.get((String) serial);
+                if (item != null && holdable(item, (String) a[1], (LocalDateTime) a[3])) {
+                    item.setStatus("SOLD");
+                    item.setClaimToken((String) a[2]);
+                    item.setHeldBy(null);
+                    item.setHeldUntil(null);
+                    claimed++;
+                }
+            }
+            return claimed;
+        });
+        methods.put("restoreHolds", a -> {
+            long restored = 0;
+            for (InventoryItem item : inventory.values()) {
+                if (a[0].equals(item.getClaimToken())) {
+                    hold(item, (String) a[1], (LocalDateTime) a[2]);
+                    item.setClaimToken(null);
+                    restored++;
+                }
+            }
+            return restored;
+        });
+        return proxy(InventoryItemRepository.class, methods);
+    }
+
+    private static boolean holdable(InventoryItem item, String userId, LocalDateTime now) {
+        return "AVAILABLE".equals(item.getStatus()) || "RESERVED".equals(item.getStatus())
+                && (userId.equals(item.getHeldBy()) || item.getHeldUntil().isBefore(now));
+    }
+
+    private static void hold(InventoryItem item, String userId, LocalDateTime until) {
+        item.setStatus("RESERVED");
+        item.setHeldBy(userId);
+        item.setHeldUntil(until);
+    }
+
+    ProductRepository productRepository() {
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("findByBarcode", a -> Optional.ofNullable(products.get((String) a[0])));
+        methods.put("findAll", a -> new ArrayList<>(products.values()));
+        methods.put("findByStoreId", a -> products.values().stream()
+                .filter(p -> p.getStoreId().equals(a[0])).toList());
+        methods.put("saveAll", a -> {
+            List<Product> saved = new ArrayList<>();
+            for (Object o : (Iterable<?>) a[0]) {
+                Product product = (Product) o;
+                if (product.getId() == null) {
+                    product.setId(UUID.randomUUID().toString());
+                }
+                products.put(product.getBarcode(), product);
+                saved.add(product);
+            }
+            return saved;
+        });
+        methods.put("findAllById", a -> {
+            List<Product> found = new ArrayList<>();
+            for (Object id : (Iterable<?>) a[0]) {
+                products.values().stream().filter(p -> p.getId().equals(id)).findFirst().ifPresent(found::add);
+            }
+            return found;
+        });
+        return proxy(ProductRepository.class, methods);
+    }
+
+    CartRepository cartRepository() {
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("findByUserId", a -> Optional.ofNullable(carts.get((String) a[0])));
+        methods.put("save", a -> {
+            Cart cart = (Cart) a[0];
+            if (cart.getId() == null) {
+                cart.setId(UUID.randomUUID().toString());
+            }
+            carts.put(cart.getUserId(), cart);
+            return cart;
+        });
+        methods.put("deleteById", a -> {
+            carts.values().removeIf(c -> c.getId().equals(a[0]));
+            return null;
+        });
+        methods.put("pushItem", a -> {
+            String userId = (String) a[0];
+            CartItem item = (CartItem) a[2];
+            Cart cart = carts.computeIfAbsent(userId, u -> {
+                Cart created = new Cart();
+                created.setId(UUID.randomUUID().toString());
+                created.setUserId(u);
+                created.setStoreId((String) a[1]);
+                return created;
+            });
+            for (CartItem existing : cart.getItems()) {
+                if (existing.getSerialNumber().equals(item.getSerialNumber())) {
+                    return Optional.empty();
+                }
+            }
+            cart.getItems().add(item);
+            cart.setSubtotalPaise(cart.getSubtotalPaise() + item.lineSubtotalPaise());
+            cart.setTaxPaise(cart.getTaxPaise() + item.lineTaxPaise());
+            cart.setDiscountPaise(cart.getDiscountPaise() + item.lineDiscountPaise());
+            cart.setTotalPaise(cart.getTotalPaise() + item.lineTotalPaise());
+            return Optional.of(cart);
+        });
+        methods.put("pullItem", a -> {
+            Cart cart = carts.get((String) a[0]);
+            CartItem item = (CartItem) a[1];
+            if (cart == null || !cart.getItems().removeIf(i -> i.getSerialNumber().equals(item.getSerialNumber()))) {
+                return Optional.empty();
+            }
+            cart.setSubtotalPaise(cart.getSubtotalPaise() - item.lineSubtotalPaise());
+            cart.setTaxPaise(cart.getTaxPaise() - item.lineTaxPaise());
+            cart.setDiscountPaise(cart.getDiscountPaise() - item.lineDiscountPaise());
+            cart.setTotalPaise(cart.getTotalPaise() - item.lineTotalPaise());
+            return Optional.of(cart);
+        });
+        methods.put("removeItems", a -> {
+            Cart cart = carts.get((String) a[0]);
+            if (cart != null) {
+                Collection<?> serials = (Collection<?>) a[1];
+                cart.getItems().removeIf(i -> serials.contains(i.getSerialNumber()));
+                CartService.calculateTotal(cart);
+            }
+            return null;
+        });
+        return proxy(CartRepository.class, methods);
+    }
+
+    OrderRepository orderRepository() {
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("save", a -> {
+            Order order = (Order) a[0];
+            if (order.getId() == null) {
+                order.setId(UUID.randomUUID().toString());
+            }
+            orders.put(order.getId(), order);
+            return order;
+        });
+        methods.put("findById", a -> Optional.ofNullable(orders.get((String) a[0])));
+        methods.put("findReceiptById", a -> Optional.ofNullable(orders.get((String) a[0])).map(o -> {
+            Receipt receipt = new Receipt();
+            BeanUtils.copyProperties(o, receipt);
+            return receipt;
+        }));
+        methods.put("findByIdempotencyKey", a -> orders.values().stream()
+                .filter(o -> a[0].equals(o.getIdempotencyKey())).findFirst());
+        return proxy(OrderRepository.class, methods);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        InvocationHandler handler = (self, method, args) -> {
+            Function<Object[], Object> impl = methods.get(method.getName());
+            if (impl != null) {
+                return impl.apply(args);
+            }
+            switch (method.getName()) {
+                case "toString":
+                    return "InMemory" + type.getSimpleName();
+                case "hashCode":
+                    return System.identityHashCode(self);
+                case "equals":
+                    return self == args[0];
+                default:
+                    throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName()
+                            + " has no in-memory stand-in");
+            }
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.scanbill.benchmarks;
+
+import com.example.scanbill.controller.ReceiptController;
+import com.example.scanbill.model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repeated fetch of one receipt, as happens when the exit gate, the customer and
+ * audit tooling all scan the same QR code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReceiptBenchmark {
+    @Param({ "memory", "mongo" })
+    public String backend;
+
+    @Param({ "1", "60" })
+    public int basketSize;
+
+    private BenchmarkFixture fixture;
+    private ReceiptController receiptController;
+    private String orderId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = BenchmarkFixture.create(backend, 50, 10);
+        receiptController = fixture.receiptController();
+        fixture.fillCart("bench-receipt-user", fixture.serials(0, basketSize));
+        Order order = fixture.orderService().checkout("bench-receipt-user", "Bench Customer", "9999999999",
+                BenchmarkFixture.STORE_ID, null);
+        orderId = order.getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Object getReceipt() {
+        return receiptController.getReceipt(orderId, null);
+    }
+}
@@ -0,0 +1,47 @@
+#!/usr/bin/env sh
+# Runs the load driver against the backend twice, once on Tomcat's platform-thread
+# pool and once on virtual threads, and prints both reports. The virtual run also
+# traces pinned carriers; any hit is printed under the reports.
+#
+# Needs a Java 21 runtime, Mongo on MONGODB_URI and both jars built:
+#   (cd .. && mvn package -DskipTests) && mvn package
+set -eu
+
+APP_JAR=${APP_JAR:-$(ls ../target/*-exec.jar | head -n 1)}
+PORT=${PORT:-8081}
+WORKERS=${WORKERS:-400}
+SECONDS_PER_RUN=${SECONDS_PER_RUN:-60}
+TOMCAT_MAX_THREADS=${TOMCAT_MAX_THREADS:-200}
+export TOMCAT_MAX_THREADS
+# Workers use made-up user ids rather than logging in, and are meant to push the
+# server past what the per-store rate limits would let through
+AUTH_ENFORCE_TOKENS=${AUTH_ENFORCE_TOKENS:-false}
+RATE_LIMIT_ENABLED=${RATE_LIMIT_ENABLED:-false}
+export AUTH_ENFORCE_TOKENS RATE_LIMIT_ENABLED
+LOG_DIR=${LOG_DIR:-target/compare-threads}
+mkdir -p "$LOG_DIR"
+
+run() {
+    label=$1
+    virtual=$2
+    shift 2
+    VIRTUAL_THREADS=$virtual java "$@" -jar "$APP_JAR" --server.port="$PORT" > "$LOG_DIR/$label.log" 2>&1 &
+    app=$!
+    until curl -sf "http://localhost:$PORT/actuator/health" > /dev/null; do
+        kill -0 "$app" 2> /dev/null || { echo "backend exited, see $LOG_DIR/$label.log"; exit 1; }
+        sleep 1
+    done
+    java -jar target/loadtest.jar --url="http://localhost:$PORT" --workers="$WORKERS" \
+        --seconds="$SECONDS_PER_RUN" --label="$label" | tee "$LOG_DIR/$label.txt"
+    kill "$app"
+    wait "$app" 2> /dev/null || true
+}
+
+run platform false
+run virtual true -Djdk.tracePinnedThreads=short
+
+pinned=$(grep -c "onPinned\|<== monitors" "$LOG_DIR/virtual.log" || true)
+echo "Pinned virtual thread events: $pinned"
+if [ "$pinned" -gt 0 ]; then
+    grep -A 8 "onPinned\|<== monitors" "$LOG_DIR/virtual.log" | head -n 40
+fi
@@ -0,0 +1,36 @@
+#!/usr/bin/env sh
+# Seeds a store estate at realistic size, starts the backend against it and runs
+# a rush of scan -> remove -> checkout -> payment -> receipt flows at a fixed rate.
+# Seeding is resumable, so a second run only tops up what is missing.
+#
+# Needs Mongo on MONGODB_URI (from the repo root: docker compose up -d mongodb)
+# and both jars built:
+#   (cd .. && mvn package -DskipTests) && mvn package
+set -eu
+
+APP_JAR=${APP_JAR:-$(ls ../target/*-exec.jar | head -n 1)}
+PORT=${PORT:-8081}
+MONGODB_URI=${MONGODB_URI:-mongodb://localhost:27017/scanbill}
+STORES=${STORES:-200}
+SKUS=${SKUS:-100000}
+UNITS=${UNITS:-2000000}
+TILLS=${TILLS:-4}
+RATE=${RATE:-50}
+WORKERS=${WORKERS:-200}
+SECONDS_PER_RUN=${SECONDS_PER_RUN:-120}
+LOG_DIR=${LOG_DIR:-target/rush}
+mkdir -p "$LOG_DIR"
+
+java -jar target/loadtest.jar --mode=seed --mongo="$MONGODB_URI" --stores="$STORES" --skus="$SKUS" \
+    --units="$UNITS" --tills="$TILLS"
+
+MONGODB_URI=$MONGODB_URI java -jar "$APP_JAR" --server.port="$PORT" > "$LOG_DIR/backend.log" 2>&1 &
+app=$!
+trap 'kill "$app" 2> /dev/null || true' EXIT
+until curl -sf "http://localhost:$PORT/actuator/health" > /dev/null; do
+    kill -0 "$app" 2> /dev/null || { echo "backend exited, see $LOG_DIR/backend.log"; exit 1; }
+    sleep 1
+done
+
+java -jar target/loadtest.jar --mode=rush --url="http://localhost:$PORT" --stores="$STORES" --tills="$TILLS" \
+    --rate="$RATE" --workers="$WORKERS" --seconds="$SECONDS_PER_RUN" | tee "$LOG_DIR/report.txt"
@@ -0,0 +1,148 @@
+package com.example.scanbill.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Load against a running backend, in one of three modes:
+ * <ul>
+ * <li>{@code scan} (default): closed loop. Each worker plays one till that looks
+ * up a product, lists its units, scans one into its own cart and removes it
+ * again, as fast as responses come back. Run it once against a platform-thread
+ * server and once with {@code VIRTUAL_THREADS=true} (see {@code compare-threads.sh})
+ * with more workers than Tomcat has threads to see the difference.</li>
+ * <li>{@code seed}: bulk-loads stores, products, units and till logins straight
+ * into Mongo (see {@link Seeder}).</li>
+ * <li>{@code rush}: open loop over seeded stores, starting whole shopping flows
+ * at a fixed rate (see {@link Rush}).</li>
+ * </ul>
+ *
+ * <pre>
+ * java -jar target/loadtest.jar --url=http://localhost:8081 --workers=400 --seconds=60 --label=virtual
+ * java -jar target/loadtest.jar --mode=seed --stores=200 --skus=100000 --units=2000000
+ * java -jar target/loadtest.jar --mode=rush --rate=50 --seconds=120
+ * </pre>
+ */
+public final class LoadTest {
+    private final Api api;
+
+    private LoadTest(Api api) {
+        this.api = api;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String mode = options.getOrDefault("mode", "scan");
+        switch (mode) {
+            case "seed" -> Seeder.run(options);
+            case "rush" -> Rush.run(options);
+            case "scan" -> scan(options);
+            default -> throw new IllegalArgumentException("Unknown --mode=" + mode + "; use scan, seed or rush");
+        }
+    }
+
+    private static void scan(Map<String, String> options) throws Exception {
+        String url = options.getOrDefault("url", "http://localhost:8081");
+        int workers = Integer.parseInt(options.getOrDefault("workers", "400"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "60"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        String label = options.getOrDefault("label", "run");
+
+        LoadTest test = new LoadTest(new Api(url, Duration.ofSeconds(30)));
+        String storeId = options.containsKey("store") ? options.get("store") : test.firstStoreId();
+        Map<String, List<String>> serialsByBarcode = test.availableSerials(storeId);
+        if (serialsByBarcode.isEmpty()) {
+            throw new IllegalStateException("Store " + storeId + " has no available units to scan");
+        }
+        System.out.printf("Store %s: %d products with stock, %d workers, %ds warmup + %ds measured%n",
+                storeId, serialsByBarcode.size(), workers, warmup, seconds);
+
+        test.run(storeId, serialsByBarcode, workers, Duration.ofSeconds(warmup));
+        long started = System.nanoTime();
+        Report report = test.run(storeId, serialsByBarcode, workers, Duration.ofSeconds(seconds));
+        double elapsed = (System.nanoTime() - started) / 1e9;
+        System.out.print(report.format(label, elapsed));
+    }
+
+    private Report run(String storeId, Map<String, List<String>> serialsByBarcode, int workers, Duration duration)
+            throws InterruptedException {
+        List<String> barcodes = new ArrayList<>(serialsByBarcode.keySet());
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Report> reports = new ArrayList<>(workers);
+        CountDownLatch done = new CountDownLatch(workers);
+
+        for (int w = 0; w < workers; w++) {
+            Report report = new Report();
+            reports.add(report);
+            String userId = "loadtest-" + w;
+            Thread worker = new Thread(() -> {
+                try {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        String barcode = barcodes.get(random.nextInt(barcodes.size()));
+                        List<String> serials = serialsByBarcode.get(barcode);
+                        String serial = serials.get(random.nextInt(serials.size()));
+                        api.call(report, "product", api.get("/api/products/" + Api.encode(barcode)));
+                        api.call(report, "units", api.get("/api/products/" + Api.encode(barcode)
+                                + "/units?storeId=" + Api.encode(storeId)));
+                        api.call(report, "add", api.request("/api/cart/" + userId + "/add?serialNumber="
+                                + Api.encode(serial) + "&storeId=" + Api.encode(storeId))
+                                .POST(HttpRequest.BodyPublishers.noBody()));
+                        api.call(report, "remove", api.request("/api/cart/" + userId + "/remove?serialNumber="
+                                + Api.encode(serial) + "&storeId=" + Api.encode(storeId)).DELETE());
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "loadtest-" + w);
+            worker.start();
+        }
+        done.await();
+        return Report.merge(reports);
+    }
+
+    private String firstStoreId() throws IOException, InterruptedException {
+        JsonNode stores = api.fetch("/api/auth/stores");
+        if (!stores.isArray() || stores.isEmpty()) {
+            throw new IllegalStateException("No stores found; seed the backend or pass --store=<id>");
+        }
+        return stores.get(0).get("id").asText();
+    }
+
+    private Map<String, List<String>> availableSerials(String storeId) throws IOException, InterruptedException {
+        Map<String, List<String>> serials = new HashMap<>();
+        for (JsonNode product : api.fetch("/api/products?storeId=" + Api.encode(storeId))) {
+            String barcode = product.get("barcode").asText();
+            List<String> units = new ArrayList<>();
+            for (JsonNode unit : api.fetch("/api/products/" + Api.encode(barcode) + "/units?storeId="
+                    + Api.encode(storeId))) {
+                units.add(unit.get("serialNumber").asText());
+            }
+            if (!units.isEmpty()) {
+                serials.put(barcode, units);
+            }
+        }
+        return serials;
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.scanbill.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latencies and error counts collected by one worker; merged into a single
+ * report at the end of a run. Request latencies are kept overall and per step;
+ * a whole flow (rush mode) is timed separately from its requests.
+ */
+final class Report {
+    private final Latencies requests = new Latencies();
+    private final Map<String, Latencies> steps = new TreeMap<>();
+    private final Latencies flows = new Latencies();
+    private final Map<String, Integer> errors = new TreeMap<>();
+
+    void record(String step, long nanos) {
+        requests.add(nanos);
+        steps.computeIfAbsent(step, k -> new Latencies()).add(nanos);
+    }
+
+    /**
+     * One flow, timed from when it was due to start, so a backlog of flows
+     * waiting for a worker shows up as latency rather than going unseen.
+     */
+    void flow(long nanos) {
+        flows.add(nanos);
+    }
+
+    void error(String kind) {
+        errors.merge(kind, 1, Integer::sum);
+    }
+
+    static Report merge(Iterable<Report> reports) {
+        Report merged = new Report();
+        for (Report report : reports) {
+            merged.requests.addAll(report.requests);
+            report.steps.forEach((step, l) -> merged.steps.computeIfAbsent(step, k -> new Latencies()).addAll(l));
+            merged.flows.addAll(report.flows);
+            report.errors.forEach((kind, n) -> merged.errors.merge(kind, n, Integer::sum));
+        }
+        return merged;
+    }
+
+    int errorCount() {
+        int total = 0;
+        for (int n : errors.values()) {
+            total += n;
+        }
+        return total;
+    }
+
+    String format(String label, double seconds) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-12s requests=%d errors=%d throughput=%.1f req/s%n",
+                label, requests.count, errorCount(), requests.count / seconds));
+        out.append(String.format("%-12s %s%n", "", requests.percentiles()));
+        if (flows.count > 0) {
+            out.append(String.format("%-12s flows=%d throughput=%.1f flows/s%n", "", flows.count,
+                    flows.count / seconds));
+            out.append(String.format("%-12s %s%n", "", flows.percentiles()));
+        }
+        steps.forEach((step, l) -> out.append(String.format("%-12s %-9s n=%-8d %s%n", "", step, l.count,
+                l.percentiles())));
+        errors.forEach((kind, n) -> out.append(String.format("%-12s %s: %d%n", "", kind, n)));
+        return out.toString();
+    }
+
+    private static final class Latencies {
+        private long[] nanos = new long[1 << 10];
+        private int count;
+
+        void add(long value) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = value;
+        }
+
+        void addAll(Latencies other) {
+            for (int i = 0; i < other.count; i++) {
+                add(other.nanos[i]);
+            }
+        }
+
+        String percentiles() {
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            return String.format("p50=%.1fms p90=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms",
+                    millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99), millis(sorted, 0.999),
+                    count == 0 ? 0.0 : sorted[count - 1] / 1e6);
+        }
+
+        private static double millis(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.scanbill.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop rush over the stores {@link Seeder} wrote. Flows start at
+ * {@code --rate} per second whatever the backend's latency, as shoppers would,
+ * each on an idle till of a random store:
+ * <ol>
+ * <li>{@code --basket} scans: product lookup, unit list, add to cart;</li>
+ * <li>one item put back (remove);</li>
+ * <li>checkout, cash payment, and the receipt.</li>
+ * </ol>
+ * Tills log in once up front and carry their session token. A till runs one
+ * flow at a time (its cart is its own), so flows queue when all tills are busy;
+ * the flow latency counts that wait.
+ */
+final class Rush {
+    private final Api api;
+    private final int basket;
+
+    private record Store(String id, List<String> barcodes) {
+    }
+
+    private record Till(String userId, String token, Store store) {
+    }
+
+    private Rush(Api api, int basket) {
+        this.api = api;
+        this.basket = basket;
+    }
+
+    static void run(Map<String, String> options) throws Exception {
+        Api api = new Api(options.getOrDefault("url", "http://localhost:8081"), Duration.ofSeconds(30));
+        String prefix = options.getOrDefault("prefix", "load");
+        int maxStores = Integer.parseInt(options.getOrDefault("stores", "200"));
+        int tillsPerStore = Integer.parseInt(options.getOrDefault("tills", "4"));
+        String password = options.getOrDefault("password", "loadtest");
+        double rate = Double.parseDouble(options.getOrDefault("rate", "20"));
+        int workers = Integer.parseInt(options.getOrDefault("workers", "200"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "60"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        String label = options.getOrDefault("label", "rush");
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            List<Store> stores = discover(api, pool, prefix, maxStores);
+            BlockingQueue<Till> idle = login(api, pool, stores, tillsPerStore, password);
+            Rush rush = new Rush(api, Integer.parseInt(options.getOrDefault("basket", "3")));
+            System.out.printf("Rush: %d stores, %d tills, %.1f flows/s on %d workers, %ds warmup + %ds measured%n",
+                    stores.size(), idle.size(), rate, workers, warmup, seconds);
+
+            rush.drive(pool, idle, rate, Duration.ofSeconds(warmup));
+            long started = System.nanoTime();
+            Report report = rush.drive(pool, idle, rate, Duration.ofSeconds(seconds));
+            double elapsed = (System.nanoTime() - started) / 1e9;
+            System.out.print(report.format(label, elapsed));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Seeded stores and their barcodes, fetched in parallel.
+     */
+    private static List<Store> discover(Api api, ExecutorService pool, String prefix, int maxStores)
+            throws Exception {
+        List<Future<Store>> fetches = new ArrayList<>();
+        for (JsonNode store : api.fetch("/api/auth/stores")) {
+            String id = store.get("id").asText();
+            if (id.startsWith(prefix + "-") && fetches.size() < maxStores) {
+                fetches.add(pool.submit(() -> {
+                    List<String> barcodes = new ArrayList<>();
+                    for (JsonNode product : api.fetch("/api/products?storeId=" + Api.encode(id))) {
+                        barcodes.add(product.get("barcode").asText());
+                    }
+                    return new Store(id, barcodes);
+                }));
+            }
+        }
+        List<Store> stores = new ArrayList<>();
+        for (Future<Store> fetch : fetches) {
+            Store store = fetch.get();
+            if (!store.barcodes().isEmpty()) {
+                stores.add(store);
+            }
+        }
+        if (stores.isEmpty()) {
+            throw new IllegalStateException("No seeded stores with products found; run --mode=seed first");
+        }
+        return stores;
+    }
+
+    private static BlockingQueue<Till> login(Api api, ExecutorService pool, List<Store> stores, int tillsPerStore,
+            String password) throws Exception {
+        List<Future<Till>> logins = new ArrayList<>();
+        for (Store store : stores) {
+            for (int t = 1; t <= tillsPerStore; t++) {
+                String username = store.id() + "-till-" + t;
+                logins.add(pool.submit(() -> {
+                    JsonNode session = api.fetch(api.postJson("/api/auth/login",
+                            Map.of("username", username, "password", password)));
+                    return new Till(session.get("id").asText(), session.path("token").asText(""), store);
+                }));
+            }
+        }
+        BlockingQueue<Till> idle = new LinkedBlockingQueue<>();
+        for (Future<Till> login : logins) {
+            idle.add(login.get());
+        }
+        return idle;
+    }
+
+    private Report drive(ExecutorService pool, BlockingQueue<Till> idle, double rate, Duration duration)
+            throws InterruptedException {
+        ConcurrentLinkedQueue<Report> reports = new ConcurrentLinkedQueue<>();
+        ThreadLocal<Report> local = ThreadLocal.withInitial(() -> {
+            Report report = new Report();
+            reports.add(report);
+            return report;
+        });
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        List<Future<?>> flows = new ArrayList<>();
+        for (long n = 0; ; n++) {
+            long due = start + n * interval;
+            if (due >= deadline) {
+                break;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            flows.add(pool.submit(() -> {
+                Report report = local.get();
+                Till till = null;
+                try {
+                    till = idle.take();
+                    flow(till, report);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    if (till != null) {
+                        idle.add(till);
+                    }
+                    report.flow(System.nanoTime() - due);
+                }
+            }));
+        }
+        for (Future<?> flow : flows) {
+            try {
+                flow.get();
+            } catch (ExecutionException e) {
+                local.get().error("flow " + e.getCause().getClass().getSimpleName());
+            }
+        }
+        return Report.merge(reports);
+    }
+
+    private void flow(Till till, Report report) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String store = Api.encode(till.store().id());
+        List<String> scanned = new ArrayList<>(basket);
+        for (int i = 0; i < basket; i++) {
+            List<String> barcodes = till.store().barcodes();
+            String barcode = Api.encode(barcodes.get(random.nextInt(barcodes.size())));
+            api.call(report, "product", api.get("/api/products/" + barcode));
+            String units = api.call(report, "units", api.get("/api/products/" + barcode + "/units?storeId="
+                    + store + "&limit=20"));
+            JsonNode list = parse(units);
+            if (list == null || list.isEmpty()) {
+                report.error("units none available");
+                continue;
+            }
+            String serial = list.get(random.nextInt(list.size())).get("serialNumber").asText();
+            // Another till may take the same unit first; that shows up as an add error
+            if (api.call(report, "add", authed(till, "/api/cart/" + till.userId() + "/add?serialNumber="
+                    + Api.encode(serial) + "&storeId=" + store).POST(HttpRequest.BodyPublishers.noBody())) != null) {
+                scanned.add(serial);
+            }
+        }
+        if (scanned.size() > 1) {
+            String putBack = scanned.remove(scanned.size() - 1);
+            api.call(report, "remove", authed(till, "/api/cart/" + till.userId() + "/remove?serialNumber="
+                    + Api.encode(putBack) + "&storeId=" + store).DELETE());
+        }
+        if (scanned.isEmpty()) {
+            return;
+        }
+        JsonNode order = parse(api.call(report, "checkout", authed(till, "/api/orders/checkout/" + till.userId()
+                + "?customerName=Load&customerMobile=9000000000&storeId=" + store + "&idempotencyKey="
+                + UUID.randomUUID()).POST(HttpRequest.BodyPublishers.noBody())));
+        if (order == null || !order.hasNonNull("id")) {
+            return;
+        }
+        String orderId = order.get("id").asText();
+        api.call(report, "payment", api.postJson("/api/payments/cash", Map.of("orderId", orderId))
+                .header("Idempotency-Key", UUID.randomUUID().toString()));
+        api.call(report, "receipt", api.get("/api/receipts/" + Api.encode(orderId)));
+    }
+
+    private HttpRequest.Builder authed(Till till, String path) {
+        HttpRequest.Builder builder = api.request(path);
+        return till.token().isEmpty() ? builder : builder.header("Authorization", "Bearer " + till.token());
+    }
+
+    private static JsonNode parse(String body) {
+        try {
+            return body == null ? null : Api.JSON.readTree(body);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
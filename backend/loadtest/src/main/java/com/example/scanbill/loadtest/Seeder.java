@@ -0,0 +1,204 @@
+package com.example.scanbill.loadtest;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads a store estate at realistic size straight into Mongo with unordered
+ * bulk inserts, one store per task across a thread pool. Everything it writes
+ * has a deterministic key ({@code <prefix>-0001}, barcode
+ * {@code <prefix>-0001-00042}, serial {@code <barcode>-0007}), so a rerun only
+ * adds what is missing: duplicates are skipped by the unique indexes, which it
+ * creates up front under the backend's own names.
+ * <p>
+ * SKUs are spread evenly over stores and units evenly over SKUs. Each store gets
+ * {@code --tills} ADMIN logins named {@code <storeId>-till-<n>} that share
+ * {@code --password}.
+ */
+final class Seeder {
+    private static final String MODEL = "com.example.scanbill.model.";
+    private static final String[] CATEGORIES = { "Electronics", "Fashion", "Grocery", "Home", "Beauty" };
+
+    private final MongoDatabase db;
+    private final String prefix;
+    private final int stores;
+    private final long skus;
+    private final long units;
+    private final int tills;
+    private final int batchSize;
+    private final String passwordHash;
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    private Seeder(MongoDatabase db, Map<String, String> options) {
+        this.db = db;
+        this.prefix = options.getOrDefault("prefix", "load");
+        this.stores = Integer.parseInt(options.getOrDefault("stores", "200"));
+        this.skus = Long.parseLong(options.getOrDefault("skus", "100000"));
+        this.units = Long.parseLong(options.getOrDefault("units", "2000000"));
+        this.tills = Integer.parseInt(options.getOrDefault("tills", "4"));
+        this.batchSize = Integer.parseInt(options.getOrDefault("batch", "5000"));
+        this.passwordHash = BCrypt.hashpw(options.getOrDefault("password", "loadtest"), BCrypt.gensalt(10));
+    }
+
+    static void run(Map<String, String> options) throws Exception {
+        String uri = options.getOrDefault("mongo", "mongodb://localhost:27017/scanbill");
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        ConnectionString connection = new ConnectionString(uri);
+        String database = connection.getDatabase() != null ? connection.getDatabase() : "scanbill";
+        try (MongoClient client = MongoClients.create(connection)) {
+            Seeder seeder = new Seeder(client.getDatabase(database), options);
+            System.out.printf("Seeding %s: %d stores, %d SKUs, %d units, %d tills per store on %d threads%n",
+                    database, seeder.stores, seeder.skus, seeder.units, seeder.tills, threads);
+            long started = System.nanoTime();
+            seeder.createIndexes();
+            seeder.seed(threads);
+            double elapsed = (System.nanoTime() - started) / 1e9;
+            System.out.printf("Inserted %d documents (%d already present) in %.1fs, %.0f docs/s%n",
+                    seeder.inserted.get(), seeder.skipped.get(), elapsed, seeder.inserted.get() / elapsed);
+        }
+    }
+
+    /**
+     * The backend's unique indexes, so reruns skip what exists, plus the ones
+     * its scans query by; identical to what it declares, so creating them again
+     * at its startup is a no-op.
+     */
+    private void createIndexes() {
+        db.getCollection("products").createIndex(Indexes.ascending("barcode"),
+                new IndexOptions().name("barcode_unique").unique(true));
+        db.getCollection("products").createIndex(Indexes.ascending("storeId"), new IndexOptions().name("storeId"));
+        db.getCollection("inventory_items").createIndex(Indexes.ascending("serialNumber"),
+                new IndexOptions().name("serialNumber_unique").unique(true));
+        db.getCollection("inventory_items").createIndex(Indexes.ascending("barcode", "status", "storeId"),
+                new IndexOptions().name("barcode_status_store"));
+        db.getCollection("users").createIndex(Indexes.ascending("username"),
+                new IndexOptions().name("username_unique").unique(true));
+    }
+
+    private void seed(int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> tasks = new ArrayList<>(stores);
+            for (int s = 0; s < stores; s++) {
+                int store = s;
+                tasks.add(pool.submit(() -> {
+                    seedStore(store);
+                    return null;
+                }));
+            }
+            long lastReport = System.nanoTime();
+            for (int i = 0; i < tasks.size(); i++) {
+                tasks.get(i).get();
+                if (System.nanoTime() - lastReport > 5_000_000_000L) {
+                    System.out.printf("  %d/%d stores, %d documents%n", i + 1, stores, inserted.get());
+                    lastReport = System.nanoTime();
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void seedStore(int s) {
+        String storeId = String.format("%s-%04d", prefix, s);
+        insert(db.getCollection("stores"), List.of(new Document("_id", storeId)
+                .append("name", "Load Store " + storeId)
+                .append("location", "Zone " + (s % 20))
+                .append("version", 0L)
+                .append("_class", MODEL + "Store")));
+
+        List<Document> logins = new ArrayList<>(tills);
+        for (int t = 1; t <= tills; t++) {
+            String username = storeId + "-till-" + t;
+            logins.add(new Document("_id", username)
+                    .append("username", username)
+                    .append("password", passwordHash)
+                    .append("role", "ADMIN")
+                    .append("storeId", storeId)
+                    .append("version", 0L)
+                    .append("_class", MODEL + "User"));
+        }
+        insert(db.getCollection("users"), logins);
+
+        MongoCollection<Document> products = db.getCollection("products");
+        MongoCollection<Document> items = db.getCollection("inventory_items");
+        List<Document> productBatch = new ArrayList<>();
+        List<Document> unitBatch = new ArrayList<>(batchSize);
+        // SKU k belongs to store k % stores; unit u to SKU u % skus
+        for (long k = s, n = 0; k < skus; k += stores, n++) {
+            String barcode = String.format("%s-%05d", storeId, n);
+            double price = 20 + (k % 500) * 5;
+            productBatch.add(new Document("barcode", barcode)
+                    .append("name", "Item " + barcode)
+                    .append("price", price)
+                    .append("category", CATEGORIES[(int) (k % CATEGORIES.length)])
+                    .append("basePrice", price)
+                    .append("storeId", storeId)
+                    .append("taxRate", 18.0)
+                    .append("costPrice", price * 0.6)
+                    .append("version", 0L)
+                    .append("_class", MODEL + "Product"));
+            if (productBatch.size() == batchSize) {
+                insert(products, productBatch);
+                productBatch = new ArrayList<>();
+            }
+            long perSku = units / skus + (k < units % skus ? 1 : 0);
+            for (long u = 0; u < perSku; u++) {
+                unitBatch.add(new Document("barcode", barcode)
+                        .append("serialNumber", String.format("%s-%04d", barcode, u))
+                        .append("status", "AVAILABLE")
+                        .append("storeId", storeId)
+                        .append("version", 0L)
+                        .append("_class", MODEL + "InventoryItem"));
+                if (unitBatch.size() == batchSize) {
+                    insert(items, unitBatch);
+                    unitBatch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        insert(products, productBatch);
+        insert(items, unitBatch);
+    }
+
+    /**
+     * Unordered, so one duplicate does not stop the rest of the batch.
+     */
+    private void insert(MongoCollection<Document> collection, List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        try {
+            collection.insertMany(documents, new InsertManyOptions().ordered(false));
+            inserted.addAndGet(documents.size());
+        } catch (MongoBulkWriteException e) {
+            for (BulkWriteError error : e.getWriteErrors()) {
+                if (ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+            inserted.addAndGet(e.getWriteResult().getInsertedCount());
+            skipped.addAndGet(e.getWriteErrors().size());
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.scanbill;
 
 import org.springframework.boot.SpringApplication;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
@@ -15,6 +19,7 @@ import org.springframework.web.bind.annotation.RestController;
 import java.util.Collections;
 
 @SpringBootApplication
+@EnableScheduling
 @RestController
 public class ScanBillApplication {
 
@@ -37,6 +42,15 @@ public class ScanBillApplication {
 		return bean;
 	}
 
+	/**
+	 * BCrypt at {@code scanbill.auth.bcrypt-strength} (log2 rounds). Raising it
+	 * re-hashes each user's password at their next login.
+	 */
+	@Bean
+	public PasswordEncoder passwordEncoder(@Value("${scanbill.auth.bcrypt-strength:10}") int strength) {
+		return new BCryptPasswordEncoder(strength);
+	}
+
 	@GetMapping("/api/ping")
 	public String ping() {
 		return "pong";
@@ -0,0 +1,49 @@
+package com.example.scanbill.component;
+
+import com.example.scanbill.model.Cart;
+import com.example.scanbill.model.CartItem;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Where active carts live between scans. {@link MongoCartStore} writes every
+ * change straight to the {@code carts} collection; {@link WriteBehindCartStore}
+ * keeps carts in memory and flushes them in batches. Chosen with
+ * {@code scanbill.cart.store}.
+ */
+public interface CartStore {
+    Optional<Cart> find(String userId);
+
+    Cart getOrCreate(String userId, String storeId);
+
+    /**
+     * Adds {@code item} unless its serial number is already in the cart. Returns
+     * the updated cart, or empty if it was a duplicate.
+     */
+    Optional<Cart> pushItem(String userId, String storeId, CartItem item);
+
+    /**
+     * Removes {@code item}. Returns the updated cart, or empty if it was not there.
+     */
+    Optional<Cart> pullItem(String userId, CartItem item);
+
+    /**
+     * Drops the given serial numbers after a checkout, leaving any other lines.
+     */
+    void removeItems(String userId, Collection<String> serialNumbers);
+
+    /**
+     * Drops {@code remove} and adds each of {@code add} not already in the cart in
+     * one step, creating the cart if needed. Returns the cart as it was before, or
+     * empty if it did not exist.
+     */
+    Optional<Cart> applyBatch(String userId, String storeId, List<CartItem> add, Collection<String> remove);
+
+    /**
+     * Whether writes take part in a surrounding Mongo transaction and roll back
+     * with it.
+     */
+    boolean joinsTransactions();
+}
@@ -0,0 +1,270 @@
+package com.example.scanbill.component;
+
+import com.example.scanbill.model.ChangeStreamCheckpoint;
+import com.example.scanbill.model.ChangeStreamResetEvent;
+import com.example.scanbill.model.InventoryChangeEvent;
+import com.example.scanbill.model.InventoryItem;
+import com.example.scanbill.model.Order;
+import com.example.scanbill.model.OrderChangeEvent;
+import com.example.scanbill.model.Product;
+import com.example.scanbill.model.ProductChangeEvent;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tails the {@code products}, {@code inventory_items} and {@code orders} change
+ * streams and republishes every write as a typed application event
+ * ({@link ProductChangeEvent}, {@link InventoryChangeEvent}, {@link OrderChangeEvent}),
+ * so in-process caches on every node hear about writes made by the others.
+ * Each node keeps its own resume token per collection and picks up where it
+ * left off after a restart. If that is no longer possible a
+ * {@link ChangeStreamResetEvent} is published and the stream restarts from now.
+ * <p>
+ * Enabled with {@code scanbill.change-streams.enabled=true}; change streams need
+ * a replica set.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "scanbill.change-streams.enabled", havingValue = "true")
+public class ChangeStreamListener implements SmartLifecycle {
+    static final List<String> COLLECTIONS = List.of("products", "inventory_items", "orders");
+    // ChangeStreamHistoryLost, ChangeStreamFatalError: the token points past the oplog
+    private static final List<Integer> UNRESUMABLE = List.of(286, 280);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher events;
+    private final ScanBillMetrics scanBillMetrics;
+    private final String nodeId;
+    private final long checkpointIntervalNanos;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    public ChangeStreamListener(MongoTemplate mongoTemplate, ApplicationEventPublisher events,
+            ScanBillMetrics scanBillMetrics,
+            @Value("${scanbill.change-streams.node-id:${HOSTNAME:local}}") String nodeId,
+            @Value("${scanbill.change-streams.checkpoint-interval:1s}") Duration checkpointInterval) {
+        this.mongoTemplate = mongoTemplate;
+        this.events = events;
+        this.scanBillMetrics = scanBillMetrics;
+        this.nodeId = nodeId;
+        this.checkpointIntervalNanos = checkpointInterval.toNanos();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        for (String collection : COLLECTIONS) {
+            // A blocking cursor per collection; these threads spend their life parked in tryNext
+            Thread worker = new Thread(() -> follow(collection), "change-stream-" + collection);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("Following change streams on {} as node {}", COLLECTIONS, nodeId);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Thread worker : workers) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        workers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Reopens the stream after any failure, from the last checkpoint, until the
+     * application shuts down.
+     */
+    private void follow(String collection) {
+        long backoffMillis = 500;
+        while (running) {
+            try {
+                stream(collection);
+                backoffMillis = 500;
+            } catch (MongoException e) {
+                if (UNRESUMABLE.contains(e.getCode())) {
+                    log.warn("Change stream on {} cannot resume, restarting from now: {}", collection,
+                            e.getMessage());
+                    reset(collection);
+                    continue;
+                }
+                log.warn("Change stream on {} failed, reopening in {} ms: {}", collection, backoffMillis,
+                        e.getMessage());
+                scanBillMetrics.changeStreamRestart(collection, "error");
+                if (!sleep(backoffMillis)) {
+                    return;
+                }
+                backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF.toMillis());
+            } catch (RuntimeException e) {
+                log.error("Change stream on {} hit an unexpected error: {}", collection, e.getMessage(), e);
+                if (!sleep(backoffMillis)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void stream(String collection) {
+        ChangeStreamIterable<Document> watch = mongoTemplate.getCollection(collection)
+                .watch(List.of(Aggregates.match(Filters.in("operationType",
+                        "insert", "update", "replace", "delete", "invalidate"))))
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        BsonDocument token = loadCheckpoint(collection);
+        if (token != null) {
+            watch = watch.resumeAfter(token);
+        }
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = watch.cursor()) {
+            BsonDocument saved = token;
+            long lastCheckpoint = System.nanoTime();
+            while (running) {
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change != null) {
+                    if ("invalidate".equals(change.getOperationTypeString())) {
+                        // The collection was dropped or renamed; this stream is finished
+                        reset(collection);
+                        return;
+                    }
+                    Object event = toEvent(collection, change.getOperationTypeString(), change.getDocumentKey(),
+                            change.getFullDocument(), mongoTemplate.getConverter());
+                    if (event != null) {
+                        scanBillMetrics.changeEvent(collection, change.getOperationTypeString());
+                        publish(collection, event);
+                    }
+                }
+                // The cursor's token advances on idle polls too, so a quiet
+                // collection does not fall behind the oplog
+                BsonDocument current = cursor.getResumeToken();
+                if (current != null && !current.equals(saved)
+                        && System.nanoTime() - lastCheckpoint > checkpointIntervalNanos) {
+                    saveCheckpoint(collection, current);
+                    saved = current;
+                    lastCheckpoint = System.nanoTime();
+                }
+            }
+            BsonDocument last = cursor.getResumeToken();
+            if (last != null && !last.equals(saved)) {
+                saveCheckpoint(collection, last);
+            }
+        }
+    }
+
+    /**
+     * A failing listener must not stall the stream for every other listener, so
+     * its error is logged and the event skipped.
+     */
+    private void publish(String collection, Object event) {
+        try {
+            events.publishEvent(event);
+        } catch (RuntimeException e) {
+            log.error("Listener failed on {} change {}: {}", collection, event, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Maps one change to its typed event, or null for an operation nobody
+     * listens for.
+     */
+    static Object toEvent(String collection, String operation, BsonDocument documentKey, Document fullDocument,
+            MongoConverter converter) {
+        String id = documentKey == null ? null : idOf(documentKey.get("_id"));
+        return switch (collection) {
+            case "products" -> new ProductChangeEvent(operation, id, read(converter, Product.class, fullDocument));
+            case "inventory_items" -> new InventoryChangeEvent(operation, id,
+                    read(converter, InventoryItem.class, fullDocument));
+            case "orders" -> new OrderChangeEvent(operation, id, read(converter, Order.class, fullDocument));
+            default -> null;
+        };
+    }
+
+    private static <T> T read(MongoConverter converter, Class<T> type, Document document) {
+        return document == null ? null : converter.read(type, document);
+    }
+
+    private static String idOf(BsonValue id) {
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private void reset(String collection) {
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(checkpointId(collection))),
+                ChangeStreamCheckpoint.class);
+        scanBillMetrics.changeStreamRestart(collection, "reset");
+        publish(collection, new ChangeStreamResetEvent(collection));
+    }
+
+    private BsonDocument loadCheckpoint(String collection) {
+        ChangeStreamCheckpoint checkpoint = mongoTemplate.findById(checkpointId(collection),
+                ChangeStreamCheckpoint.class);
+        return checkpoint == null || checkpoint.getResumeToken() == null ? null
+                : BsonDocument.parse(checkpoint.getResumeToken());
+    }
+
+    private void saveCheckpoint(String collection, BsonDocument token) {
+        try {
+            mongoTemplate.upsert(new Query(Criteria.where("_id").is(checkpointId(collection))), new Update()
+                    .set("resumeToken", token.toJson())
+                    .set("updatedAt", LocalDateTime.now()), ChangeStreamCheckpoint.class);
+        } catch (RuntimeException e) {
+            // Only costs replaying a few events after a restart
+            log.warn("Failed to checkpoint change stream on {}: {}", collection, e.getMessage());
+        }
+    }
+
+    private String checkpointId(String collection) {
+        return nodeId + ":" + collection;
+    }
+
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return running;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
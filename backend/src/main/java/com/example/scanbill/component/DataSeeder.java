@@ -1,90 +1,222 @@
 package com.example.scanbill.component;
 
 import com.example.scanbill.model.*;
-import com.example.scanbill.repository.*;
-import lombok.RequiredArgsConstructor;
-import org.springframework.boot.CommandLineRunner;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Provisions {@code scanbill.seed.stores} stores, each with an admin,
+ * {@code skus-per-store} products and {@code units-per-sku} units, once the
+ * application is up: stores are seeded in parallel on a pool of
+ * {@code scanbill.seed.threads}, products and units written in unordered bulk
+ * inserts, and startup never waits for it. The first three stores are the demo
+ * stores (Alpha Digital, Beta Boutique, Gamma Grocery).
+ * <p>
+ * Every id, barcode and serial is derived from the store's number, and each
+ * store records its progress in {@link SeedProgress}, so a store cut off by a
+ * restart is finished at the next start and a completed one is left alone.
+ * A database that already had stores before seeding kept progress is not touched.
+ * Once the stores are written a {@link SeedCompletedEvent} lists them, so caches
+ * and counters filled while seeding ran can be rebuilt.
+ */
+@Slf4j
 @Component
-@RequiredArgsConstructor
-public class DataSeeder implements CommandLineRunner {
-        private final ProductRepository productRepository;
-        private final InventoryItemRepository inventoryItemRepository;
-        private final StoreRepository storeRepository;
-        private final UserRepository userRepository;
-        private final CartRepository cartRepository;
-        private final OrderRepository orderRepository;
+public class DataSeeder {
+        private static final int DUPLICATE_KEY = 11000;
+        private static final String[][] DEMO_STORES = {
+                        { "Alpha Digital", "Metropolis Hub", "A" },
+                        { "Beta Boutique", "Neo Tokyo", "B" },
+                        { "Gamma Grocery", "Cyber City", "G" }
+        };
+        private static final String[] CATEGORIES = { "Electronics", "Apparel", "Home", "Stationery",
+                        "Accessories" };
 
-        @Override
-        public void run(String... args) throws Exception {
-                // Only seed if no stores exist (first run)
-                if (storeRepository.count() > 0) {
-                        System.out.println("Data already exists. Skipping seeding.");
+        private final MongoTemplate mongoTemplate;
+        private final PasswordEncoder passwordEncoder;
+        private final SeedProperties properties;
+        private final ApplicationEventPublisher eventPublisher;
+
+        public DataSeeder(MongoTemplate mongoTemplate, PasswordEncoder passwordEncoder, SeedProperties properties,
+                        ApplicationEventPublisher eventPublisher) {
+                this.mongoTemplate = mongoTemplate;
+                this.passwordEncoder = passwordEncoder;
+                this.properties = properties;
+                this.eventPublisher = eventPublisher;
+        }
+
+        @EventListener(ApplicationReadyEvent.class)
+        public void start() {
+                if (!properties.isEnabled()) {
                         return;
                 }
+                Thread seeder = new Thread(() -> {
+                        try {
+                                seed();
+                        } catch (RuntimeException e) {
+                                log.error("Seeding stopped: {}", e.getMessage(), e);
+                        }
+                }, "data-seeder");
+                seeder.setDaemon(true);
+                seeder.start();
+        }
 
-                System.out.println("Provisioning Multi-Store Ecosystem...");
-
-                // 1. Super Admin
-                userRepository.save(new User(null, "super", "super123", Role.SUPER_ADMIN, null, null));
+        /**
+         * Seeds every store not yet complete and returns how many it seeded.
+         */
+        int seed() {
+                if (mongoTemplate.count(new Query(), SeedProgress.class) == 0
+                                && mongoTemplate.count(new Query(), Store.class) > 0) {
+                        log.info("Data already exists. Skipping seeding.");
+                        return 0;
+                }
+                long started = System.nanoTime();
+                insertIgnoringDuplicate(new User(null, "super", passwordEncoder.encode(
+                                properties.getSuperAdminPassword()), Role.SUPER_ADMIN, null, null));
+                // Every admin shares a password, so it is hashed once rather than per store
+                String adminHash = passwordEncoder.encode(properties.getAdminPassword());
 
-                // 2. Stores & Admins
-                String[][] storeConfigs = {
-                                { "Alpha Digital", "Metropolis Hub", "admin1", "pass123" },
-                                { "Beta Boutique", "Neo Tokyo", "admin2", "pass123" },
-                                { "Gamma Grocery", "Cyber City", "admin3", "pass123" }
-                };
+                Queue<String> seeded = new ConcurrentLinkedQueue<>();
+                AtomicLong documents = new AtomicLong();
+                ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, properties.getThreads()));
+                try {
+                        List<Future<?>> stores = new ArrayList<>(properties.getStores());
+                        for (int n = 1; n <= properties.getStores(); n++) {
+                                int number = n;
+                                stores.add(pool.submit(() -> {
+                                        long written = seedStore(number, adminHash);
+                                        if (written >= 0) {
+                                                seeded.add(storeId(number));
+                                                documents.addAndGet(written);
+                                        }
+                                }));
+                        }
+                        for (Future<?> store : stores) {
+                                store.get();
+                        }
+                } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException("Seeding interrupted", e);
+                } catch (ExecutionException e) {
+                        throw new RuntimeException("Seeding failed: " + e.getCause().getMessage(), e.getCause());
+                } finally {
+                        pool.shutdownNow();
+                }
+                if (!seeded.isEmpty()) {
+                        log.info("Seeded {} stores ({} documents) in {} ms; super admin: super, store admins: "
+                                        + "admin1..admin{}", seeded.size(), documents.get(),
+                                        (System.nanoTime() - started) / 1_000_000, properties.getStores());
+                        eventPublisher.publishEvent(new SeedCompletedEvent(new ArrayList<>(seeded)));
+                }
+                return seeded.size();
+        }
 
-                for (int s = 0; s < storeConfigs.length; s++) {
-                        String[] config = storeConfigs[s];
-                        Store store = storeRepository.save(new Store(null, config[0], config[1], null));
-                        userRepository.save(new User(null, config[2], config[3], Role.ADMIN, store.getId(), null));
+        /**
+         * Seeds store {@code number} and returns the documents it wrote, or -1 if
+         * the store was already complete.
+         */
+        long seedStore(int number, String adminHash) {
+                String storeId = storeId(number);
+                SeedProgress progress = mongoTemplate.findById(storeId, SeedProgress.class);
+                if (progress != null && progress.getCompletedAt() != null) {
+                        return -1;
+                }
+                String[] demo = number <= DEMO_STORES.length ? DEMO_STORES[number - 1] : null;
+                String name = demo != null ? demo[0] : "Store " + number;
+                String prefix = demo != null ? demo[2] : "S" + number + "-";
+                if (progress == null) {
+                        progress = new SeedProgress(storeId, 0, 0, LocalDateTime.now(), null);
+                        insertIgnoringDuplicate(new Store(storeId, name, demo != null ? demo[1] : "Location " + number,
+                                        null));
+                        insertIgnoringDuplicate(new User(null, "admin" + number, adminHash, Role.ADMIN, storeId, null));
+                        mongoTemplate.save(progress);
+                }
 
-                        // 3. 25 Products per store
-                        String prefix = (s == 0 ? "A" : (s == 1 ? "B" : "G"));
-                        List<Product> products = new ArrayList<>();
-                        for (int i = 1; i <= 25; i++) {
-                                String category = getCategory(i);
-                                String barcode = prefix + String.format("%03d", i);
-                                products.add(new Product(null, barcode, config[0] + " Premium Item " + i,
-                                                20.0 + (i * 10), category, getImageUrl(category), 10.0 + (i * 5),
-                                                store.getId(), 18.0, 10.0 + (i * 5), null));
+                List<Product> products = new ArrayList<>(Math.min(properties.getSkusPerStore(),
+                                properties.getBatchSize()));
+                List<InventoryItem> items = new ArrayList<>(properties.getBatchSize());
+                long written = 0;
+                // Bulk inserts do not initialise @Version, hence the explicit 0L versions
+                for (int i = 1; i <= properties.getSkusPerStore(); i++) {
+                        String category = CATEGORIES[((i - 1) / 5) % CATEGORIES.length];
+                        String barcode = prefix + String.format("%03d", i);
+                        products.add(new Product(null, barcode, name + " Premium Item " + i,
+                                        20.0 + (i * 10), category, getImageUrl(category), 10.0 + (i * 5),
+                                        storeId, 18.0, 10.0 + (i * 5), 0L));
+                        if (products.size() == properties.getBatchSize()) {
+                                written += insertUnordered(Product.class, products);
+                                products = new ArrayList<>(properties.getBatchSize());
                         }
-                        productRepository.saveAll(products);
-
-                        // 4. 15 Units (Stock) per product
-                        List<InventoryItem> items = new ArrayList<>();
-                        for (Product p : products) {
-                                for (int u = 1; u <= 15; u++) {
-                                        String serial = p.getBarcode() + "-" + String.format("%03d", u);
-                                        items.add(new InventoryItem(null, p.getBarcode(), serial, "AVAILABLE",
-                                                        store.getId(), null));
+                        for (int u = 1; u <= properties.getUnitsPerSku(); u++) {
+                                items.add(new InventoryItem(null, barcode, barcode + "-" + String.format("%03d", u),
+                                                "AVAILABLE", storeId, null, null, null, 0L));
+                                if (items.size() == properties.getBatchSize()) {
+                                        written += insertUnordered(InventoryItem.class, items);
+                                        items = new ArrayList<>(properties.getBatchSize());
                                 }
                         }
-                        inventoryItemRepository.saveAll(items);
                 }
+                written += insertUnordered(Product.class, products);
+                written += insertUnordered(InventoryItem.class, items);
+
+                progress.setProducts(properties.getSkusPerStore());
+                progress.setUnits((long) properties.getSkusPerStore() * properties.getUnitsPerSku());
+                progress.setCompletedAt(LocalDateTime.now());
+                mongoTemplate.save(progress);
+                return written;
+        }
+
+        private static String storeId(int number) {
+                return String.format("store-%04d", number);
+        }
 
-                System.out.println("Ecosystem Provisioning Complete!");
-                System.out.println("Super Admin: super / super123");
-                System.out.println("Store 1: Alpha Digital (admin1 / pass123)");
-                System.out.println("Store 2: Beta Boutique (admin2 / pass123)");
-                System.out.println("Store 3: Gamma Grocery (admin3 / pass123)");
+        /**
+         * Inserts {@code documents} and returns how many were new; ones a previous,
+         * interrupted run already wrote are duplicates and skipped.
+         */
+        private int insertUnordered(Class<?> type, List<?> documents) {
+                if (documents.isEmpty()) {
+                        return 0;
+                }
+                try {
+                        return mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type).insert(documents)
+                                        .execute().getInsertedCount();
+                } catch (BulkOperationException e) {
+                        for (BulkWriteError error : e.getErrors()) {
+                                if (error.getCode() != DUPLICATE_KEY) {
+                                        throw e;
+                                }
+                        }
+                        return e.getResult().getInsertedCount();
+                }
         }
 
-        private String getCategory(int i) {
-                if (i <= 5)
-                        return "Electronics";
-                if (i <= 10)
-                        return "Apparel";
-                if (i <= 15)
-                        return "Home";
-                if (i <= 20)
-                        return "Stationery";
-                return "Accessories";
+        private void insertIgnoringDuplicate(Object document) {
+                try {
+                        mongoTemplate.insert(document);
+                } catch (DuplicateKeyException e) {
+                        // Written by an earlier run
+                }
         }
 
         private String getImageUrl(String cat) {
@@ -0,0 +1,45 @@
+package com.example.scanbill.component;
+
+import com.example.scanbill.model.SeedCompletedEvent;
+import com.example.scanbill.model.Store;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps {@link ScanBillMetrics}' set of known stores in step with the
+ * {@code stores} collection. A store created since the last refresh is tagged
+ * {@code other} until the next one; stores the seeder writes are picked up
+ * as soon as it finishes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KnownStoreRefresher {
+    private final MongoTemplate mongoTemplate;
+    private final ScanBillMetrics scanBillMetrics;
+
+    @Scheduled(fixedDelayString = "${scanbill.metrics.known-stores-refresh:60000}")
+    @EventListener(SeedCompletedEvent.class)
+    public void refresh() {
+        try {
+            Query query = new Query();
+            query.fields().include("_id");
+            List<String> ids = new ArrayList<>();
+            for (Store store : mongoTemplate.find(query, Store.class)) {
+                ids.add(store.getId());
+            }
+            scanBillMetrics.setKnownStores(ids);
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh the known stores for metric tags, keeping the previous set: {}",
+                    e.getMessage());
+        }
+    }
+}
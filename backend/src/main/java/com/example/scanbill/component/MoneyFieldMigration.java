@@ -0,0 +1,69 @@
+package com.example.scanbill.component;
+
+import com.example.scanbill.model.Cart;
+import com.example.scanbill.model.Order;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * One-way, idempotent upgrade of carts and orders written before amounts were
+ * kept in paise. Documents that already carry {@code totalPaise} are left alone.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MoneyFieldMigration {
+    private final MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        try {
+            migrate(Cart.class);
+            migrate(Order.class);
+        } catch (RuntimeException e) {
+            log.warn("Money field migration skipped: {}", e.getMessage());
+        }
+    }
+
+    private void migrate(Class<?> type) {
+        // Legacy documents only ever filled totalAmount (tax and discount were never
+        // computed), so the whole amount becomes the tax-free subtotal.
+        Document set = new Document()
+                .append("totalPaise", paise("$totalAmount"))
+                .append("subtotalPaise", paise("$totalAmount"))
+                .append("taxPaise", 0L)
+                .append("discountPaise", 0L)
+                .append("items", new Document("$map", new Document()
+                        .append("input", new Document("$ifNull", List.of("$items", List.of())))
+                        .append("as", "i")
+                        .append("in", new Document("$mergeObjects", List.of("$$i", new Document()
+                                .append("pricePaise", paise("$$i.price"))
+                                .append("taxPaise", 0L)
+                                .append("discountPaise", 0L))))));
+        List<Bson> pipeline = List.of(
+                new Document("$set", set),
+                new Document("$unset", List.of("totalAmount", "subtotal", "taxAmount", "discountAmount",
+                        "items.price")));
+
+        UpdateResult result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(type))
+                .updateMany(new Document("totalPaise", new Document("$exists", false)), pipeline);
+        if (result.getModifiedCount() > 0) {
+            log.info("Converted {} {} documents to paise amounts", result.getModifiedCount(),
+                    mongoTemplate.getCollectionName(type));
+        }
+    }
+
+    private static Document paise(String rupeeField) {
+        Document rupees = new Document("$ifNull", List.of(rupeeField, 0));
+        Document scaled = new Document("$multiply", List.of(rupees, 100));
+        return new Document("$toLong", new Document("$round", List.of(scaled, 0)));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.scanbill.component;
+
+import com.example.scanbill.model.Cart;
+import com.example.scanbill.model.CartItem;
+import com.example.scanbill.repository.CartRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Every cart change is one targeted update on the {@code carts} collection, so
+ * any node can serve any till.
+ */
+@Component
+@ConditionalOnProperty(name = "scanbill.cart.store", havingValue = "mongo", matchIfMissing = true)
+@RequiredArgsConstructor
+public class MongoCartStore implements CartStore {
+    private final CartRepository cartRepository;
+
+    @Override
+    public Optional<Cart> find(String userId) {
+        return cartRepository.findByUserId(userId);
+    }
+
+    @Override
+    public Cart getOrCreate(String userId, String storeId) {
+        return cartRepository.findByUserId(userId).orElseGet(() -> {
+            Cart newCart = new Cart();
+            newCart.setUserId(userId);
+            newCart.setStoreId(storeId);
+            newCart.setItems(new ArrayList<>());
+            try {
+                return cartRepository.save(newCart);
+            } catch (DuplicateKeyException e) {
+                // A concurrent scan created the cart first
+                return cartRepository.findByUserId(userId).orElseThrow(() -> e);
+            }
+        });
+    }
+
+    @Override
+    public Optional<Cart> pushItem(String userId, String storeId, CartItem item) {
+        return cartRepository.pushItem(userId, storeId, item);
+    }
+
+    @Override
+    public Optional<Cart> pullItem(String userId, CartItem item) {
+        return cartRepository.pullItem(userId, item);
+    }
+
+    @Override
+    public void removeItems(String userId, Collection<String> serialNumbers) {
+        cartRepository.removeItems(userId, serialNumbers);
+    }
+
+    @Override
+    public Optional<Cart> applyBatch(String userId, String storeId, List<CartItem> add,
+            Collection<String> remove) {
+        return cartRepository.applyBatch(userId, storeId, add, remove);
+    }
+
+    @Override
+    public boolean joinsTransactions() {
+        return true;
+    }
+}
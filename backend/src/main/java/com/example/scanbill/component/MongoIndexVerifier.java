@@ -0,0 +1,97 @@
+package com.example.scanbill.component;
+
+import com.example.scanbill.model.Cart;
+import com.example.scanbill.model.ChangeStreamCheckpoint;
+import com.example.scanbill.model.IdempotencyRecord;
+import com.example.scanbill.model.IngestionJob;
+import com.example.scanbill.model.InventoryItem;
+import com.example.scanbill.model.Order;
+import com.example.scanbill.model.Product;
+import com.example.scanbill.model.StoreDailyStats;
+import com.example.scanbill.model.User;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the indexes declared on the document classes and refuses to start the
+ * application if any of them is missing afterwards. Every finder in the
+ * repository package relies on one of these, so running without them means
+ * collection scans on every scan and checkout.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MongoIndexVerifier {
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(
+            InventoryItem.class, Product.class, Order.class, Cart.class, User.class, StoreDailyStats.class,
+            IngestionJob.class, IdempotencyRecord.class, ChangeStreamCheckpoint.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    @Value("${scanbill.mongo.verify-indexes:true}")
+    private boolean verifyIndexes;
+
+    @PostConstruct
+    public void ensureIndexes() {
+        if (!verifyIndexes) {
+            log.warn("Index verification disabled; required Mongo indexes are not checked");
+            return;
+        }
+
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        List<String> missing = new ArrayList<>();
+
+        for (Class<?> type : INDEXED_DOCUMENTS) {
+            IndexOperations indexOps = mongoTemplate.indexOps(type);
+            List<IndexDefinition> required = new ArrayList<>();
+            resolver.resolveIndexFor(type).forEach(required::add);
+
+            for (IndexDefinition definition : required) {
+                try {
+                    indexOps.ensureIndex(definition);
+                } catch (RuntimeException e) {
+                    throw new IllegalStateException("Could not create index " + describe(definition) + " on "
+                            + mongoTemplate.getCollectionName(type) + ": " + e.getMessage(), e);
+                }
+            }
+
+            Set<String> present = indexOps.getIndexInfo().stream()
+                    .map(IndexInfo::getName)
+                    .collect(Collectors.toSet());
+            for (IndexDefinition definition : required) {
+                String name = definition.getIndexOptions().getString("name");
+                boolean ok = present.contains(name);
+                log.info("Index {}.{} {} {}", mongoTemplate.getCollectionName(type), name,
+                        definition.getIndexKeys().toJson(), ok ? "OK" : "MISSING");
+                if (!ok) {
+                    missing.add(mongoTemplate.getCollectionName(type) + "." + name);
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Required Mongo indexes are missing: " + missing);
+        }
+    }
+
+    private String describe(IndexDefinition definition) {
+        Document options = definition.getIndexOptions();
+        return options.getString("name") + " " + definition.getIndexKeys().toJson();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.scanbill.component;
+
+import com.example.scanbill.model.User;
+import com.example.scanbill.service.AuthService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-way, idempotent upgrade of users stored before passwords were hashed.
+ * Each plaintext password is replaced by its BCrypt hash, only if it is still
+ * the value that was read, so a login upgrading the same user wins cleanly.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PasswordHashMigration {
+    private final MongoTemplate mongoTemplate;
+    private final PasswordEncoder passwordEncoder;
+
+    @PostConstruct
+    public void migrate() {
+        try {
+            Query legacy = new Query(Criteria.where("password").not().regex("^\\$2[aby]?\\$"));
+            legacy.fields().include("password");
+            int migrated = 0;
+            for (User user : mongoTemplate.find(legacy, User.class)) {
+                if (user.getPassword() == null || AuthService.isHashed(user.getPassword())) {
+                    continue;
+                }
+                Query unchanged = new Query(Criteria.where("_id").is(user.getId())
+                        .and("password").is(user.getPassword()));
+                Update hashed = new Update()
+                        .set("password", passwordEncoder.encode(user.getPassword()))
+                        .inc("version", 1);
+                migrated += (int) mongoTemplate.updateFirst(unchanged, hashed, User.class).getModifiedCount();
+            }
+            if (migrated > 0) {
+                log.info("Hashed {} plaintext user passwords", migrated);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Password hash migration skipped: {}", e.getMessage());
+        }
+    }
+}
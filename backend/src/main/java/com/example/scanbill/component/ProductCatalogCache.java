@@ -0,0 +1,163 @@
+package com.example.scanbill.component;
+
+import com.example.scanbill.model.ChangeStreamResetEvent;
+import com.example.scanbill.model.Product;
+import com.example.scanbill.model.ProductChangeEvent;
+import com.example.scanbill.model.SeedCompletedEvent;
+import com.example.scanbill.repository.ProductRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Barcode-keyed, size-bounded view of the product catalog that sits in front of
+ * {@link ProductRepository}. Scans read from here; product writes go through
+ * {@code ProductService}, which keeps the cache in step. Writes made on other
+ * nodes arrive as change stream events when those are enabled.
+ * <p>
+ * A put never replaces a newer version of the product, so a copy loaded just
+ * before a concurrent update cannot overwrite it. Entries also expire after
+ * {@code scanbill.catalog.ttl}, which bounds how long a copy loaded just before
+ * a delete can linger.
+ */
+@Slf4j
+@Component
+public class ProductCatalogCache implements MeterBinder {
+    private final ProductRepository productRepository;
+    private final Cache<String, Product> byBarcode;
+
+    public ProductCatalogCache(ProductRepository productRepository,
+            @Value("${scanbill.catalog.max-size:100000}") long maxSize,
+            @Value("${scanbill.catalog.ttl:10m}") Duration ttl) {
+        this.productRepository = productRepository;
+        this.byBarcode = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Warms at startup with whatever is stored, and again once the seeder, which
+     * starts on the same ready event and runs in the background, has finished.
+     */
+    @EventListener({ ApplicationReadyEvent.class, SeedCompletedEvent.class })
+    public void warmUp() {
+        try {
+            List<Product> products = productRepository.findAll();
+            products.forEach(this::put);
+            log.info("Product catalog cache warmed with {} products", products.size());
+        } catch (RuntimeException e) {
+            log.warn("Product catalog warm-up skipped: {}", e.getMessage());
+        }
+    }
+
+    public Optional<Product> findByBarcode(String barcode) {
+        Product cached = byBarcode.getIfPresent(barcode);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        // Load outside the cache's own compute so the Mongo round trip never runs
+        // while holding a map bin lock.
+        Optional<Product> loaded = productRepository.findByBarcode(barcode);
+        loaded.ifPresent(this::put);
+        return loaded;
+    }
+
+    /**
+     * Resolves many barcodes at once: cache hits first, then a single $in query
+     * for the rest. Unknown barcodes are absent from the result.
+     */
+    public Map<String, Product> findAllByBarcodes(Collection<String> barcodes) {
+        Map<String, Product> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String barcode : barcodes) {
+            Product cached = byBarcode.getIfPresent(barcode);
+            if (cached != null) {
+                found.put(barcode, cached);
+            } else if (!found.containsKey(barcode)) {
+                missing.add(barcode);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Product product : productRepository.findByBarcodeIn(missing)) {
+                put(product);
+                found.put(product.getBarcode(), product);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Cache lookup only; never touches Mongo.
+     */
+    public Optional<Product> findCached(String barcode) {
+        return Optional.ofNullable(byBarcode.getIfPresent(barcode));
+    }
+
+    public void put(Product product) {
+        if (product.getBarcode() != null) {
+            byBarcode.asMap().merge(product.getBarcode(), product,
+                    (cached, candidate) -> version(candidate) >= version(cached) ? candidate : cached);
+        }
+    }
+
+    private static long version(Product product) {
+        return product.getVersion() != null ? product.getVersion() : -1;
+    }
+
+    public void evict(String barcode) {
+        if (barcode != null) {
+            byBarcode.invalidate(barcode);
+        }
+    }
+
+    /**
+     * Keeps this node's cache in step with product writes made on any node.
+     */
+    @EventListener
+    public void onProductChange(ProductChangeEvent event) {
+        if (event.getProduct() != null) {
+            put(event.getProduct());
+        } else if (event.getId() != null) {
+            // Deletes only carry the id, and the cache is keyed by barcode
+            byBarcode.asMap().values().removeIf(product -> event.getId().equals(product.getId()));
+        }
+    }
+
+    @EventListener
+    public void onChangeStreamReset(ChangeStreamResetEvent event) {
+        if ("products".equals(event.getCollection())) {
+            byBarcode.invalidateAll();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, byBarcode, "productCatalog");
+    }
+
+    public long size() {
+        return byBarcode.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return byBarcode.stats();
+    }
+}
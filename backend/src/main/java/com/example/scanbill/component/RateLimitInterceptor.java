@@ -0,0 +1,93 @@
+package com.example.scanbill.component;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Applies {@link RateLimiter} to scans and checkouts. Every scan or checkout
+ * spends a token from its till's and its store's bucket; a checkout must also be
+ * admitted under the concurrency limit, and holds that permit until it returns.
+ * Either refusal is a 429 with a {@code Retry-After} in seconds. Runs after
+ * {@link SessionInterceptor}, so the till it charges has been authenticated.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor, WebMvcConfigurer {
+    private static final String PERMIT_ATTRIBUTE = RateLimitInterceptor.class.getName() + ".permit";
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (properties.isEnabled()) {
+            registry.addInterceptor(this)
+                    .addPathPatterns("/api/cart/*/add", "/api/cart/*/batch", "/api/orders/checkout/*")
+                    .order(1);
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        // A reactive checkout comes back through here once its result is ready;
+        // it was charged on the way in, and its permit is released after this dispatch
+        if (HttpMethod.OPTIONS.matches(request.getMethod()) || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, String> path = (Map<String, String>) request
+                .getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String userId = path != null ? path.get("userId") : null;
+        String storeId = request.getParameter("storeId");
+
+        Duration wait = rateLimiter.tryAcquire(storeId, userId);
+        if (!wait.isZero()) {
+            return tooManyRequests(response, wait, "Too many scans, slow down");
+        }
+        if (request.getRequestURI().contains("/checkout/")) {
+            Semaphore permit = rateLimiter.tryAdmitCheckout(storeId);
+            if (permit == null) {
+                return tooManyRequests(response, rateLimiter.checkoutRetryAfter(), "Checkout is busy, please retry");
+            }
+            request.setAttribute(PERMIT_ATTRIBUTE, permit);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        Object permit = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            rateLimiter.releaseCheckout((Semaphore) permit);
+        }
+    }
+
+    private static boolean tooManyRequests(HttpServletResponse response, Duration wait, String message)
+            throws IOException {
+        long seconds = Math.max(1, (wait.toMillis() + 999) / 1000);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write(message);
+        return false;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.scanbill.component;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code scanbill.rate-limit.*}: request budgets for scans and checkouts, and
+ * per-store overrides under {@code scanbill.rate-limit.stores.<storeId>.*} for
+ * stores with more tills (or a scanner known to misbehave).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "scanbill.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    /** Shared by every till in a store. */
+    private Bucket store = new Bucket(200, 400);
+    /** One till (user) within its store. */
+    private Bucket user = new Bucket(10, 20);
+    /** Checkouts running at once on this node, across all stores; keep it below the Mongo pool size. */
+    private int maxConcurrentCheckouts = 64;
+    /** Checkouts running at once on this node for one store. */
+    private int maxConcurrentCheckoutsPerStore = 16;
+    /** Retry-After sent when a checkout is shed for concurrency. */
+    private Duration checkoutRetryAfter = Duration.ofSeconds(1);
+    /** Idle buckets are dropped after this long (they would be full again anyway). */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private Map<String, StoreOverride> stores = new HashMap<>();
+
+    /**
+     * Sustained {@code rate} requests per second, up to {@code burst} at once.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bucket {
+        private double rate;
+        private int burst;
+    }
+
+    /**
+     * Any field left unset falls back to the default above.
+     */
+    @Data
+    public static class StoreOverride {
+        private Bucket store;
+        private Bucket user;
+        private Integer maxConcurrentCheckouts;
+    }
+
+    public Bucket storeBucket(String storeId) {
+        StoreOverride override = stores.get(storeId);
+        return override != null && override.getStore() != null ? override.getStore() : store;
+    }
+
+    public Bucket userBucket(String storeId) {
+        StoreOverride override = stores.get(storeId);
+        return override != null && override.getUser() != null ? override.getUser() : user;
+    }
+
+    public int maxConcurrentCheckouts(String storeId) {
+        StoreOverride override = stores.get(storeId);
+        return override != null && override.getMaxConcurrentCheckouts() != null
+                ? override.getMaxConcurrentCheckouts() : maxConcurrentCheckoutsPerStore;
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.scanbill.component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per store and per till, and the checkout admission gate. Both
+ * are non-blocking: a request either gets its token or permit now, or is told
+ * how long to wait. Buckets are a single {@link AtomicLong} each, so a flood on
+ * one till costs a CAS, never a lock another store could queue behind.
+ * <p>
+ * Store buckets and checkout gates exist only for the stores
+ * {@link ScanBillMetrics#storeTag} knows; requests naming any other store id
+ * share one {@code other} bucket and gate on the default limits, so made-up ids
+ * cannot grow them.
+ */
+@Component
+public class RateLimiter implements MeterBinder {
+    private final RateLimitProperties properties;
+    private final ScanBillMetrics scanBillMetrics;
+    private final LongSupplier nanoTime;
+    private final Cache<String, TokenBucket> buckets;
+    private final Semaphore checkouts;
+    private final Map<String, Semaphore> storeCheckouts = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RateLimiter(RateLimitProperties properties, ScanBillMetrics scanBillMetrics) {
+        this(properties, scanBillMetrics, System::nanoTime);
+    }
+
+    RateLimiter(RateLimitProperties properties, ScanBillMetrics scanBillMetrics, LongSupplier nanoTime) {
+        this.properties = properties;
+        this.scanBillMetrics = scanBillMetrics;
+        this.nanoTime = nanoTime;
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(properties.getIdleTimeout())
+                .maximumSize(1_000_000)
+                .build();
+        this.checkouts = new Semaphore(properties.getMaxConcurrentCheckouts());
+    }
+
+    /**
+     * Takes a token from the store's bucket and the till's. Returns
+     * {@link Duration#ZERO} when the request may go ahead, otherwise how long
+     * until it could; a refused request costs neither bucket a token.
+     */
+    public Duration tryAcquire(String storeId, String userId) {
+        String store = scanBillMetrics.storeTag(storeId);
+        String limits = store.equals(storeId) ? storeId : null;
+        long now = nanoTime.getAsLong();
+        TokenBucket user = userId == null ? null : bucket("u:" + store + ":" + userId, properties.userBucket(limits));
+        long userWait = user == null ? 0 : user.tryTake(now);
+        if (userWait > 0) {
+            scanBillMetrics.rateLimited(storeId, "user");
+            return Duration.ofNanos(userWait);
+        }
+        // Checked second, so one till hammering away does not drain its store's budget
+        long storeWait = bucket("s:" + store, properties.storeBucket(limits)).tryTake(now);
+        if (storeWait > 0) {
+            // The request does not run, so the till gets back the token it took
+            if (user != null) {
+                user.refund();
+            }
+            scanBillMetrics.rateLimited(storeId, "store");
+            return Duration.ofNanos(storeWait);
+        }
+        return Duration.ZERO;
+    }
+
+    /**
+     * A permit to run one checkout, or null when this node already runs as many
+     * as it (or the store) is allowed. A permit must be given back with
+     * {@link #releaseCheckout}.
+     */
+    public Semaphore tryAdmitCheckout(String storeId) {
+        String key = scanBillMetrics.storeTag(storeId);
+        Semaphore store = storeCheckouts.computeIfAbsent(key,
+                k -> new Semaphore(properties.maxConcurrentCheckouts(k.equals(storeId) ? storeId : null)));
+        if (!store.tryAcquire()) {
+            scanBillMetrics.rateLimited(storeId, "checkout-store");
+            return null;
+        }
+        if (!checkouts.tryAcquire()) {
+            store.release();
+            scanBillMetrics.rateLimited(storeId, "checkout");
+            return null;
+        }
+        return store;
+    }
+
+    public void releaseCheckout(Semaphore permit) {
+        checkouts.release();
+        permit.release();
+    }
+
+    public Duration checkoutRetryAfter() {
+        return properties.getCheckoutRetryAfter();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("scanbill.checkout.in.flight", checkouts,
+                        s -> properties.getMaxConcurrentCheckouts() - s.availablePermits())
+                .description("Checkouts running on this node")
+                .register(registry);
+    }
+
+    private TokenBucket bucket(String key, RateLimitProperties.Bucket limits) {
+        return buckets.get(key, k -> new TokenBucket(limits.getRate(), limits.getBurst()));
+    }
+
+    /**
+     * A token bucket kept as the time it will next be full (the generic cell
+     * rate algorithm): taking a token pushes that time one interval further, and
+     * a take that would push it more than a burst ahead of now is refused.
+     */
+    static final class TokenBucket {
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+        TokenBucket(double ratePerSecond, int burst) {
+            this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+            this.burstNanos = intervalNanos * Math.max(1, burst);
+        }
+
+        /**
+         * Zero if a token was taken, else nanoseconds until one is free.
+         */
+        long tryTake(long now) {
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + intervalNanos;
+                long ahead = next - now;
+                if (ahead > burstNanos) {
+                    return ahead - burstNanos;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        /**
+         * Gives back a token taken by {@link #tryTake}.
+         */
+        void refund() {
+            fullAt.addAndGet(-intervalNanos);
+        }
+    }
+}
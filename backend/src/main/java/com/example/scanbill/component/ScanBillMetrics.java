@@ -0,0 +1,174 @@
+package com.example.scanbill.component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Business metrics for the scan and checkout path, tagged by store so p99s can be
+ * compared store against store. Endpoint latency, repository invocations and the
+ * Mongo connection pool are covered by Spring Boot's own instrumentation.
+ * <p>
+ * Only stores in {@link #setKnownStores} get their own tag value; any other id
+ * is tagged {@code other}, so a made-up {@code storeId} cannot mint new series.
+ */
+@Component
+public class ScanBillMetrics {
+    private final MeterRegistry registry;
+    private volatile Set<String> knownStores = Set.of();
+
+    public ScanBillMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public Timer.Sample startTimer() {
+        return Timer.start(registry);
+    }
+
+    public void recordCheckout(Timer.Sample sample, String storeId, String outcome) {
+        sample.stop(Timer.builder("scanbill.checkout")
+                .description("Checkout latency from cart to saved order")
+                .tag("store", storeTag(storeId))
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    public void recordBasketSize(String storeId, int items) {
+        DistributionSummary.builder("scanbill.checkout.basket.size")
+                .description("Units per checked-out basket")
+                .baseUnit("items")
+                .tag("store", storeTag(storeId))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(items);
+    }
+
+    public void recordCheckoutAttempts(String storeId, int attempts) {
+        DistributionSummary.builder("scanbill.checkout.tx.attempts")
+                .description("Transaction attempts per transactional checkout")
+                .tag("store", storeTag(storeId))
+                .register(registry)
+                .record(attempts);
+    }
+
+    public void checkoutTransactionRetry(String storeId, String reason) {
+        Counter.builder("scanbill.checkout.tx.retries")
+                .description("Checkout transactions retried after a transient error")
+                .tag("store", storeTag(storeId))
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    public void checkoutTransactionAbandoned(String storeId, String reason) {
+        Counter.builder("scanbill.checkout.tx.abandoned")
+                .description("Checkout transactions that ran out of attempts or time")
+                .tag("store", storeTag(storeId))
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    public void itemAlreadySold(String storeId, String stage) {
+        Counter.builder("scanbill.inventory.already.sold")
+                .description("Scans or checkouts that found a unit no longer available")
+                .tag("store", storeTag(storeId))
+                .tag("stage", stage)
+                .register(registry)
+                .increment();
+    }
+
+    public void optimisticLockConflict(String operation) {
+        Counter.builder("scanbill.optimistic.lock.conflicts")
+                .description("Writes rejected by @Version optimistic locking")
+                .tag("operation", operation)
+                .register(registry)
+                .increment();
+    }
+
+    public void paymentRecorded(String storeId, String method, String status) {
+        Counter.builder("scanbill.payments")
+                .description("Payment state changes by method and resulting status")
+                .tag("store", storeTag(storeId))
+                .tag("method", method)
+                .tag("status", status)
+                .register(registry)
+                .increment();
+    }
+
+    public void idempotentReplay(String scope, String source) {
+        Counter.builder("scanbill.idempotency.replays")
+                .description("Requests answered from an earlier request with the same idempotency key")
+                .tag("scope", scope)
+                .tag("source", source)
+                .register(registry)
+                .increment();
+    }
+
+    public void holdsExpired(long count) {
+        Counter.builder("scanbill.inventory.holds.expired")
+                .description("Cart holds released by the sweeper after their expiry")
+                .register(registry)
+                .increment(count);
+    }
+
+    public void changeEvent(String collection, String operation) {
+        Counter.builder("scanbill.change.events")
+                .description("Writes received from the Mongo change streams, from any node")
+                .tag("collection", collection)
+                .tag("operation", operation)
+                .register(registry)
+                .increment();
+    }
+
+    public void changeStreamRestart(String collection, String reason) {
+        Counter.builder("scanbill.change.restarts")
+                .description("Change streams reopened after an error or restarted from now")
+                .tag("collection", collection)
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    public void liveEventsDropped(String storeId) {
+        Counter.builder("scanbill.live.resyncs")
+                .description("Dashboard feeds that fell a full queue behind and were told to reload")
+                .tag("store", storeTag(storeId))
+                .register(registry)
+                .increment();
+    }
+
+    public void sessionRejected(String reason) {
+        Counter.builder("scanbill.auth.rejected")
+                .description("Cart and order requests refused for a missing, invalid or mismatched session")
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    public void rateLimited(String storeId, String limit) {
+        Counter.builder("scanbill.ratelimit.rejected")
+                .description("Scans and checkouts refused with a 429, by the limit they hit")
+                .tag("store", storeTag(storeId))
+                .tag("limit", limit)
+                .register(registry)
+                .increment();
+    }
+
+    public void setKnownStores(Collection<String> storeIds) {
+        knownStores = Set.copyOf(storeIds);
+    }
+
+    public String storeTag(String storeId) {
+        if (storeId == null || storeId.isEmpty()) {
+            return "none";
+        }
+        return knownStores.contains(storeId) ? storeId : "other";
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.scanbill.component;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code scanbill.seed.*}: the size of the dataset {@link DataSeeder} provisions
+ * on an empty database. The defaults give the three demo stores.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "scanbill.seed")
+public class SeedProperties {
+    private boolean enabled = true;
+    private int stores = 3;
+    private int skusPerStore = 25;
+    private int unitsPerSku = 15;
+    /** Stores seeded in parallel. */
+    private int threads = 4;
+    /** Documents per unordered bulk insert. */
+    private int batchSize = 5000;
+    private String superAdminPassword = "super123";
+    /** Shared by every store's admin, {@code admin<n>}. */
+    private String adminPassword = "pass123";
+}
@@ -0,0 +1,87 @@
+package com.example.scanbill.component;
+
+import com.example.scanbill.model.Role;
+import com.example.scanbill.service.SessionTokenService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Requires a session token on cart and order calls. The token must be valid, a
+ * {@code {userId}} in the path must be its own user, and a {@code storeId}
+ * parameter its own store (a super admin may act for any store). Refusals are
+ * a 401 for a missing or stale token and a 403 for someone else's cart or store.
+ * Turned off with {@code scanbill.auth.enforce-tokens=false}, e.g. for load runs
+ * that make up their own user ids.
+ */
+@Component
+@RequiredArgsConstructor
+public class SessionInterceptor implements HandlerInterceptor, WebMvcConfigurer {
+    private static final String BEARER = "Bearer ";
+
+    private final SessionTokenService sessionTokenService;
+    private final ScanBillMetrics scanBillMetrics;
+
+    @Value("${scanbill.auth.enforce-tokens:true}")
+    private boolean enforceTokens;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (enforceTokens) {
+            registry.addInterceptor(this).addPathPatterns("/api/cart/**", "/api/orders/**").order(0);
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (HttpMethod.OPTIONS.matches(request.getMethod())) {
+            return true;
+        }
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER)) {
+            return refuse(response, HttpStatus.UNAUTHORIZED, "missing", "Login required");
+        }
+        Optional<SessionTokenService.Session> found = sessionTokenService.verify(header.substring(BEARER.length()));
+        if (found.isEmpty()) {
+            return refuse(response, HttpStatus.UNAUTHORIZED, "invalid", "Session expired, please log in again");
+        }
+        SessionTokenService.Session session = found.get();
+
+        @SuppressWarnings("unchecked")
+        Map<String, String> path = (Map<String, String>) request
+                .getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String userId = path != null ? path.get("userId") : null;
+        if (userId != null && !userId.equals(session.userId())) {
+            return refuse(response, HttpStatus.FORBIDDEN, "user", "Not your cart");
+        }
+        String storeId = request.getParameter("storeId");
+        if (storeId != null && session.role() != Role.SUPER_ADMIN && !storeId.equals(session.storeId())) {
+            return refuse(response, HttpStatus.FORBIDDEN, "store", "Not your store");
+        }
+        return true;
+    }
+
+    private boolean refuse(HttpServletResponse response, HttpStatus status, String reason, String message)
+            throws IOException {
+        scanBillMetrics.sessionRejected(reason);
+        response.setStatus(status.value());
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write(message);
+        return false;
+    }
+}
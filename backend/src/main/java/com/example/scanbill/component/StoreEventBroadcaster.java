@@ -0,0 +1,306 @@
+package com.example.scanbill.component;
+
+import com.example.scanbill.model.CartItem;
+import com.example.scanbill.model.Order;
+import com.example.scanbill.model.OrderChangeEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes a store's order, payment and stock activity to its open dashboards as
+ * server-sent events: {@code order-created}, {@code payment-status} and
+ * {@code stock}. Checkout and payment only enqueue; each connection has its own
+ * bounded queue drained on the broadcaster's own small pool of
+ * {@code scanbill.live.delivery-threads}, so a slow dashboard never holds up a
+ * till, and stalled ones cannot starve ingestion on the shared task executor. A connection that falls a full queue behind loses its backlog and
+ * gets a single {@code resync} event telling it to reload instead.
+ * <p>
+ * With change streams enabled the events come from the {@code orders} stream,
+ * so a dashboard sees every node's orders; otherwise from this node's own writes.
+ */
+@Slf4j
+@Component
+public class StoreEventBroadcaster implements MeterBinder {
+    // At most one drain is queued per connection, so this only bounds a runaway
+    private static final int MAX_PENDING_DRAINS = 10_000;
+
+    private final Executor taskExecutor;
+    private final ScanBillMetrics scanBillMetrics;
+    private final int queueSize;
+    private final long timeoutMillis;
+    private final boolean fromChangeStream;
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StoreEventBroadcaster(ScanBillMetrics scanBillMetrics,
+            @Value("${scanbill.live.delivery-threads:4}") int deliveryThreads,
+            @Value("${scanbill.live.queue-size:256}") int queueSize,
+            @Value("${scanbill.live.timeout:30m}") Duration timeout,
+            @Value("${scanbill.change-streams.enabled:false}") boolean fromChangeStream) {
+        this(deliveryPool(deliveryThreads), scanBillMetrics, queueSize, timeout, fromChangeStream);
+    }
+
+    StoreEventBroadcaster(Executor taskExecutor, ScanBillMetrics scanBillMetrics, int queueSize, Duration timeout,
+            boolean fromChangeStream) {
+        this.taskExecutor = taskExecutor;
+        this.scanBillMetrics = scanBillMetrics;
+        this.queueSize = queueSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.fromChangeStream = fromChangeStream;
+    }
+
+    private record Event(String name, Object data) {
+    }
+
+    private static ExecutorService deliveryPool(int threads) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("live-events-");
+        threadFactory.setDaemon(true);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(MAX_PENDING_DRAINS), threadFactory);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (taskExecutor instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Opens a feed for {@code storeId}. It ends after {@code scanbill.live.timeout};
+     * browsers' EventSource reconnects on its own.
+     */
+    public SseEmitter subscribe(String storeId) {
+        return subscribe(storeId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(String storeId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(storeId, emitter);
+        // Added and removed under the map's per-key lock, so a feed opening as the
+        // store's last one closes never lands in a set that was just dropped
+        subscribers.compute(storeId, (k, store) -> {
+            Set<Subscriber> live = store != null ? store : ConcurrentHashMap.newKeySet();
+            live.add(subscriber);
+            return live;
+        });
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        return emitter;
+    }
+
+    /**
+     * A checkout on this node: the order and the stock it took.
+     */
+    public void orderCreated(Order order) {
+        if (!fromChangeStream) {
+            publishOrderCreated(order);
+        }
+    }
+
+    /**
+     * A payment on this node moved the order's payment status.
+     */
+    public void paymentStatus(Order order) {
+        if (!fromChangeStream) {
+            publishPaymentStatus(order);
+        }
+    }
+
+    @EventListener
+    public void onOrderChange(OrderChangeEvent event) {
+        if (!fromChangeStream || event.getOrder() == null) {
+            return;
+        }
+        if ("insert".equals(event.getOperation())) {
+            publishOrderCreated(event.getOrder());
+        } else {
+            publishPaymentStatus(event.getOrder());
+        }
+    }
+
+    /**
+     * Keeps idle connections from being cut by proxies, and finds dead ones.
+     */
+    @Scheduled(fixedDelayString = "${scanbill.live.heartbeat-interval:15000}")
+    public void heartbeat() {
+        for (Set<Subscriber> store : subscribers.values()) {
+            for (Subscriber subscriber : store) {
+                subscriber.offer(null);
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("scanbill.live.connections", subscribers,
+                        s -> s.values().stream().mapToInt(Set::size).sum())
+                .description("Open dashboard event streams")
+                .register(registry);
+    }
+
+    private void publishOrderCreated(Order order) {
+        if (order.getStoreId() == null || !subscribers.containsKey(order.getStoreId())) {
+            return;
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("id", order.getId());
+        summary.put("customerName", order.getCustomerName());
+        summary.put("customerMobile", order.getCustomerMobile());
+        summary.put("timestamp", order.getTimestamp());
+        summary.put("totalAmount", order.getTotalAmount());
+        summary.put("itemCount", order.getItems() == null ? 0 : order.getItems().size());
+        summary.put("status", order.getStatus());
+        summary.put("paymentStatus", order.getPaymentStatus());
+        publish(order.getStoreId(), new Event("order-created", summary));
+
+        List<Map<String, Object>> deltas = stockDeltas(order.getItems());
+        if (!deltas.isEmpty()) {
+            publish(order.getStoreId(), new Event("stock", Map.of("deltas", deltas)));
+        }
+    }
+
+    private void publishPaymentStatus(Order order) {
+        if (order.getStoreId() == null || !subscribers.containsKey(order.getStoreId())) {
+            return;
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("id", order.getId());
+        status.put("status", order.getStatus());
+        status.put("paymentMethod", order.getPaymentMethod());
+        status.put("paymentStatus", order.getPaymentStatus());
+        publish(order.getStoreId(), new Event("payment-status", status));
+    }
+
+    /**
+     * Units sold per product, as changes to the {@code available} and
+     * {@code sold} counters.
+     */
+    static List<Map<String, Object>> stockDeltas(List<CartItem> items) {
+        Map<String, Long> sold = new LinkedHashMap<>();
+        if (items != null) {
+            for (CartItem item : items) {
+                if (item.getBarcode() != null) {
+                    sold.merge(item.getBarcode(), (long) item.getQuantity(), Long::sum);
+                }
+            }
+        }
+        List<Map<String, Object>> deltas = new ArrayList<>(sold.size());
+        sold.forEach((barcode, units) -> deltas.add(Map.of("barcode", barcode, "available", -units,
+                "sold", units)));
+        return deltas;
+    }
+
+    private void publish(String storeId, Event event) {
+        Set<Subscriber> store = subscribers.get(storeId);
+        if (store != null) {
+            for (Subscriber subscriber : store) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    /**
+     * One open connection. At most one drain runs at a time, so events go out
+     * in order and the emitter is never written from two threads.
+     */
+    private final class Subscriber {
+        private final String storeId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(queueSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscriber(String storeId, SseEmitter emitter) {
+            this.storeId = storeId;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Queues {@code event}, or a heartbeat when null. Never blocks.
+         */
+        void offer(Event event) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(event == null ? new Event(null, null) : event)) {
+                queue.clear();
+                queue.offer(new Event("resync", Map.of()));
+                scanBillMetrics.liveEventsDropped(storeId);
+            }
+            if (draining.compareAndSet(false, true)) {
+                scheduleDrain();
+            }
+        }
+
+        /**
+         * Called holding the drain flag. If the pool refuses, the events stay
+         * queued for the next offer (at worst the next heartbeat) to retry.
+         */
+        private void scheduleDrain() {
+            try {
+                taskExecutor.execute(this::drain);
+            } catch (RuntimeException e) {
+                draining.set(false);
+                log.warn("Could not schedule event delivery for store {}: {}", storeId, e.getMessage());
+            }
+        }
+
+        private void drain() {
+            try {
+                Event event;
+                while (!closed && (event = queue.poll()) != null) {
+                    emitter.send(event.name() == null ? SseEmitter.event().comment("heartbeat")
+                            : SseEmitter.event().name(event.name()).data(event.data()));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; the container completes the emitter
+                close();
+            } finally {
+                draining.set(false);
+            }
+            if (!closed && !queue.isEmpty() && draining.compareAndSet(false, true)) {
+                scheduleDrain();
+            }
+        }
+
+        void close() {
+            closed = true;
+            queue.clear();
+            subscribers.computeIfPresent(storeId, (k, store) -> {
+                store.remove(this);
+                return store.isEmpty() ? null : store;
+            });
+        }
+    }
+}
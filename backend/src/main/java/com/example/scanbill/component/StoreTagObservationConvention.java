@@ -0,0 +1,29 @@
+package com.example.scanbill.component;
+
+import io.micrometer.common.KeyValues;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds a {@code store} tag, taken from the {@code storeId} request parameter, to
+ * the {@code http.server.requests} timers so endpoint latency can be broken down
+ * per store. The parameter is client input, so it goes through
+ * {@link ScanBillMetrics#storeTag} and only known stores get their own value.
+ */
+@Component
+@ConditionalOnProperty(name = "scanbill.metrics.store-tag", havingValue = "true", matchIfMissing = true)
+public class StoreTagObservationConvention extends DefaultServerRequestObservationConvention {
+    private final ScanBillMetrics scanBillMetrics;
+
+    public StoreTagObservationConvention(ScanBillMetrics scanBillMetrics) {
+        this.scanBillMetrics = scanBillMetrics;
+    }
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        String storeId = context.getCarrier().getParameter("storeId");
+        return super.getLowCardinalityKeyValues(context).and("store", scanBillMetrics.storeTag(storeId));
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.scanbill.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs which thread model serves requests. Spring Boot silently falls back to the
+ * platform-thread pool when virtual threads are requested on a pre-21 runtime, so
+ * that case is called out explicitly.
+ */
+@Slf4j
+@Component
+public class ThreadModeReporter {
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualRequested;
+
+    @Value("${server.tomcat.threads.max:200}")
+    private int maxThreads;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report() {
+        int feature = Runtime.version().feature();
+        if (virtualRequested && feature >= 21) {
+            log.info("Serving requests on virtual threads (Java {})", feature);
+        } else if (virtualRequested) {
+            log.warn("Virtual threads requested but running on Java {}; using {} platform threads", feature,
+                    maxThreads);
+        } else {
+            log.info("Serving requests on up to {} platform threads", maxThreads);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.scanbill.component;
+
+import com.example.scanbill.model.Cart;
+import com.example.scanbill.model.CartItem;
+import com.example.scanbill.repository.CartRepository;
+import com.example.scanbill.service.CartService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Keeps active carts in memory, keyed by user, and writes changed ones to the
+ * {@code carts} collection in batches every {@code scanbill.cart.flush-interval}
+ * and on shutdown. A cart not in memory is read through from Mongo on first use.
+ * <p>
+ * Memory is the source of truth for a cart while it is active, so every request
+ * for a given till must reach the same node (single instance or sticky routing).
+ * At most one flush interval of changes is lost if the process dies.
+ * <p>
+ * The reactive services write carts straight to Mongo, past this store, so it
+ * refuses to start under the {@code reactive} profile.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "scanbill.cart.store", havingValue = "write-behind")
+public class WriteBehindCartStore implements CartStore, MeterBinder {
+    private final CartRepository cartRepository;
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+    private final long idleNanos;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    // Flushes hold no monitor across Mongo I/O, so virtual threads never pin here
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @Autowired
+    public WriteBehindCartStore(CartRepository cartRepository, MongoTemplate mongoTemplate, Environment environment,
+            @Value("${scanbill.cart.flush-batch-size:500}") int batchSize,
+            @Value("${scanbill.cart.idle-timeout:30m}") Duration idleTimeout) {
+        this(cartRepository, mongoTemplate, batchSize, idleTimeout);
+        if (environment.acceptsProfiles(Profiles.of("reactive"))) {
+            throw new IllegalStateException("scanbill.cart.store=write-behind is not supported under the reactive "
+                    + "profile; its carts would diverge from the ones the reactive services write to Mongo");
+        }
+    }
+
+    WriteBehindCartStore(CartRepository cartRepository, MongoTemplate mongoTemplate, int batchSize,
+            Duration idleTimeout) {
+        this.cartRepository = cartRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+        this.idleNanos = idleTimeout.toNanos();
+    }
+
+    private static final class Session {
+        final Cart cart;
+        long lastAccess = System.nanoTime();
+        boolean evicted;
+
+        Session(Cart cart) {
+            this.cart = cart;
+        }
+    }
+
+    @Override
+    public Optional<Cart> find(String userId) {
+        return mutate(userId, null, Optional.empty(), s -> Optional.of(copy(s.cart)));
+    }
+
+    @Override
+    public Cart getOrCreate(String userId, String storeId) {
+        return mutate(userId, storeId, null, s -> copy(s.cart));
+    }
+
+    @Override
+    public Optional<Cart> pushItem(String userId, String storeId, CartItem item) {
+        return mutate(userId, storeId, Optional.empty(), s -> {
+            List<CartItem> items = s.cart.getItems();
+            for (int i = 0, n = items.size(); i < n; i++) {
+                if (items.get(i).getSerialNumber().equals(item.getSerialNumber())) {
+                    return Optional.empty();
+                }
+            }
+            items.add(item);
+            Cart cart = s.cart;
+            cart.setSubtotalPaise(cart.getSubtotalPaise() + item.lineSubtotalPaise());
+            cart.setTaxPaise(cart.getTaxPaise() + item.lineTaxPaise());
+            cart.setDiscountPaise(cart.getDiscountPaise() + item.lineDiscountPaise());
+            cart.setTotalPaise(cart.getTotalPaise() + item.lineTotalPaise());
+            changed(userId, cart);
+            return Optional.of(copy(cart));
+        });
+    }
+
+    @Override
+    public Optional<Cart> pullItem(String userId, CartItem item) {
+        return mutate(userId, null, Optional.empty(), s -> {
+            Cart cart = s.cart;
+            if (!cart.getItems().removeIf(i -> i.getSerialNumber().equals(item.getSerialNumber()))) {
+                return Optional.empty();
+            }
+            cart.setSubtotalPaise(cart.getSubtotalPaise() - item.lineSubtotalPaise());
+            cart.setTaxPaise(cart.getTaxPaise() - item.lineTaxPaise());
+            cart.setDiscountPaise(cart.getDiscountPaise() - item.lineDiscountPaise());
+            cart.setTotalPaise(cart.getTotalPaise() - item.lineTotalPaise());
+            changed(userId, cart);
+            return Optional.of(copy(cart));
+        });
+    }
+
+    @Override
+    public void removeItems(String userId, Collection<String> serialNumbers) {
+        mutate(userId, null, null, s -> {
+            if (s.cart.getItems().removeIf(i -> serialNumbers.contains(i.getSerialNumber()))) {
+                CartService.calculateTotal(s.cart);
+                changed(userId, s.cart);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Cart> applyBatch(String userId, String storeId, List<CartItem> add,
+            Collection<String> remove) {
+        return mutate(userId, storeId, Optional.empty(), s -> {
+            Cart before = copy(s.cart);
+            List<CartItem> items = s.cart.getItems();
+            items.removeIf(i -> remove.contains(i.getSerialNumber()));
+            Set<String> present = new HashSet<>();
+            for (CartItem item : before.getItems()) {
+                present.add(item.getSerialNumber());
+            }
+            for (CartItem item : add) {
+                if (present.add(item.getSerialNumber())) {
+                    items.add(item);
+                }
+            }
+            CartService.calculateTotal(s.cart);
+            changed(userId, s.cart);
+            return Optional.of(before);
+        });
+    }
+
+    @Override
+    public boolean joinsTransactions() {
+        return false;
+    }
+
+    /**
+     * Writes every changed cart, {@code scanbill.cart.flush-batch-size} per bulk
+     * write, then drops carts that have been idle and clean for the idle timeout.
+     */
+    @Scheduled(fixedDelayString = "${scanbill.cart.flush-interval:2000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Cart> batch = new ArrayList<>(batchSize);
+            Iterator<String> pending = dirty.iterator();
+            while (pending.hasNext()) {
+                String userId = pending.next();
+                pending.remove();
+                Session session = sessions.get(userId);
+                if (session == null) {
+                    continue;
+                }
+                synchronized (session) {
+                    batch.add(copy(session.cart));
+                }
+                if (batch.size() == batchSize && !write(batch)) {
+                    return;
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+            evictIdle();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (!dirty.isEmpty()) {
+            log.error("{} carts could not be written on shutdown", dirty.size());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("scanbill.cart.sessions", sessions, Map::size)
+                .description("Carts held in memory")
+                .register(registry);
+        Gauge.builder("scanbill.cart.dirty", dirty, Set::size)
+                .description("Carts changed since the last flush")
+                .register(registry);
+    }
+
+    private boolean write(List<Cart> batch) {
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Cart.class);
+            for (Cart cart : batch) {
+                bulk.replaceOne(new Query(Criteria.where("userId").is(cart.getUserId())), cart,
+                        FindAndReplaceOptions.options().upsert());
+            }
+            bulk.execute();
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Cart flush of {} carts failed, retrying next round: {}", batch.size(), e.getMessage());
+            for (Cart cart : batch) {
+                dirty.add(cart.getUserId());
+            }
+            return false;
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            Session session = entry.getValue();
+            synchronized (session) {
+                if (now - session.lastAccess > idleNanos && !dirty.contains(entry.getKey())) {
+                    session.evicted = true;
+                    sessions.remove(entry.getKey(), session);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs {@code action} on the user's cart under its lock, loading it first if
+     * needed, or returns {@code absent} when there is no cart and no store to
+     * create it in. An eviction that wins the race is detected and the cart reloaded.
+     */
+    private <T> T mutate(String userId, String storeId, T absent, Function<Session, T> action) {
+        while (true) {
+            Session session = session(userId, storeId);
+            if (session == null) {
+                return absent;
+            }
+            synchronized (session) {
+                if (!session.evicted) {
+                    session.lastAccess = System.nanoTime();
+                    return action.apply(session);
+                }
+            }
+        }
+    }
+
+    /**
+     * The in-memory session, read through from Mongo on a miss. With a
+     * {@code storeId} a missing cart is created; without one, null is returned.
+     */
+    private Session session(String userId, String storeId) {
+        Session session = sessions.get(userId);
+        if (session != null) {
+            return session;
+        }
+        Cart cart = cartRepository.findByUserId(userId).orElse(null);
+        if (cart == null) {
+            if (storeId == null) {
+                return null;
+            }
+            cart = new Cart();
+            cart.setUserId(userId);
+            cart.setStoreId(storeId);
+            cart.setItems(new ArrayList<>());
+            dirty.add(userId);
+        }
+        Cart loaded = cart;
+        return sessions.computeIfAbsent(userId, k -> new Session(loaded));
+    }
+
+    private void changed(String userId, Cart cart) {
+        cart.setVersion(cart.getVersion() == null ? 1 : cart.getVersion() + 1);
+        dirty.add(userId);
+    }
+
+    private static Cart copy(Cart cart) {
+        Cart copy = new Cart();
+        copy.setId(cart.getId());
+        copy.setUserId(cart.getUserId());
+        copy.setStoreId(cart.getStoreId());
+        copy.setItems(new ArrayList<>(cart.getItems()));
+        copy.setSubtotalPaise(cart.getSubtotalPaise());
+        copy.setTaxPaise(cart.getTaxPaise());
+        copy.setDiscountPaise(cart.getDiscountPaise());
+        copy.setTotalPaise(cart.getTotalPaise());
+        copy.setVersion(cart.getVersion());
+        return copy;
+    }
+}
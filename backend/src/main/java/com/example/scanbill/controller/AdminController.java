@@ -1,23 +1,56 @@
 package com.example.scanbill.controller;
 
+import com.example.scanbill.component.ProductCatalogCache;
+import com.example.scanbill.component.StoreEventBroadcaster;
+import com.example.scanbill.model.IngestionJob;
+import com.example.scanbill.model.IngestionLine;
 import com.example.scanbill.model.Order;
+import com.example.scanbill.model.OrderPage;
 import com.example.scanbill.model.Product;
+import com.example.scanbill.service.InventoryIngestionService;
 import com.example.scanbill.service.OrderService;
 import com.example.scanbill.service.ProductService;
+import com.example.scanbill.service.StockLevelService;
+import com.example.scanbill.service.StoreStatsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/admin")
 @RequiredArgsConstructor
 @CrossOrigin(origins = "*")
 public class AdminController {
+    private static final int EXPORT_FLUSH_EVERY = 200;
 
     private final ProductService productService;
+    private final InventoryIngestionService inventoryIngestionService;
     private final OrderService orderService;
+    private final StoreStatsService storeStatsService;
+    private final StockLevelService stockLevelService;
+    private final ProductCatalogCache productCatalogCache;
+    private final StoreEventBroadcaster storeEventBroadcaster;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/products")
     public Product createProduct(@RequestBody Product product, @RequestParam int initialStock) {
@@ -34,21 +67,125 @@ public class AdminController {
         productService.deleteProduct(id);
     }
 
+    /**
+     * Small additions are written before the response; large ones come back
+     * 202 with the job still running, to poll like a manifest upload.
+     */
     @PostMapping("/inventory/add")
-    public void addInventory(@RequestParam String barcode, @RequestParam int quantity, @RequestParam String storeId) {
-        productService.addStock(barcode, quantity, storeId);
+    public ResponseEntity<IngestionJob> addInventory(@RequestParam String barcode, @RequestParam int quantity,
+            @RequestParam String storeId) {
+        IngestionJob job = productService.addStock(barcode, quantity, storeId);
+        return "RUNNING".equals(job.getStatus()) ? ResponseEntity.accepted().body(job) : ResponseEntity.ok(job);
+    }
+
+    /**
+     * Supplier manifest upload ({@code barcode,quantity} CSV). Units are written in
+     * the background; poll the returned job for progress.
+     */
+    @PostMapping(value = "/inventory/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<IngestionJob> uploadManifest(@RequestParam("file") MultipartFile file,
+            @RequestParam String storeId) throws IOException {
+        List<String> rejected = new ArrayList<>();
+        List<IngestionLine> lines;
+        try (Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+            lines = InventoryIngestionService.parseManifest(reader, rejected);
+        }
+        IngestionJob job = inventoryIngestionService.ingestAsync(storeId, "CSV", lines, rejected);
+        return ResponseEntity.accepted().body(job);
+    }
+
+    @GetMapping("/inventory/jobs")
+    public List<IngestionJob> getIngestionJobs(@RequestParam String storeId) {
+        return inventoryIngestionService.getRecentJobs(storeId);
+    }
+
+    @GetMapping("/inventory/jobs/{id}")
+    public IngestionJob getIngestionJob(@PathVariable String id) {
+        return inventoryIngestionService.getJob(id);
+    }
+
+    @PostMapping("/inventory/jobs/{id}/resume")
+    public IngestionJob resumeIngestionJob(@PathVariable String id) {
+        return inventoryIngestionService.resume(id);
+    }
+
+    @PostMapping("/stock/rebuild")
+    public Map<String, Object> rebuildStockLevels(@RequestParam String storeId) {
+        int products = stockLevelService.rebuild(storeId);
+        return Map.of("storeId", storeId, "products", products);
     }
 
     @GetMapping("/orders")
-    public List<Order> getOrders(@RequestParam String storeId) {
-        return orderService.getOrdersByStoreId(storeId);
+    public List<Order> getOrders(@RequestParam String storeId, @RequestParam(defaultValue = "50") int limit) {
+        return orderService.getRecentOrders(storeId, limit);
+    }
+
+    @GetMapping("/orders/page")
+    public OrderPage getOrderPage(@RequestParam String storeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return orderService.getOrderPage(storeId, from, to, cursor, limit);
+    }
+
+    /**
+     * Streams every matching order as newline-delimited JSON straight off a Mongo
+     * cursor, so the export never holds more than one batch in memory.
+     */
+    @GetMapping(value = "/orders/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam String storeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        StreamingResponseBody body = out -> {
+            try (Stream<Order> orders = orderService.streamOrders(storeId, from, to)) {
+                Iterator<Order> it = orders.iterator();
+                int written = 0;
+                while (it.hasNext()) {
+                    out.write(objectMapper.writeValueAsBytes(it.next()));
+                    out.write('\n');
+                    if (++written % EXPORT_FLUSH_EVERY == 0) {
+                        out.flush();
+                    }
+                }
+                out.flush();
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders-" + storeId + ".ndjson\"")
+                .body(body);
+    }
+
+    /**
+     * Live feed of the store's orders, payments and stock changes, so a dashboard
+     * keeps one connection open instead of re-reading orders and stats.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@RequestParam String storeId) {
+        return storeEventBroadcaster.subscribe(storeId);
     }
 
     @GetMapping("/stats")
-    public Map<String, Object> getStats(@RequestParam String storeId) {
-        List<Order> orders = orderService.getOrdersByStoreId(storeId);
-        double totalRevenue = orders.stream().mapToDouble(Order::getTotalAmount).sum();
-        long totalOrders = orders.size();
-        return Map.of("totalRevenue", totalRevenue, "totalOrders", totalOrders);
+    public Map<String, Object> getStats(@RequestParam String storeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return storeStatsService.getStats(storeId, from, to);
+    }
+
+    @PostMapping("/stats/rebuild")
+    public Map<String, Object> rebuildStats(@RequestParam String storeId) {
+        int days = storeStatsService.rebuild(storeId);
+        return Map.of("storeId", storeId, "days", days);
+    }
+
+    @GetMapping("/catalog/cache")
+    public Map<String, Object> getCatalogCacheStats() {
+        CacheStats stats = productCatalogCache.stats();
+        return Map.of(
+                "size", productCatalogCache.size(),
+                "hits", stats.hitCount(),
+                "misses", stats.missCount(),
+                "hitRate", stats.hitRate(),
+                "evictions", stats.evictionCount());
     }
 }
@@ -3,10 +3,14 @@ package com.example.scanbill.controller;
 import com.example.scanbill.model.Store;
 import com.example.scanbill.model.User;
 import com.example.scanbill.service.AuthService;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
@@ -20,7 +24,7 @@ public class AuthController {
     public ResponseEntity<?> login(@RequestBody LoginRequest request) {
         try {
             User user = authService.login(request.getUsername(), request.getPassword());
-            return ResponseEntity.ok(user);
+            return ResponseEntity.ok(new LoginResponse(user, authService.issueToken(user)));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -28,18 +32,17 @@ public class AuthController {
 
     @PostMapping("/register-store")
     public ResponseEntity<?> registerStore(@RequestBody StoreRegistrationRequest request) {
-        System.out.println("Received registration request for: " + request.getStoreName());
+        log.info("Received registration request for: {}", request.getStoreName());
         try {
             Store store = authService.registerStore(
                     request.getStoreName(),
                     request.getLocation(),
                     request.getAdminUsername(),
                     request.getAdminPassword());
-            System.out.println("Store registered successfully: " + store.getId());
+            log.info("Store registered successfully: {}", store.getId());
             return ResponseEntity.ok(store);
         } catch (Exception e) {
-            System.err.println("Registration failed: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Registration failed: {}", e.getMessage(), e);
             return ResponseEntity.status(500).body("Error: " + e.getMessage());
         }
     }
@@ -74,6 +77,18 @@ public class AuthController {
         private String password;
     }
 
+    /**
+     * The user's fields with the session token alongside; the token goes back as
+     * {@code Authorization: Bearer <token>} on cart and order calls.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class LoginResponse {
+        @JsonUnwrapped
+        private User user;
+        private String token;
+    }
+
     @Data
     public static class StoreRegistrationRequest {
         private String storeName;
@@ -0,0 +1,19 @@
+package com.example.scanbill.controller;
+
+import com.example.scanbill.service.OrderService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Request input the client got wrong, such as a page cursor it did not receive
+ * from us, answered with a 400 rather than surfacing as a server error.
+ */
+@RestControllerAdvice
+public class BadRequestExceptionHandler {
+
+    @ExceptionHandler(OrderService.InvalidCursorException.class)
+    public ResponseEntity<String> invalidCursor(OrderService.InvalidCursorException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -1,11 +1,17 @@
 package com.example.scanbill.controller;
 
 import com.example.scanbill.model.Cart;
+import com.example.scanbill.model.CartBatchResult;
 import com.example.scanbill.service.CartService;
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/cart")
 @RequiredArgsConstructor
 public class CartController {
@@ -22,9 +28,25 @@ public class CartController {
         return cartService.addToCart(userId, serialNumber, storeId);
     }
 
+    /**
+     * Several scans in one request, e.g. from a conveyor lane reader. Each serial
+     * gets its own result; a batch is applied to the cart in a single update.
+     */
+    @PostMapping("/{userId}/batch")
+    public CartBatchResult applyBatch(@PathVariable String userId, @RequestParam String storeId,
+            @RequestBody BatchScanRequest request) {
+        return cartService.applyBatch(userId, storeId, request.getAdd(), request.getRemove());
+    }
+
     @DeleteMapping("/{userId}/remove")
     public Cart removeFromCart(@PathVariable String userId, @RequestParam String serialNumber,
             @RequestParam String storeId) {
         return cartService.removeFromCart(userId, serialNumber, storeId);
     }
+
+    @Data
+    public static class BatchScanRequest {
+        private List<String> add;
+        private List<String> remove;
+    }
 }
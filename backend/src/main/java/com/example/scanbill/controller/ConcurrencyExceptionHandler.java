@@ -0,0 +1,38 @@
+package com.example.scanbill.controller;
+
+import com.example.scanbill.component.ScanBillMetrics;
+import com.example.scanbill.service.IdempotencyService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.HandlerMethod;
+
+/**
+ * Turns a lost {@code @Version} race into a 409 the till can retry, and counts it
+ * per handler so contention shows up on the dashboards. A retry that overtakes
+ * the request it repeats gets a 409 as well.
+ */
+@Slf4j
+@RestControllerAdvice
+@RequiredArgsConstructor
+public class ConcurrencyExceptionHandler {
+    private final ScanBillMetrics scanBillMetrics;
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> optimisticLockConflict(OptimisticLockingFailureException e,
+            HandlerMethod handler) {
+        String operation = handler.getBeanType().getSimpleName() + "." + handler.getMethod().getName();
+        scanBillMetrics.optimisticLockConflict(operation);
+        log.debug("Optimistic lock conflict in {}: {}", operation, e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Concurrent update, please retry");
+    }
+
+    @ExceptionHandler(IdempotencyService.KeyInProgressException.class)
+    public ResponseEntity<String> idempotencyKeyInProgress(IdempotencyService.KeyInProgressException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+}
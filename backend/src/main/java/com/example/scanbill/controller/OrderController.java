@@ -1,26 +1,43 @@
 package com.example.scanbill.controller;
 
 import com.example.scanbill.model.Order;
-import com.example.scanbill.repository.OrderRepository;
+import com.example.scanbill.model.OrderPage;
+import com.example.scanbill.service.IdempotencyService;
 import com.example.scanbill.service.OrderService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/orders")
 public class OrderController {
-    private final OrderRepository orderRepository;
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
 
-    public OrderController(OrderRepository orderRepository, OrderService orderService) {
-        this.orderRepository = orderRepository;
+    public OrderController(OrderService orderService, IdempotencyService idempotencyService) {
         this.orderService = orderService;
+        this.idempotencyService = idempotencyService;
     }
 
+    /**
+     * The most recent orders only; older history is read through {@code /page}.
+     */
     @GetMapping
-    public List<Order> getAllOrders(@RequestParam String storeId) {
-        return orderRepository.findByStoreId(storeId);
+    public List<Order> getAllOrders(@RequestParam String storeId, @RequestParam(defaultValue = "50") int limit) {
+        return orderService.getRecentOrders(storeId, limit);
+    }
+
+    @GetMapping("/page")
+    public OrderPage getOrderPage(@RequestParam String storeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return orderService.getOrderPage(storeId, from, to, cursor, limit);
     }
 
     @PostMapping("/checkout/{userId}")
@@ -30,6 +47,8 @@ public class OrderController {
             @RequestParam String customerMobile,
             @RequestParam String storeId,
             @RequestParam(required = false) String idempotencyKey) {
-        return orderService.checkout(userId, customerName, customerMobile, storeId, idempotencyKey);
+        // A retry of a checkout still in flight waits for it rather than running again
+        return idempotencyService.execute("checkout", idempotencyKey, userId + ":" + storeId, Order.class,
+                () -> orderService.checkout(userId, customerName, customerMobile, storeId, idempotencyKey));
     }
 }
@@ -1,10 +1,15 @@
 package com.example.scanbill.controller;
 
+import com.example.scanbill.component.ScanBillMetrics;
+import com.example.scanbill.component.StoreEventBroadcaster;
 import com.example.scanbill.model.Order;
 import com.example.scanbill.repository.OrderRepository;
+import com.example.scanbill.service.IdempotencyService;
+import com.example.scanbill.service.ReceiptService;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,11 +20,17 @@ import java.util.Map;
 import java.util.Optional;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/payments")
 @RequiredArgsConstructor
 public class PaymentController {
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
 
     private final OrderRepository orderRepository;
+    private final ScanBillMetrics scanBillMetrics;
+    private final IdempotencyService idempotencyService;
+    private final StoreEventBroadcaster storeEventBroadcaster;
+    private final ReceiptService receiptService;
 
     @Value("${razorpay.key.id:rzp_test_demo}")
     private String razorpayKeyId;
@@ -31,10 +42,16 @@ public class PaymentController {
      * Initialize payment - returns order info for frontend to start payment
      */
     @PostMapping("/initiate")
-    public ResponseEntity<Map<String, Object>> initiatePayment(@RequestBody PaymentInitRequest request) {
+    public ResponseEntity<Map<String, Object>> initiatePayment(@RequestBody PaymentInitRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return respond(idempotencyService.execute("payment-initiate", idempotencyKey, request.getOrderId(),
+                Map.class, () -> initiate(request)));
+    }
+
+    private Map<String, Object> initiate(PaymentInitRequest request) {
         Optional<Order> orderOpt = orderRepository.findById(request.getOrderId());
         if (orderOpt.isEmpty()) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Order not found"));
+            return Map.of("error", "Order not found");
         }
 
         Order order = orderOpt.get();
@@ -43,11 +60,14 @@ public class PaymentController {
         order.setPaymentStatus("INITIATED");
         order.setPaymentMethod("RAZORPAY");
         orderRepository.save(order);
+        scanBillMetrics.paymentRecorded(order.getStoreId(), "RAZORPAY", "INITIATED");
+        storeEventBroadcaster.paymentStatus(order);
+        receiptService.evict(order.getId());
 
         // Return payment configuration for frontend
         Map<String, Object> response = new HashMap<>();
         response.put("orderId", order.getId());
-        response.put("amount", (int) (order.getTotalAmount() * 100)); // Razorpay expects amount in paise
+        response.put("amount", order.getTotalPaise()); // Razorpay expects amount in paise
         response.put("currency", "INR");
         response.put("razorpayKeyId", razorpayKeyId);
         response.put("customerName", order.getCustomerName());
@@ -55,17 +75,23 @@ public class PaymentController {
         response.put("customerEmail", order.getCustomerEmail() != null ? order.getCustomerEmail() : "");
         response.put("description", "Order #" + order.getId());
 
-        return ResponseEntity.ok(response);
+        return response;
     }
 
     /**
      * Verify payment signature and confirm payment
      */
     @PostMapping("/verify")
-    public ResponseEntity<Map<String, Object>> verifyPayment(@RequestBody PaymentVerifyRequest request) {
+    public ResponseEntity<Map<String, Object>> verifyPayment(@RequestBody PaymentVerifyRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return respond(idempotencyService.execute("payment-verify", idempotencyKey, request.getOrderId(),
+                Map.class, () -> verify(request)));
+    }
+
+    private Map<String, Object> verify(PaymentVerifyRequest request) {
         Optional<Order> orderOpt = orderRepository.findById(request.getOrderId());
         if (orderOpt.isEmpty()) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Order not found"));
+            return Map.of("error", "Order not found");
         }
 
         Order order = orderOpt.get();
@@ -88,6 +114,9 @@ public class PaymentController {
         order.setReceiptQrCode(receiptUrl); // QR will point to receipt URL
 
         orderRepository.save(order);
+        scanBillMetrics.paymentRecorded(order.getStoreId(), "RAZORPAY", "SUCCESS");
+        storeEventBroadcaster.paymentStatus(order);
+        receiptService.evict(order.getId());
 
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -95,17 +124,23 @@ public class PaymentController {
         response.put("receiptUrl", receiptUrl);
         response.put("message", "Payment successful!");
 
-        return ResponseEntity.ok(response);
+        return response;
     }
 
     /**
      * Mark order as paid with cash
      */
     @PostMapping("/cash")
-    public ResponseEntity<Map<String, Object>> cashPayment(@RequestBody CashPaymentRequest request) {
+    public ResponseEntity<Map<String, Object>> cashPayment(@RequestBody CashPaymentRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return respond(idempotencyService.execute("payment-cash", idempotencyKey, request.getOrderId(),
+                Map.class, () -> payCash(request)));
+    }
+
+    private Map<String, Object> payCash(CashPaymentRequest request) {
         Optional<Order> orderOpt = orderRepository.findById(request.getOrderId());
         if (orderOpt.isEmpty()) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Order not found"));
+            return Map.of("error", "Order not found");
         }
 
         Order order = orderOpt.get();
@@ -118,13 +153,27 @@ public class PaymentController {
         order.setReceiptQrCode(receiptUrl);
 
         orderRepository.save(order);
+        scanBillMetrics.paymentRecorded(order.getStoreId(), "CASH", "SUCCESS");
+        storeEventBroadcaster.paymentStatus(order);
+        receiptService.evict(order.getId());
 
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
         response.put("orderId", order.getId());
         response.put("receiptUrl", receiptUrl);
 
-        return ResponseEntity.ok(response);
+        return response;
+    }
+
+    /**
+     * Bodies carrying an {@code error} are 400s. They are replayed like any other
+     * result, so a retried request gets the same answer.
+     */
+    @SuppressWarnings("unchecked")
+    static ResponseEntity<Map<String, Object>> respond(Map<?, ?> body) {
+        Map<String, Object> response = (Map<String, Object>) body;
+        return response.containsKey("error") ? ResponseEntity.badRequest().body(response)
+                : ResponseEntity.ok(response);
     }
 
     // Helper for HMAC-SHA256 signature verification (production use)
@@ -2,8 +2,10 @@ package com.example.scanbill.controller;
 
 import com.example.scanbill.model.InventoryItem;
 import com.example.scanbill.model.Product;
+import com.example.scanbill.model.StockLevel;
 import com.example.scanbill.repository.ProductRepository;
 import com.example.scanbill.service.CartService;
+import com.example.scanbill.service.StockLevelService;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -11,15 +13,19 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
+    private static final int MAX_UNITS = 500;
+
     private final ProductRepository productRepository;
     private final CartService cartService;
     private final com.example.scanbill.service.ProductService productService;
+    private final StockLevelService stockLevelService;
 
     public ProductController(ProductRepository productRepository, CartService cartService,
-            com.example.scanbill.service.ProductService productService) {
+            com.example.scanbill.service.ProductService productService, StockLevelService stockLevelService) {
         this.productRepository = productRepository;
         this.cartService = cartService;
         this.productService = productService;
+        this.stockLevelService = stockLevelService;
     }
 
     @GetMapping
@@ -43,12 +49,18 @@ public class ProductController {
 
     @GetMapping("/{barcode}")
     public Product getProduct(@PathVariable String barcode) {
-        return productRepository.findByBarcode(barcode).orElseThrow();
+        return productService.getProductByBarcode(barcode).orElseThrow();
     }
 
     @GetMapping("/{barcode}/units")
-    public List<InventoryItem> getAvailableUnits(@PathVariable String barcode, @RequestParam String storeId) {
-        return cartService.getAvailableUnits(barcode, storeId);
+    public List<InventoryItem> getAvailableUnits(@PathVariable String barcode, @RequestParam String storeId,
+            @RequestParam(defaultValue = "50") int limit) {
+        return cartService.getAvailableUnits(barcode, storeId, Math.max(1, Math.min(limit, MAX_UNITS)));
+    }
+
+    @GetMapping("/{barcode}/stock")
+    public StockLevel getStockLevel(@PathVariable String barcode, @RequestParam String storeId) {
+        return stockLevelService.getStockLevel(storeId, barcode);
     }
 
     @lombok.Data
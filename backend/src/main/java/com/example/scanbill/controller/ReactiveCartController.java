@@ -0,0 +1,54 @@
+package com.example.scanbill.controller;
+
+import com.example.scanbill.model.Cart;
+import com.example.scanbill.model.CartBatchResult;
+import com.example.scanbill.service.CartService;
+import com.example.scanbill.service.ReactiveCartService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * {@link CartController} under the {@code reactive} profile. Same paths and
+ * payloads; the request thread is released while Mongo works.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/cart")
+@RequiredArgsConstructor
+public class ReactiveCartController {
+    private final ReactiveCartService cartService;
+    private final CartService batchCartService;
+
+    @GetMapping("/{userId}")
+    public Mono<Cart> getCart(@PathVariable String userId, @RequestParam String storeId) {
+        return cartService.getCartByUserId(userId, storeId);
+    }
+
+    @PostMapping("/{userId}/add")
+    public Mono<Cart> addToCart(@PathVariable String userId, @RequestParam String serialNumber,
+            @RequestParam String storeId) {
+        return cartService.addToCart(userId, serialNumber, storeId);
+    }
+
+    /**
+     * The batch path is a handful of multi-document updates built on the blocking
+     * driver, so it runs on the bounded elastic scheduler rather than being
+     * duplicated here; holds and cart documents are the same either way.
+     */
+    @PostMapping("/{userId}/batch")
+    public Mono<CartBatchResult> applyBatch(@PathVariable String userId, @RequestParam String storeId,
+            @RequestBody CartController.BatchScanRequest request) {
+        return Mono.fromCallable(() -> batchCartService.applyBatch(userId, storeId, request.getAdd(),
+                        request.getRemove()))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @DeleteMapping("/{userId}/remove")
+    public Mono<Cart> removeFromCart(@PathVariable String userId, @RequestParam String serialNumber,
+            @RequestParam String storeId) {
+        return cartService.removeFromCart(userId, serialNumber, storeId);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.scanbill.controller;
+
+import com.example.scanbill.model.Order;
+import com.example.scanbill.model.OrderPage;
+import com.example.scanbill.service.IdempotencyService;
+import com.example.scanbill.service.OrderService;
+import com.example.scanbill.service.ReactiveOrderService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * {@link OrderController} under the {@code reactive} profile.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/orders")
+@RequiredArgsConstructor
+public class ReactiveOrderController {
+    private final ReactiveOrderService reactiveOrderService;
+    private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
+
+    @GetMapping
+    public Mono<List<Order>> getAllOrders(@RequestParam String storeId,
+            @RequestParam(defaultValue = "50") int limit) {
+        return Mono.fromCallable(() -> orderService.getRecentOrders(storeId, limit))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @GetMapping("/page")
+    public Mono<OrderPage> getOrderPage(@RequestParam String storeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        // Admin history paging stays on the blocking keyset query
+        return Mono.fromCallable(() -> orderService.getOrderPage(storeId, from, to, cursor, limit))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @PostMapping("/checkout/{userId}")
+    public Mono<Order> checkout(
+            @PathVariable String userId,
+            @RequestParam String customerName,
+            @RequestParam String customerMobile,
+            @RequestParam String storeId,
+            @RequestParam(required = false) String idempotencyKey) {
+        // A retry of a checkout still in flight waits for it rather than running again
+        return idempotencyService.executeMono("checkout", idempotencyKey, userId + ":" + storeId, Order.class,
+                () -> reactiveOrderService.checkout(userId, customerName, customerMobile, storeId, idempotencyKey));
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.scanbill.controller;
+
+import com.example.scanbill.component.ScanBillMetrics;
+import com.example.scanbill.component.StoreEventBroadcaster;
+import com.example.scanbill.model.Order;
+import com.example.scanbill.repository.ReactiveOrderRepository;
+import com.example.scanbill.service.IdempotencyService;
+import com.example.scanbill.service.ReceiptService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link PaymentController} under the {@code reactive} profile. Same demo
+ * semantics: Razorpay payments are accepted without signature verification.
+ * Idempotency keys are honoured the same way, with the same scopes.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/payments")
+@RequiredArgsConstructor
+public class ReactivePaymentController {
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private final ReactiveOrderRepository orderRepository;
+    private final ScanBillMetrics scanBillMetrics;
+    private final IdempotencyService idempotencyService;
+    private final StoreEventBroadcaster storeEventBroadcaster;
+    private final ReceiptService receiptService;
+
+    @Value("${razorpay.key.id:rzp_test_demo}")
+    private String razorpayKeyId;
+
+    @PostMapping("/initiate")
+    public Mono<ResponseEntity<Map<String, Object>>> initiatePayment(
+            @RequestBody PaymentController.PaymentInitRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return idempotencyService.executeMono("payment-initiate", idempotencyKey, request.getOrderId(), Map.class,
+                () -> initiate(request).cast(Map.class)).map(PaymentController::respond);
+    }
+
+    private Mono<Map<String, Object>> initiate(PaymentController.PaymentInitRequest request) {
+        return orderRepository.findById(request.getOrderId())
+                .flatMap(order -> {
+                    order.setPaymentStatus("INITIATED");
+                    order.setPaymentMethod("RAZORPAY");
+                    return orderRepository.save(order);
+                })
+                .map(order -> {
+                    scanBillMetrics.paymentRecorded(order.getStoreId(), "RAZORPAY", "INITIATED");
+                    storeEventBroadcaster.paymentStatus(order);
+                    receiptService.evict(order.getId());
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("orderId", order.getId());
+                    response.put("amount", order.getTotalPaise()); // Razorpay expects amount in paise
+                    response.put("currency", "INR");
+                    response.put("razorpayKeyId", razorpayKeyId);
+                    response.put("customerName", order.getCustomerName());
+                    response.put("customerMobile", order.getCustomerMobile());
+                    response.put("customerEmail", order.getCustomerEmail() != null ? order.getCustomerEmail() : "");
+                    response.put("description", "Order #" + order.getId());
+                    return response;
+                })
+                .defaultIfEmpty(orderNotFound());
+    }
+
+    @PostMapping("/verify")
+    public Mono<ResponseEntity<Map<String, Object>>> verifyPayment(
+            @RequestBody PaymentController.PaymentVerifyRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return idempotencyService.executeMono("payment-verify", idempotencyKey, request.getOrderId(), Map.class,
+                () -> verify(request).cast(Map.class)).map(PaymentController::respond);
+    }
+
+    private Mono<Map<String, Object>> verify(PaymentController.PaymentVerifyRequest request) {
+        return orderRepository.findById(request.getOrderId())
+                .flatMap(order -> {
+                    order.setPaymentId(request.getRazorpayPaymentId());
+                    return markPaid(order, "RAZORPAY");
+                })
+                .map(order -> {
+                    Map<String, Object> response = paidResponse(order);
+                    response.put("message", "Payment successful!");
+                    return response;
+                })
+                .defaultIfEmpty(orderNotFound());
+    }
+
+    @PostMapping("/cash")
+    public Mono<ResponseEntity<Map<String, Object>>> cashPayment(
+            @RequestBody PaymentController.CashPaymentRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return idempotencyService.executeMono("payment-cash", idempotencyKey, request.getOrderId(), Map.class,
+                () -> payCash(request).cast(Map.class)).map(PaymentController::respond);
+    }
+
+    private Mono<Map<String, Object>> payCash(PaymentController.CashPaymentRequest request) {
+        return orderRepository.findById(request.getOrderId())
+                .flatMap(order -> {
+                    order.setPaymentMethod("CASH");
+                    return markPaid(order, "CASH");
+                })
+                .map(ReactivePaymentController::paidResponse)
+                .defaultIfEmpty(orderNotFound());
+    }
+
+    private Mono<Order> markPaid(Order order, String method) {
+        order.setPaymentStatus("SUCCESS");
+        order.setStatus("PAID");
+        String receiptUrl = "/receipt/" + order.getId();
+        order.setReceiptUrl(receiptUrl);
+        order.setReceiptQrCode(receiptUrl);
+        return orderRepository.save(order)
+                .doOnNext(saved -> {
+                    scanBillMetrics.paymentRecorded(saved.getStoreId(), method, "SUCCESS");
+                    storeEventBroadcaster.paymentStatus(saved);
+                    receiptService.evict(saved.getId());
+                });
+    }
+
+    private static Map<String, Object> paidResponse(Order order) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("orderId", order.getId());
+        response.put("receiptUrl", order.getReceiptUrl());
+        return response;
+    }
+
+    private static Map<String, Object> orderNotFound() {
+        return Map.of("error", "Order not found");
+    }
+}
@@ -1,50 +1,89 @@
 package com.example.scanbill.controller;
 
-import com.example.scanbill.model.Order;
-import com.example.scanbill.repository.OrderRepository;
+import com.example.scanbill.service.ReceiptService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/receipts")
 @RequiredArgsConstructor
 public class ReceiptController {
+    private static final MediaType TEXT = new MediaType("text", "plain", StandardCharsets.UTF_8);
 
-    private final OrderRepository orderRepository;
+    private final ReceiptService receiptService;
 
     /**
      * Get receipt data for an order
      */
     @GetMapping("/{orderId}")
-    public ResponseEntity<Map<String, Object>> getReceipt(@PathVariable String orderId) {
-        Optional<Order> orderOpt = orderRepository.findById(orderId);
-        if (orderOpt.isEmpty()) {
+    public ResponseEntity<byte[]> getReceipt(@PathVariable String orderId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return respond(orderId, "json", MediaType.APPLICATION_JSON, ReceiptService.Rendered::json, ifNoneMatch);
+    }
+
+    /**
+     * The receipt as a fixed-width text slip.
+     */
+    @GetMapping("/{orderId}/text")
+    public ResponseEntity<byte[]> getReceiptText(@PathVariable String orderId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return respond(orderId, "text", TEXT, ReceiptService.Rendered::text, ifNoneMatch);
+    }
+
+    /**
+     * The text slip as ESC/POS bytes, ready to send to a thermal printer.
+     */
+    @GetMapping("/{orderId}/escpos")
+    public ResponseEntity<byte[]> getReceiptEscPos(@PathVariable String orderId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return respond(orderId, "escpos", MediaType.APPLICATION_OCTET_STREAM, ReceiptService.Rendered::escPos,
+                ifNoneMatch);
+    }
+
+    /**
+     * Settled receipts may be cached by the client for a day; others must be
+     * revalidated, which costs a 304 when nothing changed.
+     */
+    private ResponseEntity<byte[]> respond(String orderId, String format, MediaType type,
+            Function<ReceiptService.Rendered, byte[]> body, String ifNoneMatch) {
+        Optional<ReceiptService.Rendered> receipt = receiptService.getReceipt(orderId);
+        if (receipt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        ReceiptService.Rendered rendered = receipt.get();
+        String etag = "\"" + rendered.etag() + "." + format + "\"";
+        CacheControl cacheControl = rendered.settled() ? CacheControl.maxAge(1, TimeUnit.DAYS).cachePrivate()
+                : CacheControl.noCache();
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).contentType(type)
+                .body(body.apply(rendered));
+    }
 
-        Order order = orderOpt.get();
-
-        Map<String, Object> receipt = new HashMap<>();
-        receipt.put("orderId", order.getId());
-        receipt.put("customerName", order.getCustomerName());
-        receipt.put("customerMobile", order.getCustomerMobile());
-        receipt.put("items", order.getItems());
-        receipt.put("subtotal", order.getSubtotal());
-        receipt.put("taxAmount", order.getTaxAmount());
-        receipt.put("discountAmount", order.getDiscountAmount());
-        receipt.put("totalAmount", order.getTotalAmount());
-        receipt.put("paymentMethod", order.getPaymentMethod());
-        receipt.put("paymentStatus", order.getPaymentStatus());
-        receipt.put("paymentId", order.getPaymentId());
-        receipt.put("timestamp", order.getTimestamp());
-        receipt.put("status", order.getStatus());
-        receipt.put("receiptUrl", order.getReceiptUrl());
-
-        return ResponseEntity.ok(receipt);
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag) || tag.equals("*")) {
+                return true;
+            }
+        }
+        return false;
     }
 }
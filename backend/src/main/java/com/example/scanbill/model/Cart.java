@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.ArrayList;
@@ -17,11 +18,32 @@ import java.util.List;
 public class Cart {
     @Id
     private String id;
+    @Indexed(name = "userId_unique", unique = true)
     private String userId;
     private List<CartItem> items = new ArrayList<>();
-    private double totalAmount;
+    private long subtotalPaise;
+    private long taxPaise;
+    private long discountPaise;
+    private long totalPaise;
     private String storeId;
 
     @Version
     private Long version;
+
+    // Rupee views for API clients
+    public double getTotalAmount() {
+        return totalPaise / 100.0;
+    }
+
+    public double getSubtotal() {
+        return subtotalPaise / 100.0;
+    }
+
+    public double getTaxAmount() {
+        return taxPaise / 100.0;
+    }
+
+    public double getDiscountAmount() {
+        return discountPaise / 100.0;
+    }
 }
@@ -0,0 +1,15 @@
+package com.example.scanbill.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartBatchResult {
+    private Cart cart;
+    private List<ScanResult> results; // In request order, adds first
+}
@@ -10,7 +10,31 @@ import lombok.NoArgsConstructor;
 public class CartItem {
     private String productId;
     private String productName;
-    private double price;
+    private long pricePaise; // Unit price, tax inclusive
+    private long taxPaise; // Tax contained in the unit price
+    private long discountPaise; // Per-unit discount off the price
     private int quantity;
     private String serialNumber;
+    private String barcode;
+
+    // Rupee views for API clients
+    public double getPrice() {
+        return pricePaise / 100.0;
+    }
+
+    public long lineSubtotalPaise() {
+        return (pricePaise - taxPaise) * quantity;
+    }
+
+    public long lineTaxPaise() {
+        return taxPaise * quantity;
+    }
+
+    public long lineDiscountPaise() {
+        return discountPaise * quantity;
+    }
+
+    public long lineTotalPaise() {
+        return (pricePaise - discountPaise) * quantity;
+    }
 }
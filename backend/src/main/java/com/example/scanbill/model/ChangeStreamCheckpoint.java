@@ -0,0 +1,27 @@
+package com.example.scanbill.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Where one node's change stream on one collection left off, so a restart
+ * resumes after the last event it saw. Checkpoints of nodes that went away are
+ * deleted by Mongo a week after their last update.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "change_stream_checkpoints")
+public class ChangeStreamCheckpoint {
+    @Id
+    private String id; // nodeId:collection
+    private String resumeToken; // Extended JSON of the stream's resume token
+    @Indexed(name = "updatedAt_ttl", expireAfter = "7d")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,15 @@
+package com.example.scanbill.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Changes to {@code collection} may have been missed, e.g. because the stream
+ * could not resume from its checkpoint. Anything derived from it should be
+ * dropped rather than patched.
+ */
+@Data
+@AllArgsConstructor
+public class ChangeStreamResetEvent {
+    private String collection;
+}
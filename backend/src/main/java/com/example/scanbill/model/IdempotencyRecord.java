@@ -0,0 +1,30 @@
+package com.example.scanbill.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * The outcome of one idempotent request, so a retry with the same key gets the
+ * first response back instead of repeating the work. Mongo deletes the record
+ * once {@code expiresAt} has passed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+    @Id
+    private String id; // scope:key
+    private String fingerprint; // What the key was first used for, e.g. userId:storeId
+    private String status; // IN_PROGRESS, COMPLETED
+    private Object response;
+    private LocalDateTime lockedUntil; // Another node may take over an IN_PROGRESS key after this
+    @Indexed(name = "expiresAt_ttl", expireAfter = "0s")
+    private LocalDateTime expiresAt;
+}
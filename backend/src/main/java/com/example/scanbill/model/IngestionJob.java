@@ -0,0 +1,41 @@
+package com.example.scanbill.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One stock receipt being written to {@code inventory_items}. Every line has its
+ * serial block reserved up front, so a failed job can be resumed without the
+ * original manifest and without minting different serials.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "ingestion_jobs")
+@CompoundIndex(name = "store_createdAt", def = "{'storeId': 1, 'createdAt': -1}")
+public class IngestionJob {
+    @Id
+    private String id;
+    private String storeId;
+    private String source; // STOCK, PRODUCT, CSV
+    private String status; // RUNNING, COMPLETED, FAILED
+    private long totalUnits;
+    private long insertedUnits;
+    private List<IngestionLine> lines = new ArrayList<>();
+    private List<String> rejected = new ArrayList<>(); // Manifest rows that were skipped, with the reason
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public double getProgress() {
+        return totalUnits == 0 ? 100.0 : insertedUnits * 100.0 / totalUnits;
+    }
+}
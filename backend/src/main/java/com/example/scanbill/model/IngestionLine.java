@@ -0,0 +1,15 @@
+package com.example.scanbill.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionLine {
+    private String barcode;
+    private int quantity;
+    private long firstSequence; // Serials are firstSequence .. firstSequence + quantity - 1; 0 until reserved
+    private int inserted;
+}
@@ -0,0 +1,16 @@
+package com.example.scanbill.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A write to {@code inventory_items} from any node. {@code item} is the unit as
+ * it is now, or null for a delete or a unit removed before it could be read.
+ */
+@Data
+@AllArgsConstructor
+public class InventoryChangeEvent {
+    private String operation; // insert, update, replace, delete
+    private String id;
+    private InventoryItem item;
+}
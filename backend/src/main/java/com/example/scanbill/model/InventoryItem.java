@@ -5,19 +5,30 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.LocalDateTime;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "inventory_items")
+@CompoundIndex(name = "barcode_status_store", def = "{'barcode': 1, 'status': 1, 'storeId': 1}")
 public class InventoryItem {
     @Id
     private String id;
     private String barcode;
+    @Indexed(name = "serialNumber_unique", unique = true)
     private String serialNumber;
-    private String status; // AVAILABLE, SOLD
+    private String status; // AVAILABLE, RESERVED, SOLD
     private String storeId;
+    @Indexed(name = "claimToken", sparse = true)
+    private String claimToken; // Checkout that claimed the unit
+    private String heldBy; // User whose cart holds the unit while RESERVED
+    @Indexed(name = "heldUntil_reserved", partialFilter = "{ 'status': 'RESERVED' }")
+    private LocalDateTime heldUntil; // After this the hold lapses and the sweeper frees the unit
 
     @Version
     private Long version;
@@ -5,6 +5,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -14,21 +16,23 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "orders")
+@CompoundIndex(name = "store_timestamp_id", def = "{'storeId': 1, 'timestamp': -1, '_id': -1}")
 public class Order {
     @Id
     private String id;
     private String userId;
     private List<CartItem> items;
-    private double totalAmount;
-    private double subtotal;
-    private double taxAmount;
-    private double discountAmount;
+    private long totalPaise;
+    private long subtotalPaise;
+    private long taxPaise;
+    private long discountPaise;
     private String status; // PENDING, PAID, FAILED
     private LocalDateTime timestamp;
     private String customerName;
     private String customerMobile;
     private String customerEmail;
     private String storeId;
+    @Indexed(name = "idempotencyKey_unique", unique = true, sparse = true)
     private String idempotencyKey;
 
     // Payment fields
@@ -42,4 +46,21 @@ public class Order {
 
     @Version
     private Long version;
+
+    // Rupee views for API clients
+    public double getTotalAmount() {
+        return totalPaise / 100.0;
+    }
+
+    public double getSubtotal() {
+        return subtotalPaise / 100.0;
+    }
+
+    public double getTaxAmount() {
+        return taxPaise / 100.0;
+    }
+
+    public double getDiscountAmount() {
+        return discountPaise / 100.0;
+    }
 }
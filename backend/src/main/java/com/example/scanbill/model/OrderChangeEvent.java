@@ -0,0 +1,16 @@
+package com.example.scanbill.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * An order written by any node, as delivered by the change stream. {@code order}
+ * is the current document, or null once the order has been deleted.
+ */
+@Data
+@AllArgsConstructor
+public class OrderChangeEvent {
+    private String operation; // insert, update, replace, delete
+    private String id;
+    private Order order;
+}
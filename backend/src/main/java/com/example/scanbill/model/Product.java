@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
@@ -14,12 +15,14 @@ import org.springframework.data.mongodb.core.mapping.Document;
 public class Product {
     @Id
     private String id;
+    @Indexed(name = "barcode_unique", unique = true)
     private String barcode;
     private String name;
     private double price;
     private String category;
     private String imageUrl;
     private double basePrice;
+    @Indexed(name = "storeId")
     private String storeId;
 
     // Admin Fields
@@ -0,0 +1,16 @@
+package com.example.scanbill.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A write to {@code products} seen on the change stream, from this node or any
+ * other. {@code product} is the current document; deletes carry only the id.
+ */
+@Data
+@AllArgsConstructor
+public class ProductChangeEvent {
+    private String operation; // insert, update, replace, delete
+    private String id;
+    private Product product;
+}
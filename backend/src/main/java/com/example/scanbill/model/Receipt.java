@@ -0,0 +1,32 @@
+package com.example.scanbill.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The fields of an {@link Order} a receipt prints, read with a projection so the
+ * rest of the order document never leaves Mongo.
+ */
+@Data
+@NoArgsConstructor
+public class Receipt {
+    private String id;
+    private String storeId;
+    private List<CartItem> items;
+    private long totalPaise;
+    private long subtotalPaise;
+    private long taxPaise;
+    private long discountPaise;
+    private String status;
+    private LocalDateTime timestamp;
+    private String customerName;
+    private String customerMobile;
+    private String paymentId;
+    private String paymentMethod;
+    private String paymentStatus;
+    private String receiptUrl;
+    private Long version;
+}
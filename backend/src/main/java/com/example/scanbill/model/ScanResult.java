@@ -0,0 +1,17 @@
+package com.example.scanbill.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What happened to one serial number of a batch scan.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanResult {
+    private String serialNumber;
+    private String action; // ADD, REMOVE
+    private String status; // ADDED, REMOVED, ALREADY_IN_CART, NOT_IN_CART, NOT_FOUND, NOT_AVAILABLE, DUPLICATE
+}
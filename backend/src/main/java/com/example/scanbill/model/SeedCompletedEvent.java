@@ -0,0 +1,16 @@
+package com.example.scanbill.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * The background seeder finished writing {@code storeIds}. Anything read or
+ * derived from those stores while they were being written is partial.
+ */
+@Data
+@AllArgsConstructor
+public class SeedCompletedEvent {
+    private List<String> storeIds;
+}
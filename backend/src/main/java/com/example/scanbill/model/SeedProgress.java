@@ -0,0 +1,27 @@
+package com.example.scanbill.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * How far seeding got for one store. A store without {@code completedAt} was
+ * cut off and is seeded again at the next start; what it already wrote comes
+ * back as duplicates and is skipped.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "seed_progress")
+public class SeedProgress {
+    @Id
+    private String id; // The store's id
+    private long products;
+    private long units;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+}
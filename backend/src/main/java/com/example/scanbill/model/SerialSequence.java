@@ -0,0 +1,21 @@
+package com.example.scanbill.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Last unit sequence handed out for a barcode. Blocks are reserved with a single
+ * $inc, so concurrent receipts never mint the same serial.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "serial_sequences")
+public class SerialSequence {
+    @Id
+    private String barcode;
+    private long last;
+}
@@ -0,0 +1,28 @@
+package com.example.scanbill.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Unit counts for one product in one store, so a product view reads one small
+ * document instead of every unit.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "stock_levels")
+public class StockLevel {
+    @Id
+    private String id; // storeId:barcode
+    private String storeId;
+    private String barcode;
+    private long available;
+    private long sold;
+    // Set while the first count is running; writers leave such a counter alone
+    private LocalDateTime buildingSince;
+}
@@ -0,0 +1,29 @@
+package com.example.scanbill.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Per-store, per-day rollup of checkout totals. Amounts are in paise so that
+ * repeated $inc updates never accumulate floating point drift.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "store_daily_stats")
+@CompoundIndex(name = "store_day", def = "{'storeId': 1, 'day': 1}")
+public class StoreDailyStats {
+    @Id
+    private String id; // storeId:yyyy-MM-dd
+    private String storeId;
+    private String day; // ISO date, sorts lexically
+    private long revenuePaise;
+    private long orderCount;
+    private long itemsSold;
+    private long taxPaise;
+    private long profitPaise;
+}
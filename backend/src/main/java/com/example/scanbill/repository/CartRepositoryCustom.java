@@ -0,0 +1,36 @@
+package com.example.scanbill.repository;
+
+import com.example.scanbill.model.Cart;
+import com.example.scanbill.model.CartItem;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface CartRepositoryCustom {
+    /**
+     * Appends {@code item} to the user's cart with a single $push/$inc, creating
+     * the cart if needed. Returns the updated cart, or empty if the serial number
+     * is already in it.
+     */
+    Optional<Cart> pushItem(String userId, String storeId, CartItem item);
+
+    /**
+     * Removes {@code item} with a single $pull/$inc guarded on the serial number
+     * still being present. Returns the updated cart, or empty if it was not there.
+     */
+    Optional<Cart> pullItem(String userId, CartItem item);
+
+    /**
+     * Removes the given serial numbers and recomputes the totals server side in one
+     * update, leaving any line added concurrently in place.
+     */
+    void removeItems(String userId, Collection<String> serialNumbers);
+
+    /**
+     * Drops {@code remove} and appends each of {@code add} not already in the cart,
+     * recomputing totals, in one update that creates the cart if needed. Returns
+     * the cart as it was before, or empty if it was just created.
+     */
+    Optional<Cart> applyBatch(String userId, String storeId, List<CartItem> add, Collection<String> remove);
+}
@@ -0,0 +1,158 @@
+package com.example.scanbill.repository;
+
+import com.example.scanbill.model.Cart;
+import com.example.scanbill.model.CartItem;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class CartRepositoryImpl implements CartRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<Cart> pushItem(String userId, String storeId, CartItem item) {
+        Query query = pushQuery(userId, item);
+        Update update = pushUpdate(storeId, item);
+        try {
+            return Optional.of(mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().returnNew(true).upsert(true), Cart.class));
+        } catch (DuplicateKeyException e) {
+            // No match and the upsert collided on the unique userId: either the serial is
+            // already in the cart, or another request created the cart first. Retry
+            // without the upsert to tell the two apart.
+            return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().returnNew(true), Cart.class));
+        }
+    }
+
+    @Override
+    public Optional<Cart> pullItem(String userId, CartItem item) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(pullQuery(userId, item), pullUpdate(item),
+                FindAndModifyOptions.options().returnNew(true), Cart.class));
+    }
+
+    @Override
+    public void removeItems(String userId, Collection<String> serialNumbers) {
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Cart.class))
+                .updateOne(new Document("userId", userId), removeItemsPipeline(serialNumbers));
+    }
+
+    @Override
+    public Optional<Cart> applyBatch(String userId, String storeId, List<CartItem> add,
+            Collection<String> remove) {
+        List<Object> added = new ArrayList<>(add.size());
+        for (CartItem item : add) {
+            added.add(mongoTemplate.getConverter().convertToMongoType(item));
+        }
+        List<Bson> pipeline = applyBatchPipeline(storeId, added, remove);
+        MongoCollection<Document> carts = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Cart.class));
+        Document before;
+        try {
+            before = carts.findOneAndUpdate(new Document("userId", userId), pipeline,
+                    new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.BEFORE));
+        } catch (MongoException e) {
+            if (ErrorCategory.fromErrorCode(e.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                throw e;
+            }
+            // Another request created the cart first; it exists now
+            before = carts.findOneAndUpdate(new Document("userId", userId), pipeline,
+                    new FindOneAndUpdateOptions().returnDocument(ReturnDocument.BEFORE));
+        }
+        return Optional.ofNullable(before).map(doc -> mongoTemplate.getConverter().read(Cart.class, doc));
+    }
+
+    static Query pushQuery(String userId, CartItem item) {
+        return new Query(Criteria.where("userId").is(userId)
+                .and("items.serialNumber").ne(item.getSerialNumber()));
+    }
+
+    static Update pushUpdate(String storeId, CartItem item) {
+        return new Update()
+                .push("items", item)
+                .inc("subtotalPaise", item.lineSubtotalPaise())
+                .inc("taxPaise", item.lineTaxPaise())
+                .inc("discountPaise", item.lineDiscountPaise())
+                .inc("totalPaise", item.lineTotalPaise())
+                .inc("version", 1)
+                .setOnInsert("storeId", storeId);
+    }
+
+    static Query pullQuery(String userId, CartItem item) {
+        return new Query(Criteria.where("userId").is(userId)
+                .and("items.serialNumber").is(item.getSerialNumber()));
+    }
+
+    static Update pullUpdate(CartItem item) {
+        return new Update()
+                .pull("items", new Document("serialNumber", item.getSerialNumber()))
+                .inc("subtotalPaise", -item.lineSubtotalPaise())
+                .inc("taxPaise", -item.lineTaxPaise())
+                .inc("discountPaise", -item.lineDiscountPaise())
+                .inc("totalPaise", -item.lineTotalPaise())
+                .inc("version", 1);
+    }
+
+    static List<Bson> removeItemsPipeline(Collection<String> serialNumbers) {
+        return List.of(
+                new Document("$set", new Document("items", withoutSerials(serialNumbers))),
+                recomputeTotals());
+    }
+
+    /**
+     * Stage one rebuilds the lines from the stored ones, which the new lines are
+     * also checked against, so a serial already in the cart is never added twice.
+     */
+    static List<Bson> applyBatchPipeline(String storeId, List<Object> added, Collection<String> remove) {
+        Document newLines = new Document("$filter", new Document()
+                .append("input", new Document("$literal", added))
+                .append("cond", new Document("$not", List.of(new Document("$in", List.of("$$this.serialNumber",
+                        new Document("$ifNull", List.of("$items.serialNumber", List.of()))))))));
+        return List.of(
+                new Document("$set", new Document()
+                        .append("items", new Document("$concatArrays", List.of(withoutSerials(remove), newLines)))
+                        .append("storeId", new Document("$ifNull", List.of("$storeId", storeId)))),
+                recomputeTotals());
+    }
+
+    private static Document withoutSerials(Collection<String> serialNumbers) {
+        return new Document("$filter", new Document()
+                .append("input", new Document("$ifNull", List.of("$items", List.of())))
+                .append("cond", new Document("$not",
+                        List.of(new Document("$in", List.of("$$this.serialNumber", new ArrayList<>(serialNumbers)))))));
+    }
+
+    private static Document recomputeTotals() {
+        return new Document("$set", new Document()
+                .append("subtotalPaise", sumOfLines(
+                        new Document("$subtract", List.of("$$this.pricePaise", "$$this.taxPaise"))))
+                .append("taxPaise", sumOfLines("$$this.taxPaise"))
+                .append("discountPaise", sumOfLines("$$this.discountPaise"))
+                .append("totalPaise", sumOfLines(
+                        new Document("$subtract", List.of("$$this.pricePaise", "$$this.discountPaise"))))
+                .append("version", new Document("$add",
+                        List.of(new Document("$ifNull", List.of("$version", 0L)), 1L))));
+    }
+
+    private static Document sumOfLines(Object perUnit) {
+        return new Document("$sum", new Document("$map", new Document()
+                .append("input", "$items")
+                .append("in", new Document("$multiply", List.of(perUnit, "$$this.quantity")))));
+    }
+}
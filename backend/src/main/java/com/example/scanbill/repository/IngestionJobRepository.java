@@ -0,0 +1,10 @@
+package com.example.scanbill.repository;
+
+import com.example.scanbill.model.IngestionJob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface IngestionJobRepository extends MongoRepository<IngestionJob, String> {
+    List<IngestionJob> findTop20ByStoreIdOrderByCreatedAtDesc(String storeId);
+}
@@ -1,12 +1,24 @@
 package com.example.scanbill.repository;
 
 import com.example.scanbill.model.InventoryItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface InventoryItemRepository extends MongoRepository<InventoryItem, String> {
+public interface InventoryItemRepository
+        extends MongoRepository<InventoryItem, String>, InventoryItemRepositoryCustom {
     Optional<InventoryItem> findBySerialNumber(String serialNumber);
 
+    List<InventoryItem> findBySerialNumberIn(Collection<String> serialNumbers);
+
     List<InventoryItem> findByBarcodeAndStatusAndStoreId(String barcode, String status, String storeId);
+
+    @Query(value = "{ 'barcode': ?0, 'status': ?1, 'storeId': ?2 }",
+            fields = "{ 'barcode': 1, 'serialNumber': 1, 'status': 1 }")
+    List<InventoryItem> findUnits(String barcode, String status, String storeId, Pageable pageable);
+
+    long countByBarcodeAndStatusAndStoreId(String barcode, String status, String storeId);
 }
@@ -0,0 +1,58 @@
+package com.example.scanbill.repository;
+
+import com.example.scanbill.model.InventoryItem;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+public interface InventoryItemRepositoryCustom {
+    /**
+     * Flips every unit in {@code serialNumbers} that is still {@code fromStatus} to
+     * {@code toStatus} in a single conditional update, tagging it with
+     * {@code claimToken}. Returns the number of units actually claimed.
+     */
+    long claimUnits(Collection<String> serialNumbers, String fromStatus, String toStatus, String claimToken);
+
+    /**
+     * Undoes a partial {@link #claimUnits} by restoring only the units that carry
+     * {@code claimToken}.
+     */
+    long releaseClaim(String claimToken, String restoreStatus);
+
+    /**
+     * Puts a hold for {@code userId} on the unit until {@code until}, if it is
+     * AVAILABLE, already held by that user, or held by someone whose hold lapsed
+     * before {@code now}. Returns the held unit, or empty if it could not be held.
+     */
+    Optional<InventoryItem> holdUnit(String serialNumber, String userId, LocalDateTime until, LocalDateTime now);
+
+    /**
+     * {@link #holdUnit} for many units in one update. Returns how many were held.
+     */
+    long holdUnits(Collection<String> serialNumbers, String userId, LocalDateTime until, LocalDateTime now);
+
+    /**
+     * Makes the units {@code userId} holds AVAILABLE again.
+     */
+    long releaseHolds(Collection<String> serialNumbers, String userId);
+
+    /**
+     * Makes every unit whose hold lapsed before {@code now} AVAILABLE again.
+     */
+    long releaseExpiredHolds(LocalDateTime now);
+
+    /**
+     * Checkout's claim: marks SOLD, tagged with {@code claimToken}, every unit in
+     * {@code serialNumbers} that {@code userId} holds or that nobody holds. Returns
+     * the number of units claimed.
+     */
+    long convertHolds(Collection<String> serialNumbers, String userId, String claimToken, LocalDateTime now);
+
+    /**
+     * Undoes a partial {@link #convertHolds}: the units tagged with
+     * {@code claimToken} go back to being held by {@code userId} until
+     * {@code until}, so the rest of the cart keeps its holds.
+     */
+    long restoreHolds(String claimToken, String userId, LocalDateTime until);
+}
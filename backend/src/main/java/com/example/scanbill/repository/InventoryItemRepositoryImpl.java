@@ -0,0 +1,140 @@
+package com.example.scanbill.repository;
+
+import com.example.scanbill.model.InventoryItem;
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class InventoryItemRepositoryImpl implements InventoryItemRepositoryCustom {
+    private static final String AVAILABLE = "AVAILABLE";
+    private static final String RESERVED = "RESERVED";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public long claimUnits(Collection<String> serialNumbers, String fromStatus, String toStatus, String claimToken) {
+        UpdateResult result = mongoTemplate.updateMulti(claimQuery(serialNumbers, fromStatus),
+                claimUpdate(toStatus, claimToken), InventoryItem.class);
+        return result.getModifiedCount();
+    }
+
+    @Override
+    public long releaseClaim(String claimToken, String restoreStatus) {
+        UpdateResult result = mongoTemplate.updateMulti(releaseQuery(claimToken), releaseUpdate(restoreStatus),
+                InventoryItem.class);
+        return result.getModifiedCount();
+    }
+
+    @Override
+    public Optional<InventoryItem> holdUnit(String serialNumber, String userId, LocalDateTime until,
+            LocalDateTime now) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(holdQuery(List.of(serialNumber), userId, now),
+                holdUpdate(userId, until), FindAndModifyOptions.options().returnNew(true), InventoryItem.class));
+    }
+
+    @Override
+    public long holdUnits(Collection<String> serialNumbers, String userId, LocalDateTime until,
+            LocalDateTime now) {
+        return mongoTemplate.updateMulti(holdQuery(serialNumbers, userId, now), holdUpdate(userId, until),
+                InventoryItem.class).getModifiedCount();
+    }
+
+    @Override
+    public long releaseHolds(Collection<String> serialNumbers, String userId) {
+        return mongoTemplate.updateMulti(heldQuery(serialNumbers, userId), freeUpdate(), InventoryItem.class)
+                .getModifiedCount();
+    }
+
+    @Override
+    public long releaseExpiredHolds(LocalDateTime now) {
+        return mongoTemplate.updateMulti(new Query(Criteria.where("status").is(RESERVED).and("heldUntil").lt(now)),
+                freeUpdate(), InventoryItem.class).getModifiedCount();
+    }
+
+    @Override
+    public long convertHolds(Collection<String> serialNumbers, String userId, String claimToken,
+            LocalDateTime now) {
+        return mongoTemplate.updateMulti(holdQuery(serialNumbers, userId, now), convertUpdate(claimToken),
+                InventoryItem.class).getModifiedCount();
+    }
+
+    @Override
+    public long restoreHolds(String claimToken, String userId, LocalDateTime until) {
+        return mongoTemplate.updateMulti(releaseQuery(claimToken), restoreUpdate(userId, until),
+                InventoryItem.class).getModifiedCount();
+    }
+
+    /**
+     * Units {@code userId} may take: free ones, their own holds, and holds that
+     * lapsed but have not been swept yet.
+     */
+    static Query holdQuery(Collection<String> serialNumbers, String userId, LocalDateTime now) {
+        return new Query(Criteria.where("serialNumber").in(serialNumbers).orOperator(
+                Criteria.where("status").is(AVAILABLE),
+                Criteria.where("status").is(RESERVED).and("heldBy").is(userId),
+                Criteria.where("status").is(RESERVED).and("heldUntil").lt(now)));
+    }
+
+    static Update holdUpdate(String userId, LocalDateTime until) {
+        return new Update()
+                .set("status", RESERVED)
+                .set("heldBy", userId)
+                .set("heldUntil", until)
+                .inc("version", 1);
+    }
+
+    static Query heldQuery(Collection<String> serialNumbers, String userId) {
+        return new Query(Criteria.where("serialNumber").in(serialNumbers)
+                .and("status").is(RESERVED).and("heldBy").is(userId));
+    }
+
+    static Update freeUpdate() {
+        return new Update()
+                .set("status", AVAILABLE)
+                .unset("heldBy")
+                .unset("heldUntil")
+                .inc("version", 1);
+    }
+
+    static Update convertUpdate(String claimToken) {
+        return claimUpdate("SOLD", claimToken).unset("heldBy").unset("heldUntil");
+    }
+
+    static Update restoreUpdate(String userId, LocalDateTime until) {
+        return holdUpdate(userId, until).unset("claimToken");
+    }
+
+    static Query claimQuery(Collection<String> serialNumbers, String fromStatus) {
+        return new Query(Criteria.where("serialNumber").in(serialNumbers).and("status").is(fromStatus));
+    }
+
+    static Update claimUpdate(String toStatus, String claimToken) {
+        return new Update()
+                .set("status", toStatus)
+                .set("claimToken", claimToken)
+                .inc("version", 1);
+    }
+
+    static Query releaseQuery(String claimToken) {
+        return new Query(Criteria.where("claimToken").is(claimToken));
+    }
+
+    static Update releaseUpdate(String restoreStatus) {
+        return new Update()
+                .set("status", restoreStatus)
+                .unset("claimToken")
+                .unset("heldBy")
+                .unset("heldUntil")
+                .inc("version", 1);
+    }
+}
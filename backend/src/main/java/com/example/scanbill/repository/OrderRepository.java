@@ -1,11 +1,13 @@
 package com.example.scanbill.repository;
 
 import com.example.scanbill.model.Order;
+import com.example.scanbill.model.Receipt;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import java.util.List;
 
-public interface OrderRepository extends MongoRepository<Order, String> {
-    List<Order> findByStoreId(String storeId);
-
+public interface OrderRepository extends MongoRepository<Order, String>, OrderRepositoryCustom {
     java.util.Optional<Order> findByIdempotencyKey(String idempotencyKey);
+
+    // Reads only the fields declared on Receipt
+    java.util.Optional<Receipt> findReceiptById(String id);
 }
@@ -0,0 +1,23 @@
+package com.example.scanbill.repository;
+
+import com.example.scanbill.model.Order;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface OrderRepositoryCustom {
+    /**
+     * Keyset page of a store's orders, newest first, ordered by (timestamp, id).
+     * Pass the last order of the previous page as {@code afterTimestamp}/{@code afterId}
+     * (both null for the first page). {@code from}/{@code to} are optional bounds.
+     */
+    List<Order> findPage(String storeId, LocalDateTime from, LocalDateTime to,
+            LocalDateTime afterTimestamp, String afterId, int limit);
+
+    /**
+     * Cursor-backed stream over a store's orders in the same order as
+     * {@link #findPage}. Callers must close the stream.
+     */
+    Stream<Order> streamByStore(String storeId, LocalDateTime from, LocalDateTime to);
+}
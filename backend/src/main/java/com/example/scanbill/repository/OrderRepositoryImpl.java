@@ -0,0 +1,53 @@
+package com.example.scanbill.repository;
+
+import com.example.scanbill.model.Order;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class OrderRepositoryImpl implements OrderRepositoryCustom {
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "timestamp", "id");
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Order> findPage(String storeId, LocalDateTime from, LocalDateTime to,
+            LocalDateTime afterTimestamp, String afterId, int limit) {
+        Criteria criteria = storeCriteria(storeId, from, to);
+        if (afterTimestamp != null && afterId != null) {
+            criteria = new Criteria().andOperator(criteria, new Criteria().orOperator(
+                    Criteria.where("timestamp").lt(afterTimestamp),
+                    Criteria.where("timestamp").is(afterTimestamp).and("id").lt(afterId)));
+        }
+        Query query = new Query(criteria).with(NEWEST_FIRST).limit(limit);
+        return mongoTemplate.find(query, Order.class);
+    }
+
+    @Override
+    public Stream<Order> streamByStore(String storeId, LocalDateTime from, LocalDateTime to) {
+        Query query = new Query(storeCriteria(storeId, from, to))
+                .with(NEWEST_FIRST)
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+        return mongoTemplate.stream(query, Order.class);
+    }
+
+    private Criteria storeCriteria(String storeId, LocalDateTime from, LocalDateTime to) {
+        Criteria criteria = Criteria.where("storeId").is(storeId);
+        if (from != null && to != null) {
+            criteria = criteria.and("timestamp").gte(from).lt(to);
+        } else if (from != null) {
+            criteria = criteria.and("timestamp").gte(from);
+        } else if (to != null) {
+            criteria = criteria.and("timestamp").lt(to);
+        }
+        return criteria;
+    }
+}
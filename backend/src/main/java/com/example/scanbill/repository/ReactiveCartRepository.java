@@ -0,0 +1,9 @@
+package com.example.scanbill.repository;
+
+import com.example.scanbill.model.Cart;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCartRepository extends ReactiveMongoRepository<Cart, String>, ReactiveCartRepositoryCustom {
+    Mono<Cart> findByUserId(String userId);
+}
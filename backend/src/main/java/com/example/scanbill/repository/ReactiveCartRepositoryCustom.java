@@ -0,0 +1,19 @@
+package com.example.scanbill.repository;
+
+import com.example.scanbill.model.Cart;
+import com.example.scanbill.model.CartItem;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Non-blocking counterpart of {@link CartRepositoryCustom}; same updates, empty
+ * {@code Mono} where the blocking version returns an empty {@code Optional}.
+ */
+public interface ReactiveCartRepositoryCustom {
+    Mono<Cart> pushItem(String userId, String storeId, CartItem item);
+
+    Mono<Cart> pullItem(String userId, CartItem item);
+
+    Mono<Void> removeItems(String userId, Collection<String> serialNumbers);
+}
@@ -0,0 +1,45 @@
+package com.example.scanbill.repository;
+
+import com.example.scanbill.model.Cart;
+import com.example.scanbill.model.CartItem;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+@RequiredArgsConstructor
+public class ReactiveCartRepositoryImpl implements ReactiveCartRepositoryCustom {
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<Cart> pushItem(String userId, String storeId, CartItem item) {
+        Query query = CartRepositoryImpl.pushQuery(userId, item);
+        Update update = CartRepositoryImpl.pushUpdate(storeId, item);
+        return mongoTemplate.findAndModify(query, update,
+                        FindAndModifyOptions.options().returnNew(true).upsert(true), Cart.class)
+                // Same disambiguation as the blocking repository: serial already present
+                // versus a concurrent cart creation.
+                .onErrorResume(DuplicateKeyException.class, e -> mongoTemplate.findAndModify(query, update,
+                        FindAndModifyOptions.options().returnNew(true), Cart.class));
+    }
+
+    @Override
+    public Mono<Cart> pullItem(String userId, CartItem item) {
+        return mongoTemplate.findAndModify(CartRepositoryImpl.pullQuery(userId, item),
+                CartRepositoryImpl.pullUpdate(item), FindAndModifyOptions.options().returnNew(true), Cart.class);
+    }
+
+    @Override
+    public Mono<Void> removeItems(String userId, Collection<String> serialNumbers) {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Cart.class))
+                .flatMap(collection -> Mono.from(collection.updateOne(new Document("userId", userId),
+                        CartRepositoryImpl.removeItemsPipeline(serialNumbers))))
+                .then();
+    }
+}
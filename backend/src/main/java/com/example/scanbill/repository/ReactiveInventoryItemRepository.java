@@ -0,0 +1,13 @@
+package com.example.scanbill.repository;
+
+import com.example.scanbill.model.InventoryItem;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveInventoryItemRepository
+        extends ReactiveMongoRepository<InventoryItem, String>, ReactiveInventoryItemRepositoryCustom {
+    Mono<InventoryItem> findBySerialNumber(String serialNumber);
+
+    Flux<InventoryItem> findByBarcodeAndStatusAndStoreId(String barcode, String status, String storeId);
+}
@@ -0,0 +1,26 @@
+package com.example.scanbill.repository;
+
+import com.example.scanbill.model.InventoryItem;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Non-blocking counterpart of {@link InventoryItemRepositoryCustom}.
+ */
+public interface ReactiveInventoryItemRepositoryCustom {
+    Mono<Long> claimUnits(Collection<String> serialNumbers, String fromStatus, String toStatus, String claimToken);
+
+    Mono<Long> releaseClaim(String claimToken, String restoreStatus);
+
+    Mono<InventoryItem> holdUnit(String serialNumber, String userId, LocalDateTime until, LocalDateTime now);
+
+    Mono<Long> holdUnits(Collection<String> serialNumbers, String userId, LocalDateTime until, LocalDateTime now);
+
+    Mono<Long> releaseHolds(Collection<String> serialNumbers, String userId);
+
+    Mono<Long> convertHolds(Collection<String> serialNumbers, String userId, String claimToken, LocalDateTime now);
+
+    Mono<Long> restoreHolds(String claimToken, String userId, LocalDateTime until);
+}
@@ -0,0 +1,69 @@
+package com.example.scanbill.repository;
+
+import com.example.scanbill.model.InventoryItem;
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ReactiveInventoryItemRepositoryImpl implements ReactiveInventoryItemRepositoryCustom {
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<Long> claimUnits(Collection<String> serialNumbers, String fromStatus, String toStatus,
+            String claimToken) {
+        return mongoTemplate.updateMulti(InventoryItemRepositoryImpl.claimQuery(serialNumbers, fromStatus),
+                InventoryItemRepositoryImpl.claimUpdate(toStatus, claimToken), InventoryItem.class)
+                .map(UpdateResult::getModifiedCount);
+    }
+
+    @Override
+    public Mono<Long> releaseClaim(String claimToken, String restoreStatus) {
+        return mongoTemplate.updateMulti(InventoryItemRepositoryImpl.releaseQuery(claimToken),
+                InventoryItemRepositoryImpl.releaseUpdate(restoreStatus), InventoryItem.class)
+                .map(UpdateResult::getModifiedCount);
+    }
+
+    @Override
+    public Mono<InventoryItem> holdUnit(String serialNumber, String userId, LocalDateTime until, LocalDateTime now) {
+        return mongoTemplate.findAndModify(InventoryItemRepositoryImpl.holdQuery(List.of(serialNumber), userId, now),
+                InventoryItemRepositoryImpl.holdUpdate(userId, until), FindAndModifyOptions.options().returnNew(true),
+                InventoryItem.class);
+    }
+
+    @Override
+    public Mono<Long> holdUnits(Collection<String> serialNumbers, String userId, LocalDateTime until,
+            LocalDateTime now) {
+        return mongoTemplate.updateMulti(InventoryItemRepositoryImpl.holdQuery(serialNumbers, userId, now),
+                InventoryItemRepositoryImpl.holdUpdate(userId, until), InventoryItem.class)
+                .map(UpdateResult::getModifiedCount);
+    }
+
+    @Override
+    public Mono<Long> releaseHolds(Collection<String> serialNumbers, String userId) {
+        return mongoTemplate.updateMulti(InventoryItemRepositoryImpl.heldQuery(serialNumbers, userId),
+                InventoryItemRepositoryImpl.freeUpdate(), InventoryItem.class)
+                .map(UpdateResult::getModifiedCount);
+    }
+
+    @Override
+    public Mono<Long> convertHolds(Collection<String> serialNumbers, String userId, String claimToken,
+            LocalDateTime now) {
+        return mongoTemplate.updateMulti(InventoryItemRepositoryImpl.holdQuery(serialNumbers, userId, now),
+                InventoryItemRepositoryImpl.convertUpdate(claimToken), InventoryItem.class)
+                .map(UpdateResult::getModifiedCount);
+    }
+
+    @Override
+    public Mono<Long> restoreHolds(String claimToken, String userId, LocalDateTime until) {
+        return mongoTemplate.updateMulti(InventoryItemRepositoryImpl.releaseQuery(claimToken),
+                InventoryItemRepositoryImpl.restoreUpdate(userId, until), InventoryItem.class)
+                .map(UpdateResult::getModifiedCount);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.scanbill.repository;
+
+import com.example.scanbill.model.Order;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveOrderRepository extends ReactiveMongoRepository<Order, String> {
+    Mono<Order> findByIdempotencyKey(String idempotencyKey);
+}
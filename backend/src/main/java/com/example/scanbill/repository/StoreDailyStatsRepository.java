@@ -0,0 +1,12 @@
+package com.example.scanbill.repository;
+
+import com.example.scanbill.model.StoreDailyStats;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import java.util.List;
+
+public interface StoreDailyStatsRepository extends MongoRepository<StoreDailyStats, String> {
+    List<StoreDailyStats> findByStoreIdOrderByDayAsc(String storeId);
+
+    List<StoreDailyStats> findByStoreIdAndDayBetweenOrderByDayAsc(String storeId, Range<String> days);
+}
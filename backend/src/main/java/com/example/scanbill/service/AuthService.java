@@ -5,16 +5,41 @@ import com.example.scanbill.model.Store;
 import com.example.scanbill.model.User;
 import com.example.scanbill.repository.StoreRepository;
 import com.example.scanbill.repository.UserRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
 @Service
 public class AuthService {
+    private static final Pattern BCRYPT = Pattern.compile("^\\$2[aby]?\\$\\d{2}\\$.{53}$");
+
     private final UserRepository userRepository;
     private final StoreRepository storeRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final SessionTokenService sessionTokenService;
+    // Checked against when the username is unknown, so both failures cost a hash
+    private final String unknownUserHash;
 
-    public AuthService(UserRepository userRepository, StoreRepository storeRepository) {
+    public AuthService(UserRepository userRepository, StoreRepository storeRepository,
+            PasswordEncoder passwordEncoder, SessionTokenService sessionTokenService) {
         this.userRepository = userRepository;
         this.storeRepository = storeRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.sessionTokenService = sessionTokenService;
+        this.unknownUserHash = passwordEncoder.encode("unknown-user");
+    }
+
+    /**
+     * Whether {@code password} is already a BCrypt hash rather than a legacy
+     * plaintext value.
+     */
+    public static boolean isHashed(String password) {
+        return password != null && BCRYPT.matcher(password).matches();
     }
 
     public Store registerStore(String storeName, String location, String adminUsername, String adminPassword) {
@@ -35,7 +60,7 @@ public class AuthService {
         // 2. Create Store Admin
         User admin = new User();
         admin.setUsername(adminUsername);
-        admin.setPassword(adminPassword); // In production, use BCrypt
+        admin.setPassword(passwordEncoder.encode(adminPassword));
         admin.setRole(Role.ADMIN);
         admin.setStoreId(savedStore.getId());
         userRepository.save(admin);
@@ -43,24 +68,54 @@ public class AuthService {
         return savedStore;
     }
 
+    /**
+     * An unknown username and a wrong password fail alike, in about the same time.
+     * A legacy plaintext password, or a hash below the configured strength, is
+     * re-hashed once it has been matched.
+     */
     public User login(String username, String password) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        if (!user.getPassword().equals(password)) {
+        Optional<User> found = username != null ? userRepository.findByUsername(username) : Optional.empty();
+        if (found.isEmpty() || password == null) {
+            passwordEncoder.matches(password != null ? password : "", unknownUserHash);
             throw new RuntimeException("Invalid credentials");
         }
-
+        User user = found.get();
+        String stored = user.getPassword();
+        boolean hashed = isHashed(stored);
+        boolean matches = hashed ? passwordEncoder.matches(password, stored)
+                : stored != null && MessageDigest.isEqual(stored.getBytes(StandardCharsets.UTF_8),
+                        password.getBytes(StandardCharsets.UTF_8));
+        if (!matches) {
+            throw new RuntimeException("Invalid credentials");
+        }
+        if (!hashed || passwordEncoder.upgradeEncoding(stored)) {
+            user.setPassword(passwordEncoder.encode(password));
+            try {
+                user = userRepository.save(user);
+            } catch (OptimisticLockingFailureException e) {
+                // A concurrent login upgraded it first
+                user = userRepository.findById(user.getId())
+                        .orElseThrow(() -> new RuntimeException("Invalid credentials"));
+            }
+            sessionTokenService.evict(user.getId());
+        }
         return user;
     }
 
+    /**
+     * A session token for a user who has just logged in.
+     */
+    public String issueToken(User user) {
+        return sessionTokenService.issue(user);
+    }
+
     public User registerSuperAdmin(String username, String password) {
         if (userRepository.findByUsername(username).isPresent()) {
             throw new RuntimeException("Super Admin already exists");
         }
         User superAdmin = new User();
         superAdmin.setUsername(username);
-        superAdmin.setPassword(password);
+        superAdmin.setPassword(passwordEncoder.encode(password));
         superAdmin.setRole(Role.SUPER_ADMIN);
         return userRepository.save(superAdmin);
     }
@@ -1,75 +1,249 @@
 package com.example.scanbill.service;
 
+import com.example.scanbill.component.CartStore;
+import com.example.scanbill.component.ProductCatalogCache;
+import com.example.scanbill.component.ScanBillMetrics;
 import com.example.scanbill.model.Cart;
+import com.example.scanbill.model.CartBatchResult;
 import com.example.scanbill.model.CartItem;
 import com.example.scanbill.model.InventoryItem;
 import com.example.scanbill.model.Product;
-import com.example.scanbill.repository.CartRepository;
+import com.example.scanbill.model.ScanResult;
 import com.example.scanbill.repository.InventoryItemRepository;
-import com.example.scanbill.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class CartService {
-    private final CartRepository cartRepository;
-    private final ProductRepository productRepository;
+    private static final int MAX_BATCH = 200;
+
+    private final CartStore cartStore;
+    private final ProductCatalogCache productCatalogCache;
     private final InventoryItemRepository inventoryItemRepository;
+    private final ScanBillMetrics scanBillMetrics;
+    private final InventoryHoldService inventoryHoldService;
 
     public Cart getCartByUserId(String userId, String storeId) {
-        return cartRepository.findByUserId(userId).orElseGet(() -> {
-            Cart newCart = new Cart();
-            newCart.setUserId(userId);
-            newCart.setStoreId(storeId);
-            newCart.setItems(new ArrayList<>());
-            return cartRepository.save(newCart);
-        });
+        return cartStore.getOrCreate(userId, storeId);
     }
 
     public Cart addToCart(String userId, String serialNumber, String storeId) {
+        // The hold is the availability check: it only succeeds on a unit nobody else has
+        InventoryItem invItem = inventoryHoldService.hold(serialNumber, userId)
+                .orElseThrow(() -> unavailable(serialNumber, storeId));
+
+        Optional<Product> product = productCatalogCache.findByBarcode(invItem.getBarcode());
+        if (product.isEmpty()) {
+            inventoryHoldService.release(List.of(serialNumber), userId);
+            throw new RuntimeException("Product associated with item not found");
+        }
+
+        // Single $push guarded on the serial not already being in the cart
+        return cartStore.pushItem(userId, storeId, toCartItem(product.get(), serialNumber))
+                .orElseThrow(() -> new RuntimeException("Item already in cart"));
+    }
+
+    /**
+     * Why a hold was refused, read back only on that path.
+     */
+    private RuntimeException unavailable(String serialNumber, String storeId) {
+        Optional<InventoryItem> unit = inventoryItemRepository.findBySerialNumber(serialNumber);
+        if (unit.isEmpty()) {
+            return new RuntimeException("Unique item not found");
+        }
+        scanBillMetrics.itemAlreadySold(storeId, "scan");
+        return new RuntimeException("RESERVED".equals(unit.get().getStatus())
+                ? "Item is held in another cart" : "Item is not available");
+    }
+
+    public Cart removeFromCart(String userId, String serialNumber, String storeId) {
         Cart cart = getCartByUserId(userId, storeId);
+        for (CartItem item : cart.getItems()) {
+            if (item.getSerialNumber().equals(serialNumber)) {
+                // The line's amounts are fixed once scanned, so the $inc computed from
+                // this read stays correct; the $pull is guarded on the serial being present.
+                Optional<Cart> updated = cartStore.pullItem(userId, item);
+                if (updated.isEmpty()) {
+                    return getCartByUserId(userId, storeId);
+                }
+                inventoryHoldService.release(List.of(serialNumber), userId);
+                return updated.get();
+            }
+        }
+        return cart;
+    }
 
-        // Check if item already in cart
-        if (cart.getItems().stream().anyMatch(item -> item.getSerialNumber().equals(serialNumber))) {
-            throw new RuntimeException("Item already in cart");
+    /**
+     * Applies a lane's worth of scans in a few round trips: one update holding the
+     * units, one $in query reading them back, one for any products not already
+     * cached, and one cart update. Every serial gets its own result, so one bad
+     * read does not fail the rest.
+     */
+    public CartBatchResult applyBatch(String userId, String storeId, List<String> add, List<String> remove) {
+        List<String> adds = add != null ? add : List.of();
+        List<String> removes = remove != null ? remove : List.of();
+        if (adds.size() + removes.size() > MAX_BATCH) {
+            throw new RuntimeException("At most " + MAX_BATCH + " serial numbers per batch");
         }
 
-        InventoryItem invItem = inventoryItemRepository.findBySerialNumber(serialNumber)
-                .orElseThrow(() -> new RuntimeException("Unique item not found"));
+        Set<String> seen = new HashSet<>();
+        List<ScanResult> addResults = new ArrayList<>(adds.size());
+        List<ScanResult> removeResults = new ArrayList<>(removes.size());
+        Set<String> toRemove = new LinkedHashSet<>();
+        for (String serial : adds) {
+            addResults.add(new ScanResult(serial, "ADD", seen.add(serial) ? null : "DUPLICATE"));
+        }
+        for (String serial : removes) {
+            boolean first = seen.add(serial);
+            removeResults.add(new ScanResult(serial, "REMOVE", first ? null : "DUPLICATE"));
+            if (first) {
+                toRemove.add(serial);
+            }
+        }
 
-        if (!"AVAILABLE".equals(invItem.getStatus())) {
-            throw new RuntimeException("Item is not available");
+        List<String> candidates = new ArrayList<>();
+        for (ScanResult result : addResults) {
+            if (result.getStatus() == null) {
+                candidates.add(result.getSerialNumber());
+            }
+        }
+        Map<String, InventoryItem> units = new HashMap<>();
+        if (!candidates.isEmpty()) {
+            inventoryHoldService.holdAll(candidates, userId);
+            for (InventoryItem unit : inventoryItemRepository.findBySerialNumberIn(candidates)) {
+                units.put(unit.getSerialNumber(), unit);
+            }
+        }
+        Set<String> barcodes = new HashSet<>();
+        for (ScanResult result : addResults) {
+            if (result.getStatus() != null) {
+                continue;
+            }
+            InventoryItem unit = units.get(result.getSerialNumber());
+            if (unit == null) {
+                result.setStatus("NOT_FOUND");
+            } else if (!"RESERVED".equals(unit.getStatus()) || !userId.equals(unit.getHeldBy())) {
+                scanBillMetrics.itemAlreadySold(storeId, "scan");
+                result.setStatus("NOT_AVAILABLE");
+            } else {
+                barcodes.add(unit.getBarcode());
+            }
+        }
+        Map<String, Product> products = barcodes.isEmpty() ? Map.of()
+                : productCatalogCache.findAllByBarcodes(barcodes);
+        List<CartItem> newLines = new ArrayList<>();
+        for (ScanResult result : addResults) {
+            if (result.getStatus() != null) {
+                continue;
+            }
+            Product product = products.get(units.get(result.getSerialNumber()).getBarcode());
+            if (product == null) {
+                result.setStatus("NOT_FOUND");
+                inventoryHoldService.release(List.of(result.getSerialNumber()), userId);
+            } else {
+                newLines.add(toCartItem(product, result.getSerialNumber()));
+            }
         }
 
-        Product product = productRepository.findByBarcode(invItem.getBarcode())
-                .orElseThrow(() -> new RuntimeException("Product associated with item not found"));
+        List<ScanResult> results = new ArrayList<>(addResults);
+        results.addAll(removeResults);
+        if (newLines.isEmpty() && toRemove.isEmpty()) {
+            return new CartBatchResult(getCartByUserId(userId, storeId), results);
+        }
 
-        CartItem newItem = new CartItem(product.getId(), product.getName(), product.getPrice(), 1, serialNumber);
-        cart.getItems().add(newItem);
+        Optional<Cart> before = cartStore.applyBatch(userId, storeId, newLines, toRemove);
+        Set<String> present = new HashSet<>();
+        before.ifPresent(cart -> cart.getItems().forEach(item -> present.add(item.getSerialNumber())));
+        int next = 0;
+        for (ScanResult result : addResults) {
+            if (result.getStatus() == null) {
+                result.setStatus(present.contains(newLines.get(next++).getSerialNumber())
+                        ? "ALREADY_IN_CART" : "ADDED");
+            }
+        }
+        for (ScanResult result : removeResults) {
+            if (result.getStatus() == null) {
+                result.setStatus(present.contains(result.getSerialNumber()) ? "REMOVED" : "NOT_IN_CART");
+            }
+        }
+        if (!toRemove.isEmpty()) {
+            inventoryHoldService.release(toRemove, userId);
+        }
+        return new CartBatchResult(afterBatch(userId, storeId, before, newLines, toRemove, present), results);
+    }
 
+    /**
+     * The cart after a batch, replayed from the pre-image the update returned
+     * rather than read back; only a cart the batch created is fetched.
+     */
+    private Cart afterBatch(String userId, String storeId, Optional<Cart> before, List<CartItem> newLines,
+            Set<String> removed, Set<String> present) {
+        if (before.isEmpty()) {
+            return getCartByUserId(userId, storeId);
+        }
+        Cart cart = before.get();
+        cart.getItems().removeIf(item -> removed.contains(item.getSerialNumber()));
+        for (CartItem line : newLines) {
+            if (!present.contains(line.getSerialNumber())) {
+                cart.getItems().add(line);
+            }
+        }
         calculateTotal(cart);
-        return cartRepository.save(cart);
+        cart.setVersion(cart.getVersion() == null ? 1 : cart.getVersion() + 1);
+        return cart;
     }
 
-    public Cart removeFromCart(String userId, String serialNumber, String storeId) {
-        Cart cart = getCartByUserId(userId, storeId);
-        cart.getItems().removeIf(item -> item.getSerialNumber().equals(serialNumber));
-        calculateTotal(cart);
-        return cartRepository.save(cart);
+    /**
+     * Builds the cart line for one unit of {@code product}. Catalog prices are tax
+     * inclusive, so the tax share is carved out of the price rather than added on top.
+     */
+    static CartItem toCartItem(Product product, String serialNumber) {
+        long pricePaise = Math.round(product.getPrice() * 100);
+        double taxRate = product.getTaxRate();
+        long taxPaise = taxRate > 0 ? Math.round(pricePaise * taxRate / (100 + taxRate)) : 0;
+        return new CartItem(product.getId(), product.getName(), pricePaise, taxPaise, 0, 1, serialNumber,
+                product.getBarcode());
     }
 
-    private void calculateTotal(Cart cart) {
-        double total = cart.getItems().stream()
-                .mapToDouble(item -> item.getPrice() * item.getQuantity())
-                .sum();
-        cart.setTotalAmount(total);
+    /**
+     * Recomputes every total from the items. Indexed loop over primitives so the
+     * pass allocates nothing; used where the running totals cannot be trusted.
+     */
+    public static void calculateTotal(Cart cart) {
+        List<CartItem> items = cart.getItems();
+        long subtotal = 0;
+        long tax = 0;
+        long discount = 0;
+        long total = 0;
+        for (int i = 0, n = items.size(); i < n; i++) {
+            CartItem item = items.get(i);
+            subtotal += item.lineSubtotalPaise();
+            tax += item.lineTaxPaise();
+            discount += item.lineDiscountPaise();
+            total += item.lineTotalPaise();
+        }
+        cart.setSubtotalPaise(subtotal);
+        cart.setTaxPaise(tax);
+        cart.setDiscountPaise(discount);
+        cart.setTotalPaise(total);
     }
 
-    public List<InventoryItem> getAvailableUnits(String barcode, String storeId) {
-        return inventoryItemRepository.findByBarcodeAndStatusAndStoreId(barcode, "AVAILABLE", storeId);
+    /**
+     * Up to {@code limit} available units, carrying only the fields a till needs
+     * to pick one. Totals come from {@link StockLevelService}.
+     */
+    public List<InventoryItem> getAvailableUnits(String barcode, String storeId, int limit) {
+        return inventoryItemRepository.findUnits(barcode, "AVAILABLE", storeId, PageRequest.of(0, limit));
     }
 }
@@ -0,0 +1,148 @@
+package com.example.scanbill.service;
+
+import com.example.scanbill.component.ScanBillMetrics;
+import com.mongodb.MongoException;
+import com.mongodb.ReadConcern;
+import com.mongodb.TransactionOptions;
+import com.mongodb.WriteConcern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs checkout writes in one Mongo transaction when
+ * {@code scanbill.checkout.mode=transactional} (replica set required). Only
+ * errors Mongo labels transient, such as write conflicts with another till, are
+ * retried, after a jittered backoff and only while attempts stay within their
+ * time budget. Business failures abort at once. A checkout that still conflicts
+ * after the last attempt surfaces as a 409.
+ */
+@Slf4j
+@Service
+public class CheckoutTransactionRunner {
+    private static final int WRITE_CONFLICT = 112;
+
+    private final ScanBillMetrics scanBillMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffBaseMillis;
+    private final long backoffMaxMillis;
+    private final long attemptBudgetNanos;
+
+    @Autowired
+    public CheckoutTransactionRunner(MongoDatabaseFactory databaseFactory, ScanBillMetrics scanBillMetrics,
+            @Value("${scanbill.checkout.mode:claim}") String mode,
+            @Value("${scanbill.checkout.tx.max-attempts:4}") int maxAttempts,
+            @Value("${scanbill.checkout.tx.backoff-base:10ms}") Duration backoffBase,
+            @Value("${scanbill.checkout.tx.backoff-max:200ms}") Duration backoffMax,
+            @Value("${scanbill.checkout.tx.attempt-budget:2s}") Duration attemptBudget) {
+        this("transactional".equals(mode) ? transactionTemplate(databaseFactory, attemptBudget) : null,
+                scanBillMetrics, maxAttempts, backoffBase, backoffMax, attemptBudget);
+    }
+
+    CheckoutTransactionRunner(TransactionTemplate transactionTemplate, ScanBillMetrics scanBillMetrics,
+            int maxAttempts, Duration backoffBase, Duration backoffMax, Duration attemptBudget) {
+        this.transactionTemplate = transactionTemplate;
+        this.scanBillMetrics = scanBillMetrics;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffBaseMillis = backoffBase.toMillis();
+        this.backoffMaxMillis = backoffMax.toMillis();
+        this.attemptBudgetNanos = attemptBudget.toNanos();
+    }
+
+    private static TransactionTemplate transactionTemplate(MongoDatabaseFactory databaseFactory,
+            Duration attemptBudget) {
+        TransactionOptions options = TransactionOptions.builder()
+                .readConcern(ReadConcern.SNAPSHOT)
+                .writeConcern(WriteConcern.MAJORITY)
+                .maxCommitTime(attemptBudget.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+        return new TransactionTemplate(new MongoTransactionManager(databaseFactory, options));
+    }
+
+    public boolean isEnabled() {
+        return transactionTemplate != null;
+    }
+
+    /**
+     * Runs {@code work} in a transaction, starting it again from scratch after a
+     * transient failure. {@code work} must therefore build everything it writes
+     * inside the callback.
+     */
+    public <T> T run(String storeId, Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            long started = System.nanoTime();
+            try {
+                T result = transactionTemplate.execute(status -> work.get());
+                scanBillMetrics.recordCheckoutAttempts(storeId, attempt);
+                return result;
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    throw e;
+                }
+                String reason = isWriteConflict(e) ? "write_conflict" : "transient";
+                boolean overBudget = System.nanoTime() - started > attemptBudgetNanos;
+                if (attempt >= maxAttempts || overBudget) {
+                    scanBillMetrics.recordCheckoutAttempts(storeId, attempt);
+                    scanBillMetrics.checkoutTransactionAbandoned(storeId, reason);
+                    log.warn("Checkout for store {} gave up after {} attempts ({}): {}", storeId, attempt, reason,
+                            e.getMessage());
+                    throw new OptimisticLockingFailureException("Checkout conflicted with another till", e);
+                }
+                scanBillMetrics.checkoutTransactionRetry(storeId, reason);
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Full jitter: a random wait up to an exponentially growing cap, so tills
+     * that collided once do not collide again on the same schedule.
+     */
+    private void backoff(int attempt) {
+        long cap = Math.min(backoffMaxMillis, backoffBaseMillis << Math.min(attempt - 1, 20));
+        if (cap <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying checkout", e);
+        }
+    }
+
+    /**
+     * Commit results Mongo reports as unknown are not retried here: the driver
+     * already retries the commit itself, and running the checkout again after a
+     * commit that did land would report the units as sold.
+     */
+    static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongo
+                    && mongo.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isWriteConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongo && mongo.getCode() == WRITE_CONFLICT) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.scanbill.service;
+
+import com.example.scanbill.component.ScanBillMetrics;
+import com.example.scanbill.model.IdempotencyRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per idempotency key. Duplicates that arrive while
+ * the first request is still running on this node wait for its result instead
+ * of starting their own; later ones are answered from the {@code idempotency_keys}
+ * record until it expires. A key held by another node is reported with
+ * {@link KeyInProgressException}, and its claim lapses after the lease if that
+ * node dies.
+ * <p>
+ * Failures are not recorded: the claim is dropped so the client can retry.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+    private static final String IN_PROGRESS = "IN_PROGRESS";
+    private static final String COMPLETED = "COMPLETED";
+
+    private final MongoTemplate mongoTemplate;
+    private final ScanBillMetrics scanBillMetrics;
+    private final Duration ttl;
+    private final Duration lease;
+    private final Duration waitTimeout;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(MongoTemplate mongoTemplate, ScanBillMetrics scanBillMetrics,
+            @Value("${scanbill.idempotency.ttl:24h}") Duration ttl,
+            @Value("${scanbill.idempotency.lease:30s}") Duration lease,
+            @Value("${scanbill.idempotency.wait-timeout:30s}") Duration waitTimeout) {
+        this.mongoTemplate = mongoTemplate;
+        this.scanBillMetrics = scanBillMetrics;
+        this.ttl = ttl;
+        this.lease = lease;
+        this.waitTimeout = waitTimeout;
+    }
+
+    /**
+     * A request whose key is held by a run that has not finished yet.
+     */
+    public static class KeyInProgressException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public KeyInProgressException() {
+            super("A request with this idempotency key is still being processed");
+        }
+    }
+
+    /**
+     * Returns {@code action}'s result, running it only if no earlier request in
+     * {@code scope} used {@code key}. A blank key runs the action unguarded.
+     * {@code fingerprint} ties the key to one request; reusing it for another is
+     * rejected.
+     */
+    public <T> T execute(String scope, String key, String fingerprint, Class<T> type, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        String id = scope + ":" + key;
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> first = inFlight.putIfAbsent(id, mine);
+        if (first != null) {
+            scanBillMetrics.idempotentReplay(scope, "in_flight");
+            return type.cast(await(first));
+        }
+        try {
+            T result = claimAndRun(scope, id, fingerprint, type, action);
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    /**
+     * {@link #execute} for the reactive controllers. The key's claim and record
+     * are blocking writes and a duplicate waits on the first run, so a keyed
+     * request runs on the bounded elastic scheduler; an unkeyed one stays on the
+     * reactive chain.
+     */
+    public <T> Mono<T> executeMono(String scope, String key, String fingerprint, Class<T> type,
+            Supplier<Mono<T>> action) {
+        if (key == null || key.isBlank()) {
+            return Mono.defer(action);
+        }
+        return Mono.fromCallable(() -> execute(scope, key, fingerprint, type, () -> action.get().block()))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private <T> T claimAndRun(String scope, String id, String fingerprint, Class<T> type, Supplier<T> action) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            mongoTemplate.insert(new IdempotencyRecord(id, fingerprint, IN_PROGRESS, null, now.plus(lease),
+                    now.plus(ttl)));
+        } catch (DuplicateKeyException e) {
+            IdempotencyRecord existing = mongoTemplate.findById(id, IdempotencyRecord.class);
+            if (existing == null) {
+                // Expired between the insert and the read
+                return claimAndRun(scope, id, fingerprint, type, action);
+            }
+            if (!Objects.equals(existing.getFingerprint(), fingerprint)) {
+                throw new RuntimeException("Idempotency key was already used for a different request");
+            }
+            if (COMPLETED.equals(existing.getStatus())) {
+                scanBillMetrics.idempotentReplay(scope, "stored");
+                return type.cast(existing.getResponse());
+            }
+            takeOver(existing, now);
+        }
+
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            release(id);
+            throw e;
+        }
+        try {
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(id)), new Update()
+                    .set("status", COMPLETED)
+                    .set("response", result)
+                    .set("expiresAt", LocalDateTime.now().plus(ttl))
+                    .unset("lockedUntil"), IdempotencyRecord.class);
+        } catch (RuntimeException e) {
+            // The work is done; once the lease lapses a retry runs the action again
+            log.error("Failed to record result for idempotency key {}: {}", id, e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * Claims a key whose previous holder let its lease lapse. Only one node can
+     * win, because the update is conditional on the lease it saw.
+     */
+    private void takeOver(IdempotencyRecord existing, LocalDateTime now) {
+        if (existing.getLockedUntil() != null && existing.getLockedUntil().isAfter(now)) {
+            throw new KeyInProgressException();
+        }
+        long claimed = mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(existing.getId())
+                        .and("status").is(IN_PROGRESS)
+                        .and("lockedUntil").is(existing.getLockedUntil())),
+                new Update().set("lockedUntil", now.plus(lease)),
+                IdempotencyRecord.class).getModifiedCount();
+        if (claimed == 0) {
+            throw new KeyInProgressException();
+        }
+    }
+
+    private void release(String id) {
+        try {
+            mongoTemplate.remove(new Query(Criteria.where("_id").is(id).and("status").is(IN_PROGRESS)),
+                    IdempotencyRecord.class);
+        } catch (RuntimeException e) {
+            log.warn("Failed to release idempotency key {}, it frees up after the lease: {}", id, e.getMessage());
+        }
+    }
+
+    private Object await(CompletableFuture<Object> first) {
+        try {
+            return first.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new KeyInProgressException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KeyInProgressException();
+        }
+    }
+}
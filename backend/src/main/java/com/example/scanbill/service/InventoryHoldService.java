@@ -0,0 +1,95 @@
+package com.example.scanbill.service;
+
+import com.example.scanbill.component.ScanBillMetrics;
+import com.example.scanbill.model.InventoryItem;
+import com.example.scanbill.repository.InventoryItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Reserves scanned units for the cart they were scanned into, so two tills
+ * cannot both sell the same unit and checkout only has to convert holds its
+ * user already owns. A hold lasts {@code scanbill.holds.ttl} from the last scan;
+ * abandoned carts give their units back through {@link #releaseExpired}.
+ */
+@Slf4j
+@Service
+public class InventoryHoldService {
+    private final InventoryItemRepository inventoryItemRepository;
+    private final ScanBillMetrics scanBillMetrics;
+    private final Duration ttl;
+
+    public InventoryHoldService(InventoryItemRepository inventoryItemRepository, ScanBillMetrics scanBillMetrics,
+            @Value("${scanbill.holds.ttl:15m}") Duration ttl) {
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.scanBillMetrics = scanBillMetrics;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Holds the unit for {@code userId}, renewing the hold if they already have
+     * it. Empty if the unit does not exist, is sold, or is held by another cart.
+     */
+    public Optional<InventoryItem> hold(String serialNumber, String userId) {
+        LocalDateTime now = LocalDateTime.now();
+        return inventoryItemRepository.holdUnit(serialNumber, userId, holdUntil(now), now);
+    }
+
+    /**
+     * When a hold placed or renewed at {@code now} lapses; the reactive services
+     * place their holds through their own repository with this expiry.
+     */
+    public LocalDateTime holdUntil(LocalDateTime now) {
+        return now.plus(ttl);
+    }
+
+    /**
+     * {@link #hold} for a batch in one update; read the units back to see which
+     * ones {@code userId} now holds.
+     */
+    public void holdAll(Collection<String> serialNumbers, String userId) {
+        LocalDateTime now = LocalDateTime.now();
+        inventoryItemRepository.holdUnits(serialNumbers, userId, holdUntil(now), now);
+    }
+
+    /**
+     * Puts the units a failed checkout claimed under {@code claimToken} back on
+     * hold for {@code userId}, with a fresh TTL, so they stay in the cart.
+     */
+    public void restore(String claimToken, String userId) {
+        inventoryItemRepository.restoreHolds(claimToken, userId, holdUntil(LocalDateTime.now()));
+    }
+
+    /**
+     * Gives back units that left the cart. Best effort: a hold that could not be
+     * released here lapses on its own.
+     */
+    public void release(Collection<String> serialNumbers, String userId) {
+        try {
+            inventoryItemRepository.releaseHolds(serialNumbers, userId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to release {} holds for user {}, they lapse after the TTL: {}", serialNumbers.size(),
+                    userId, e.getMessage());
+        }
+    }
+
+    /**
+     * Frees every lapsed hold in one update. Holds past their expiry are already
+     * up for grabs by any scan; this keeps them from hiding stock from listings.
+     */
+    @Scheduled(fixedDelayString = "${scanbill.holds.sweep-interval:30000}")
+    public void releaseExpired() {
+        long released = inventoryItemRepository.releaseExpiredHolds(LocalDateTime.now());
+        if (released > 0) {
+            scanBillMetrics.holdsExpired(released);
+            log.info("Released {} expired cart holds", released);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.example.scanbill.service;
+
+import com.example.scanbill.component.ProductCatalogCache;
+import com.example.scanbill.model.IngestionJob;
+import com.example.scanbill.model.IngestionLine;
+import com.example.scanbill.model.InventoryItem;
+import com.example.scanbill.model.Product;
+import com.example.scanbill.model.SerialSequence;
+import com.example.scanbill.repository.IngestionJobRepository;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Writes stock receipts to {@code inventory_items} in bounded chunks of unordered
+ * bulk inserts. Serials come from a per-barcode sequence, reserved once the job
+ * is saved and recorded on the job before any unit is written, so a failed job
+ * resumes by regenerating exactly the same units; the ones that made it in the
+ * first time come back as duplicate-key errors and are counted as done.
+ */
+@Slf4j
+@Service
+public class InventoryIngestionService {
+    private static final int DUPLICATE_KEY = 11000;
+    // A RUNNING job that has not advanced for this long was cut off (e.g. by a restart)
+    private static final Duration STALLED_AFTER = Duration.ofMinutes(2);
+
+    private final MongoTemplate mongoTemplate;
+    private final IngestionJobRepository ingestionJobRepository;
+    private final ProductCatalogCache productCatalogCache;
+    private final StockLevelService stockLevelService;
+    private final AsyncTaskExecutor taskExecutor;
+    private final int chunkSize;
+
+    public InventoryIngestionService(MongoTemplate mongoTemplate, IngestionJobRepository ingestionJobRepository,
+            ProductCatalogCache productCatalogCache, StockLevelService stockLevelService,
+            @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor,
+            @Value("${scanbill.ingestion.chunk-size:1000}") int chunkSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.ingestionJobRepository = ingestionJobRepository;
+        this.productCatalogCache = productCatalogCache;
+        this.stockLevelService = stockLevelService;
+        this.taskExecutor = taskExecutor;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Creates the job and writes every unit before returning.
+     */
+    public IngestionJob ingest(String storeId, String source, List<IngestionLine> lines, List<String> rejected) {
+        IngestionJob job = createJob(storeId, source, lines, rejected);
+        return process(job.getId());
+    }
+
+    /**
+     * Creates the job and writes the units on the task executor. Poll
+     * {@link #getJob} for progress.
+     */
+    public IngestionJob ingestAsync(String storeId, String source, List<IngestionLine> lines, List<String> rejected) {
+        IngestionJob job = createJob(storeId, source, lines, rejected);
+        taskExecutor.execute(() -> process(job.getId()));
+        return job;
+    }
+
+    /**
+     * Picks a failed or interrupted job up where its progress counters stopped.
+     */
+    public IngestionJob resume(String jobId) {
+        IngestionJob job = getJob(jobId);
+        if ("COMPLETED".equals(job.getStatus())) {
+            return job;
+        }
+        if ("RUNNING".equals(job.getStatus())
+                && job.getUpdatedAt().isAfter(LocalDateTime.now().minus(STALLED_AFTER))) {
+            throw new RuntimeException("Ingestion job is still running");
+        }
+        // Claimed only if nobody moved the job since it was read, so of two resumes
+        // racing here only one goes on to process it
+        IngestionJob claimed = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(jobId)
+                        .and("status").is(job.getStatus())
+                        .and("updatedAt").is(job.getUpdatedAt())),
+                new Update().set("status", "RUNNING").unset("error").set("updatedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true), IngestionJob.class);
+        if (claimed == null) {
+            throw new RuntimeException("Ingestion job is already being resumed");
+        }
+        taskExecutor.execute(() -> process(jobId));
+        return claimed;
+    }
+
+    public IngestionJob getJob(String jobId) {
+        return ingestionJobRepository.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("Ingestion job not found"));
+    }
+
+    public List<IngestionJob> getRecentJobs(String storeId) {
+        return ingestionJobRepository.findTop20ByStoreIdOrderByCreatedAtDesc(storeId);
+    }
+
+    /**
+     * Reads a supplier manifest of {@code barcode,quantity} rows. A header row,
+     * blank lines and {@code #} comments are skipped; malformed rows are reported
+     * in {@code rejected} rather than failing the upload.
+     */
+    public static List<IngestionLine> parseManifest(Reader manifest, List<String> rejected) throws IOException {
+        List<IngestionLine> lines = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(manifest);
+        String row;
+        int rowNumber = 0;
+        boolean firstRow = true;
+        while ((row = reader.readLine()) != null) {
+            rowNumber++;
+            String trimmed = row.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            boolean header = firstRow;
+            firstRow = false;
+            String[] columns = trimmed.split(",");
+            if (columns.length < 2) {
+                rejected.add("Row " + rowNumber + ": expected barcode,quantity");
+                continue;
+            }
+            String barcode = columns[0].trim();
+            String quantity = columns[1].trim();
+            try {
+                lines.add(new IngestionLine(barcode, Integer.parseInt(quantity), 0, 0));
+            } catch (NumberFormatException e) {
+                if (!header) {
+                    rejected.add("Row " + rowNumber + ": invalid quantity '" + quantity + "'");
+                }
+            }
+        }
+        return lines;
+    }
+
+    static String serialNumber(String barcode, long sequence) {
+        return barcode + "-U" + String.format("%06d", sequence);
+    }
+
+    private IngestionJob createJob(String storeId, String source, List<IngestionLine> lines, List<String> rejected) {
+        IngestionJob job = new IngestionJob();
+        job.setStoreId(storeId);
+        job.setSource(source);
+        job.setRejected(new ArrayList<>(rejected));
+        for (IngestionLine line : lines) {
+            Optional<Product> product = productCatalogCache.findByBarcode(line.getBarcode());
+            if (product.isEmpty() || !Objects.equals(product.get().getStoreId(), storeId)) {
+                job.getRejected().add(line.getBarcode() + ": product not found in store");
+                continue;
+            }
+            if (line.getQuantity() <= 0) {
+                job.getRejected().add(line.getBarcode() + ": quantity must be positive");
+                continue;
+            }
+            // Serials are reserved when the line is written, so a job that fails to save burns none
+            job.getLines().add(new IngestionLine(line.getBarcode(), line.getQuantity(), 0, 0));
+            job.setTotalUnits(job.getTotalUnits() + line.getQuantity());
+        }
+        job.setStatus(job.getLines().isEmpty() ? "COMPLETED" : "RUNNING");
+        job.setCreatedAt(LocalDateTime.now());
+        job.setUpdatedAt(job.getCreatedAt());
+        return ingestionJobRepository.save(job);
+    }
+
+    /**
+     * Reserves {@code count} consecutive sequence numbers for {@code barcode} and
+     * returns the first.
+     */
+    private long reserveSerials(String barcode, int count) {
+        SerialSequence sequence = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(barcode)),
+                new Update().inc("last", count),
+                FindAndModifyOptions.options().returnNew(true).upsert(true),
+                SerialSequence.class);
+        return sequence.getLast() - count + 1;
+    }
+
+    private IngestionJob process(String jobId) {
+        IngestionJob job = getJob(jobId);
+        try {
+            for (int i = 0; i < job.getLines().size(); i++) {
+                writeLine(job, i);
+            }
+            updateJob(jobId, new Update().set("status", "COMPLETED"));
+            log.info("Ingestion job {} wrote {} units for store {}", jobId, job.getTotalUnits(), job.getStoreId());
+        } catch (RuntimeException e) {
+            log.error("Ingestion job {} failed, resume it to continue: {}", jobId, e.getMessage(), e);
+            updateJob(jobId, new Update().set("status", "FAILED").set("error", e.getMessage()));
+        }
+        return getJob(jobId);
+    }
+
+    private void writeLine(IngestionJob job, int index) {
+        IngestionLine line = job.getLines().get(index);
+        if (line.getFirstSequence() == 0) {
+            long first = reserveSerials(line.getBarcode(), line.getQuantity());
+            updateJob(job.getId(), new Update().set("lines." + index + ".firstSequence", first));
+            line.setFirstSequence(first);
+        }
+        int done = line.getInserted();
+        while (done < line.getQuantity()) {
+            int size = Math.min(chunkSize, line.getQuantity() - done);
+            List<InventoryItem> chunk = new ArrayList<>(size);
+            for (int k = 0; k < size; k++) {
+                String serial = serialNumber(line.getBarcode(), line.getFirstSequence() + done + k);
+                chunk.add(new InventoryItem(null, line.getBarcode(), serial, "AVAILABLE", job.getStoreId(), null,
+                        null, null, 0L));
+            }
+            int inserted = insertUnordered(chunk);
+            stockLevelService.recordAdded(job.getStoreId(), line.getBarcode(), inserted);
+            done += size;
+            updateJob(job.getId(), new Update()
+                    .inc("insertedUnits", size)
+                    .inc("lines." + index + ".inserted", size));
+        }
+    }
+
+    /**
+     * Returns how many units were new; duplicates were written by an earlier
+     * attempt of the same job.
+     */
+    private int insertUnordered(List<InventoryItem> chunk) {
+        try {
+            return mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InventoryItem.class).insert(chunk)
+                    .execute().getInsertedCount();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+            return e.getResult().getInsertedCount();
+        }
+    }
+
+    private void updateJob(String jobId, Update update) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(jobId)),
+                update.set("updatedAt", LocalDateTime.now()), IngestionJob.class);
+    }
+}
@@ -1,82 +1,217 @@
 package com.example.scanbill.service;
 
+import com.example.scanbill.component.CartStore;
+import com.example.scanbill.component.ScanBillMetrics;
+import com.example.scanbill.component.StoreEventBroadcaster;
 import com.example.scanbill.model.Cart;
 import com.example.scanbill.model.CartItem;
-import com.example.scanbill.model.InventoryItem;
 import com.example.scanbill.model.Order;
-import com.example.scanbill.repository.CartRepository;
+import com.example.scanbill.model.OrderPage;
 import com.example.scanbill.repository.InventoryItemRepository;
 import com.example.scanbill.repository.OrderRepository;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final OrderRepository orderRepository;
-    private final CartRepository cartRepository;
+    private final CartStore cartStore;
     private final InventoryItemRepository inventoryItemRepository;
+    private final InventoryHoldService inventoryHoldService;
+    private final StoreStatsService storeStatsService;
+    private final StockLevelService stockLevelService;
+    private final ScanBillMetrics scanBillMetrics;
+    private final CheckoutTransactionRunner checkoutTransactionRunner;
+    private final StoreEventBroadcaster storeEventBroadcaster;
 
     public Order checkout(String userId, String customerName, String customerMobile, String storeId,
             String idempotencyKey) {
-        // 1. Check if order with this idempotencyKey already exists
-        if (idempotencyKey != null && !idempotencyKey.isEmpty()) {
-            java.util.Optional<Order> existingOrder = orderRepository.findByIdempotencyKey(idempotencyKey);
-            if (existingOrder.isPresent()) {
-                return existingOrder.get();
+        Timer.Sample sample = scanBillMetrics.startTimer();
+        AtomicReference<String> outcome = new AtomicReference<>("failure");
+        try {
+            // 1. Check if order with this idempotencyKey already exists
+            if (idempotencyKey != null && !idempotencyKey.isEmpty()) {
+                java.util.Optional<Order> existingOrder = orderRepository.findByIdempotencyKey(idempotencyKey);
+                if (existingOrder.isPresent()) {
+                    outcome.set("replay");
+                    return existingOrder.get();
+                }
             }
-        }
 
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new RuntimeException("Cart not found"));
+            Cart cart = cartStore.find(userId)
+                    .orElseThrow(() -> new RuntimeException("Cart not found"));
 
-        if (cart.getItems().isEmpty()) {
-            throw new RuntimeException("Cart is empty");
-        }
+            if (cart.getItems().isEmpty()) {
+                throw new RuntimeException("Cart is empty");
+            }
+
+            List<String> serialNumbers = new ArrayList<>(cart.getItems().size());
+            for (CartItem item : cart.getItems()) {
+                serialNumbers.add(item.getSerialNumber());
+            }
+            scanBillMetrics.recordBasketSize(storeId, serialNumbers.size());
+            String claimToken = UUID.randomUUID().toString();
 
-        // 2. Mark items as SOLD (Atomic check)
-        List<InventoryItem> itemsToUpdate = new ArrayList<>();
-        for (CartItem item : cart.getItems()) {
-            InventoryItem invItem = inventoryItemRepository.findBySerialNumber(item.getSerialNumber())
-                    .orElseThrow(() -> new RuntimeException("Item not found: " + item.getSerialNumber()));
+            Order savedOrder;
+            boolean cartCleared = false;
+            if (checkoutTransactionRunner.isEnabled()) {
+                // 2-4. Claim, order and cart clear commit together or not at all, so a
+                // short claim just aborts; there is nothing to release.
+                boolean clearCart = cartStore.joinsTransactions();
+                try {
+                    savedOrder = checkoutTransactionRunner.run(storeId, () -> {
+                        claim(serialNumbers, userId, claimToken, storeId, outcome);
+                        Order order = orderRepository.save(
+                                toOrder(cart, userId, customerName, customerMobile, storeId, idempotencyKey));
+                        if (clearCart) {
+                            cartStore.removeItems(userId, serialNumbers);
+                        }
+                        return order;
+                    });
+                } catch (OptimisticLockingFailureException e) {
+                    outcome.set("conflict");
+                    throw e;
+                }
+                cartCleared = clearCart;
+            } else {
+                // 2. Convert the cart's holds to SOLD in one conditional update. A unit held
+                // by another cart or already sold is left untouched, so a short count means
+                // another till got there first and our partial claim goes back to being held.
+                try {
+                    claim(serialNumbers, userId, claimToken, storeId, outcome);
+                } catch (RuntimeException e) {
+                    inventoryHoldService.restore(claimToken, userId);
+                    throw e;
+                }
 
-            if (!"AVAILABLE".equals(invItem.getStatus())) {
-                throw new RuntimeException("One or more items already sold. Please refresh cart.");
+                // 3. Create Order
+                Order order = toOrder(cart, userId, customerName, customerMobile, storeId, idempotencyKey);
+                try {
+                    savedOrder = orderRepository.save(order);
+                } catch (RuntimeException e) {
+                    inventoryHoldService.restore(claimToken, userId);
+                    throw e;
+                }
             }
-            invItem.setStatus("SOLD");
-            itemsToUpdate.add(invItem);
+            storeStatsService.recordOrder(savedOrder);
+            stockLevelService.recordSold(storeId, savedOrder.getItems(), claimToken);
+            storeEventBroadcaster.orderCreated(savedOrder);
+
+            // 4. Clear the purchased lines; anything scanned while checkout ran stays put
+            if (!cartCleared) {
+                cartStore.removeItems(userId, serialNumbers);
+            }
+
+            outcome.set("success");
+            return savedOrder;
+        } finally {
+            scanBillMetrics.recordCheckout(sample, storeId, outcome.get());
         }
+    }
 
-        // Save all inventory updates first
-        inventoryItemRepository.saveAll(itemsToUpdate);
+    /**
+     * Units the user still holds convert directly; ones whose hold lapsed are
+     * taken too, as long as nobody else took them in the meantime.
+     */
+    private void claim(List<String> serialNumbers, String userId, String claimToken, String storeId,
+            AtomicReference<String> outcome) {
+        long claimed = inventoryItemRepository.convertHolds(serialNumbers, userId, claimToken, LocalDateTime.now());
+        if (claimed != serialNumbers.size()) {
+            scanBillMetrics.itemAlreadySold(storeId, "checkout");
+            outcome.set("sold_out");
+            throw new RuntimeException("One or more items already sold. Please refresh cart.");
+        }
+    }
 
-        // 3. Create Order
+    /**
+     * Settles {@code cart} into a new PAID order. Running cart totals are maintained
+     * incrementally, so the order amounts come from a fresh pass over the lines.
+     */
+    static Order toOrder(Cart cart, String userId, String customerName, String customerMobile, String storeId,
+            String idempotencyKey) {
         Order order = new Order();
         order.setUserId(userId);
         order.setItems(new ArrayList<>(cart.getItems()));
-        order.setTotalAmount(cart.getTotalAmount());
+        CartService.calculateTotal(cart);
+        order.setSubtotalPaise(cart.getSubtotalPaise());
+        order.setTaxPaise(cart.getTaxPaise());
+        order.setDiscountPaise(cart.getDiscountPaise());
+        order.setTotalPaise(cart.getTotalPaise());
         order.setStatus("PAID");
         order.setTimestamp(LocalDateTime.now());
         order.setCustomerName(customerName);
         order.setCustomerMobile(customerMobile);
         order.setStoreId(storeId);
-        order.setIdempotencyKey(idempotencyKey);
+        // Blank keys are stored as absent so the sparse unique index ignores them
+        order.setIdempotencyKey(idempotencyKey != null && !idempotencyKey.isEmpty() ? idempotencyKey : null);
+        return order;
+    }
+
+    /**
+     * The store's most recent {@code limit} orders (capped like a page), newest
+     * first; what the plain order list endpoints return.
+     */
+    public List<Order> getRecentOrders(String storeId, int limit) {
+        return getOrderPage(storeId, null, null, null, limit).getItems();
+    }
+
+    /**
+     * A page cursor that was not one this service handed out.
+     */
+    public static class InvalidCursorException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        public InvalidCursorException(String cursor, Throwable cause) {
+            super("Invalid cursor: " + cursor, cause);
+        }
+    }
 
-        Order savedOrder = orderRepository.save(order);
+    public OrderPage getOrderPage(String storeId, LocalDateTime from, LocalDateTime to, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        LocalDateTime afterTimestamp = null;
+        String afterId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|", 2);
+                afterTimestamp = LocalDateTime.parse(parts[0]);
+                afterId = parts[1];
+            } catch (RuntimeException e) {
+                throw new InvalidCursorException(cursor, e);
+            }
+        }
 
-        // 4. Clear cart
-        cart.getItems().clear();
-        cart.setTotalAmount(0);
-        cartRepository.save(cart);
+        // Fetch one extra row to learn whether another page exists
+        List<Order> orders = orderRepository.findPage(storeId, from, to, afterTimestamp, afterId, pageSize + 1);
+        String nextCursor = null;
+        if (orders.size() > pageSize) {
+            orders = new ArrayList<>(orders.subList(0, pageSize));
+            Order last = orders.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getTimestamp(), last.getId());
+        }
+        return new OrderPage(orders, nextCursor);
+    }
 
-        return savedOrder;
+    public Stream<Order> streamOrders(String storeId, LocalDateTime from, LocalDateTime to) {
+        return orderRepository.streamByStore(storeId, from, to);
     }
 
-    public List<Order> getOrdersByStoreId(String storeId) {
-        return orderRepository.findByStoreId(storeId);
+    private String encodeCursor(LocalDateTime timestamp, String id) {
+        String raw = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
     }
 }
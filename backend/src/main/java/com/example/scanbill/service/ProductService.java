@@ -1,22 +1,38 @@
 package com.example.scanbill.service;
 
+import com.example.scanbill.component.ProductCatalogCache;
+import com.example.scanbill.model.IngestionJob;
+import com.example.scanbill.model.IngestionLine;
 import com.example.scanbill.model.Product;
 import com.example.scanbill.repository.ProductRepository;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
 
 @Service
-@RequiredArgsConstructor
 public class ProductService {
     private final ProductRepository productRepository;
 
-    private final com.example.scanbill.repository.InventoryItemRepository inventoryItemRepository;
+    private final InventoryIngestionService inventoryIngestionService;
+
+    private final ProductCatalogCache productCatalogCache;
+
+    // Stock additions above this many units are written in the background
+    private final int syncMaxUnits;
+
+    public ProductService(ProductRepository productRepository, InventoryIngestionService inventoryIngestionService,
+            ProductCatalogCache productCatalogCache,
+            @Value("${scanbill.ingestion.sync-max-units:1000}") int syncMaxUnits) {
+        this.productRepository = productRepository;
+        this.inventoryIngestionService = inventoryIngestionService;
+        this.productCatalogCache = productCatalogCache;
+        this.syncMaxUnits = syncMaxUnits;
+    }
 
     public Optional<Product> getProductByBarcode(String barcode) {
-        return productRepository.findByBarcode(barcode);
+        return productCatalogCache.findByBarcode(barcode);
     }
 
     public List<Product> getAllProducts() {
@@ -29,15 +45,12 @@ public class ProductService {
 
     public Product addProductWithStock(Product product, int initialStock) {
         Product savedProduct = productRepository.save(product);
+        productCatalogCache.put(savedProduct);
 
         // Generate initial inventory items (units)
-        List<com.example.scanbill.model.InventoryItem> items = new java.util.ArrayList<>();
-        for (int i = 1; i <= initialStock; i++) {
-            String serial = savedProduct.getBarcode() + "-" + String.format("%03d", i);
-            items.add(new com.example.scanbill.model.InventoryItem(null, savedProduct.getBarcode(), serial, "AVAILABLE",
-                    savedProduct.getStoreId(), null));
+        if (initialStock > 0) {
+            ingest(savedProduct.getStoreId(), "PRODUCT", savedProduct.getBarcode(), initialStock);
         }
-        inventoryItemRepository.saveAll(items);
 
         return savedProduct;
     }
@@ -51,29 +64,43 @@ public class ProductService {
             product.setTaxRate(productDetails.getTaxRate());
             product.setCostPrice(productDetails.getCostPrice());
             product.setImageUrl(productDetails.getImageUrl());
-            return productRepository.save(product);
+            Product saved = productRepository.save(product);
+            productCatalogCache.put(saved);
+            return saved;
         }).orElseThrow(() -> new RuntimeException("Product not found"));
     }
 
     public void deleteProduct(String id) {
+        productRepository.findById(id).ifPresent(product -> productCatalogCache.evict(product.getBarcode()));
         productRepository.deleteById(id);
     }
 
-    public void addStock(String barcode, int quantity, String storeId) {
-        List<com.example.scanbill.model.InventoryItem> items = new java.util.ArrayList<>();
-        // Find existing max serial to append correctly?
-        // For simplicity, just use UUID or Timestamp suffix if we don't track max
-        // serial strictly?
-        // Or finding count.
-        // Let's us simple timestamp-based serials for additional stock to avoid
-        // collisions easily.
-        long timestamp = System.currentTimeMillis();
-
-        for (int i = 1; i <= quantity; i++) {
-            String serial = barcode + "-ADD-" + timestamp + "-" + i;
-            items.add(new com.example.scanbill.model.InventoryItem(null, barcode, serial, "AVAILABLE",
-                    storeId, null));
+    /**
+     * Writes the units before returning, or for more than
+     * {@code scanbill.ingestion.sync-max-units} returns the still running job to
+     * poll instead of holding the request.
+     */
+    public IngestionJob addStock(String barcode, int quantity, String storeId) {
+        IngestionJob job = ingest(storeId, "STOCK", barcode, quantity);
+        if (!job.getRejected().isEmpty()) {
+            throw new RuntimeException(job.getRejected().get(0));
+        }
+        return job;
+    }
+
+    private IngestionJob ingest(String storeId, String source, String barcode, int quantity) {
+        List<IngestionLine> lines = List.of(new IngestionLine(barcode, quantity, 0, 0));
+        if (quantity > syncMaxUnits) {
+            return inventoryIngestionService.ingestAsync(storeId, source, lines, List.of());
+        }
+        return requireWritten(inventoryIngestionService.ingest(storeId, source, lines, List.of()));
+    }
+
+    private static IngestionJob requireWritten(IngestionJob job) {
+        if ("FAILED".equals(job.getStatus())) {
+            throw new RuntimeException("Stock ingestion failed (job " + job.getId() + " can be resumed): "
+                    + job.getError());
         }
-        inventoryItemRepository.saveAll(items);
+        return job;
     }
 }
@@ -0,0 +1,113 @@
+package com.example.scanbill.service;
+
+import com.example.scanbill.component.ProductCatalogCache;
+import com.example.scanbill.component.ScanBillMetrics;
+import com.example.scanbill.model.Cart;
+import com.example.scanbill.model.CartItem;
+import com.example.scanbill.model.InventoryItem;
+import com.example.scanbill.model.Product;
+import com.example.scanbill.repository.ReactiveCartRepository;
+import com.example.scanbill.repository.ReactiveInventoryItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * {@link CartService} on the reactive Mongo driver, active under the
+ * {@code reactive} profile. Same rules and the same single-update mutations;
+ * nothing here blocks a request thread while Mongo is working.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveCartService {
+    private final ReactiveCartRepository cartRepository;
+    private final ProductCatalogCache productCatalogCache;
+    private final ReactiveInventoryItemRepository inventoryItemRepository;
+    private final ScanBillMetrics scanBillMetrics;
+    private final InventoryHoldService inventoryHoldService;
+
+    public Mono<Cart> getCartByUserId(String userId, String storeId) {
+        return cartRepository.findByUserId(userId).switchIfEmpty(Mono.defer(() -> {
+            Cart newCart = new Cart();
+            newCart.setUserId(userId);
+            newCart.setStoreId(storeId);
+            newCart.setItems(new ArrayList<>());
+            return cartRepository.save(newCart)
+                    // A concurrent scan created the cart first
+                    .onErrorResume(DuplicateKeyException.class, e -> cartRepository.findByUserId(userId));
+        }));
+    }
+
+    public Mono<Cart> addToCart(String userId, String serialNumber, String storeId) {
+        LocalDateTime now = LocalDateTime.now();
+        // The hold is the availability check: it only succeeds on a unit nobody else has
+        return inventoryItemRepository.holdUnit(serialNumber, userId, inventoryHoldService.holdUntil(now), now)
+                .switchIfEmpty(Mono.defer(() -> unavailable(serialNumber, storeId)))
+                .flatMap(invItem -> findProduct(invItem)
+                        .onErrorResume(e -> release(List.of(serialNumber), userId).then(Mono.error(e))))
+                .flatMap(product -> cartRepository.pushItem(userId, storeId,
+                        CartService.toCartItem(product, serialNumber)))
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Item already in cart")));
+    }
+
+    /**
+     * Why a hold was refused, read back only on that path.
+     */
+    private Mono<InventoryItem> unavailable(String serialNumber, String storeId) {
+        return inventoryItemRepository.findBySerialNumber(serialNumber)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Unique item not found")))
+                .flatMap(unit -> {
+                    scanBillMetrics.itemAlreadySold(storeId, "scan");
+                    return Mono.error(new RuntimeException("RESERVED".equals(unit.getStatus())
+                            ? "Item is held in another cart" : "Item is not available"));
+                });
+    }
+
+    public Mono<Cart> removeFromCart(String userId, String serialNumber, String storeId) {
+        return getCartByUserId(userId, storeId).flatMap(cart -> {
+            for (CartItem item : cart.getItems()) {
+                if (item.getSerialNumber().equals(serialNumber)) {
+                    return cartRepository.pullItem(userId, item)
+                            .flatMap(updated -> release(List.of(serialNumber), userId).thenReturn(updated))
+                            .switchIfEmpty(Mono.defer(() -> getCartByUserId(userId, storeId)));
+                }
+            }
+            return Mono.just(cart);
+        });
+    }
+
+    public Flux<InventoryItem> getAvailableUnits(String barcode, String storeId) {
+        return inventoryItemRepository.findByBarcodeAndStatusAndStoreId(barcode, "AVAILABLE", storeId);
+    }
+
+    /**
+     * Gives back units that left the cart. Best effort, as on the blocking path:
+     * a hold that could not be released here lapses on its own.
+     */
+    private Mono<Long> release(Collection<String> serialNumbers, String userId) {
+        return inventoryItemRepository.releaseHolds(serialNumbers, userId).onErrorReturn(0L);
+    }
+
+    /**
+     * Catalog hits are answered from memory; a miss loads through the blocking
+     * repository, so only that case is moved off the calling thread.
+     */
+    private Mono<Product> findProduct(InventoryItem invItem) {
+        Mono<Product> product = productCatalogCache.findCached(invItem.getBarcode())
+                .map(Mono::just)
+                .orElseGet(() -> Mono.fromCallable(() -> productCatalogCache.findByBarcode(invItem.getBarcode()))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .flatMap(Mono::justOrEmpty));
+        return product.switchIfEmpty(Mono.error(() -> new RuntimeException("Product associated with item not found")));
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.scanbill.service;
+
+import com.example.scanbill.component.ScanBillMetrics;
+import com.example.scanbill.component.StoreEventBroadcaster;
+import com.example.scanbill.model.Cart;
+import com.example.scanbill.model.CartItem;
+import com.example.scanbill.model.Order;
+import com.example.scanbill.repository.ReactiveCartRepository;
+import com.example.scanbill.repository.ReactiveInventoryItemRepository;
+import com.example.scanbill.repository.ReactiveOrderRepository;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link OrderService#checkout} on the reactive Mongo driver, active under the
+ * {@code reactive} profile. Converting the cart's holds, restoring them after a
+ * short claim, and cart clean-up are the same updates as the blocking path.
+ * There is no reactive transactional mode: startup fails if
+ * {@code scanbill.checkout.mode=transactional} is set with this profile.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveOrderService {
+    private final ReactiveOrderRepository orderRepository;
+    private final ReactiveCartRepository cartRepository;
+    private final ReactiveInventoryItemRepository inventoryItemRepository;
+    private final InventoryHoldService inventoryHoldService;
+    private final StoreStatsService storeStatsService;
+    private final StockLevelService stockLevelService;
+    private final ScanBillMetrics scanBillMetrics;
+    private final StoreEventBroadcaster storeEventBroadcaster;
+    private final CheckoutTransactionRunner checkoutTransactionRunner;
+
+    @PostConstruct
+    void rejectTransactionalMode() {
+        if (checkoutTransactionRunner.isEnabled()) {
+            throw new IllegalStateException("scanbill.checkout.mode=transactional is not supported under the "
+                    + "reactive profile; use claim mode or the blocking profile");
+        }
+    }
+
+    public Mono<Order> checkout(String userId, String customerName, String customerMobile, String storeId,
+            String idempotencyKey) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = scanBillMetrics.startTimer();
+            AtomicReference<String> outcome = new AtomicReference<>("failure");
+            return placeOrder(userId, customerName, customerMobile, storeId, idempotencyKey, outcome)
+                    .doFinally(signal -> scanBillMetrics.recordCheckout(sample, storeId, outcome.get()));
+        });
+    }
+
+    private Mono<Order> placeOrder(String userId, String customerName, String customerMobile, String storeId,
+            String idempotencyKey, AtomicReference<String> outcome) {
+        Mono<Order> existing = idempotencyKey != null && !idempotencyKey.isEmpty()
+                ? orderRepository.findByIdempotencyKey(idempotencyKey).doOnNext(order -> outcome.set("replay"))
+                : Mono.empty();
+
+        return existing.switchIfEmpty(Mono.defer(() -> cartRepository.findByUserId(userId)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Cart not found")))
+                .flatMap(cart -> {
+                    if (cart.getItems().isEmpty()) {
+                        return Mono.error(new RuntimeException("Cart is empty"));
+                    }
+                    return claimAndSave(cart, userId, customerName, customerMobile, storeId, idempotencyKey, outcome);
+                })));
+    }
+
+    private Mono<Order> claimAndSave(Cart cart, String userId, String customerName, String customerMobile,
+            String storeId, String idempotencyKey, AtomicReference<String> outcome) {
+        List<String> serialNumbers = new ArrayList<>(cart.getItems().size());
+        for (CartItem item : cart.getItems()) {
+            serialNumbers.add(item.getSerialNumber());
+        }
+        scanBillMetrics.recordBasketSize(storeId, serialNumbers.size());
+        String claimToken = UUID.randomUUID().toString();
+
+        return inventoryItemRepository.convertHolds(serialNumbers, userId, claimToken, LocalDateTime.now())
+                .flatMap(claimed -> {
+                    if (claimed != serialNumbers.size()) {
+                        scanBillMetrics.itemAlreadySold(storeId, "checkout");
+                        outcome.set("sold_out");
+                        return restoreHolds(claimToken, userId).then(Mono.error(new RuntimeException(
+                                "One or more items already sold. Please refresh cart.")));
+                    }
+                    Order order = OrderService.toOrder(cart, userId, customerName, customerMobile, storeId,
+                            idempotencyKey);
+                    return orderRepository.save(order)
+                            .onErrorResume(e -> restoreHolds(claimToken, userId).then(Mono.error(e)));
+                })
+                // The stats rollup and stock counters are blocking updates; keep them off the
+                // driver's threads
+                .flatMap(saved -> Mono.fromRunnable(() -> {
+                            storeStatsService.recordOrder(saved);
+                            stockLevelService.recordSold(storeId, saved.getItems(), claimToken);
+                            storeEventBroadcaster.orderCreated(saved);
+                        })
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .then(cartRepository.removeItems(userId, serialNumbers))
+                        .thenReturn(saved))
+                .doOnNext(saved -> outcome.set("success"));
+    }
+
+    /**
+     * Puts a failed claim's units back on hold for the cart, as
+     * {@link InventoryHoldService#restore} does on the blocking path.
+     */
+    private Mono<Long> restoreHolds(String claimToken, String userId) {
+        return inventoryItemRepository.restoreHolds(claimToken, userId,
+                inventoryHoldService.holdUntil(LocalDateTime.now()));
+    }
+}
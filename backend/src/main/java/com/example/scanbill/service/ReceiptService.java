@@ -0,0 +1,215 @@
+package com.example.scanbill.service;
+
+import com.example.scanbill.model.CartItem;
+import com.example.scanbill.model.OrderChangeEvent;
+import com.example.scanbill.model.Receipt;
+import com.example.scanbill.repository.OrderRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Serves receipts rendered once into every format a client asks for: compact
+ * JSON for the web receipt, plain text, and an ESC/POS payload for thermal
+ * printers. A receipt whose payment has settled no longer changes, so it is kept
+ * in memory and repeated scans of its QR code are answered without Mongo.
+ * Receipts still awaiting payment are rendered fresh on every request.
+ */
+@Service
+public class ReceiptService implements MeterBinder {
+    private static final DateTimeFormatter PRINTED_AT = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+    private static final byte[] ESC_POS_INIT = { 0x1B, 0x40 };
+    private static final byte[] ESC_POS_FEED_AND_CUT = { 0x1B, 0x64, 0x03, 0x1D, 0x56, 0x42, 0x00 };
+
+    private final OrderRepository orderRepository;
+    private final ObjectMapper objectMapper;
+    private final int width;
+    private final Cache<String, Rendered> receipts;
+
+    public ReceiptService(OrderRepository orderRepository, ObjectMapper objectMapper,
+            @Value("${scanbill.receipts.cache-size:10000}") long cacheSize,
+            @Value("${scanbill.receipts.width:42}") int width) {
+        this.orderRepository = orderRepository;
+        this.objectMapper = objectMapper;
+        this.width = width;
+        this.receipts = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * One receipt in every format. {@code etag} changes whenever the order does.
+     */
+    public record Rendered(String etag, boolean settled, byte[] json, byte[] text, byte[] escPos) {
+    }
+
+    public Optional<Rendered> getReceipt(String orderId) {
+        Rendered cached = receipts.getIfPresent(orderId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Rendered> rendered = orderRepository.findReceiptById(orderId).map(this::render);
+        rendered.filter(Rendered::settled).ifPresent(r -> receipts.put(orderId, r));
+        return rendered;
+    }
+
+    /**
+     * Drops a receipt whose order was written after it was rendered.
+     */
+    public void evict(String orderId) {
+        if (orderId != null) {
+            receipts.invalidate(orderId);
+        }
+    }
+
+    @EventListener
+    public void onOrderChange(OrderChangeEvent event) {
+        if (!"insert".equals(event.getOperation())) {
+            evict(event.getId());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, receipts, "receipts");
+    }
+
+    Rendered render(Receipt receipt) {
+        boolean settled = "PAID".equals(receipt.getStatus()) && "SUCCESS".equals(receipt.getPaymentStatus());
+        String etag = receipt.getId() + "." + (receipt.getVersion() == null ? 0 : receipt.getVersion());
+        String text = text(receipt);
+        return new Rendered(etag, settled, json(receipt), text.getBytes(StandardCharsets.UTF_8), escPos(text));
+    }
+
+    /**
+     * The web receipt's fields, nulls left out.
+     */
+    private byte[] json(Receipt receipt) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("orderId", receipt.getId());
+        body.put("customerName", receipt.getCustomerName());
+        body.put("customerMobile", receipt.getCustomerMobile());
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (CartItem item : lines(receipt)) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("productName", item.getProductName());
+            line.put("serialNumber", item.getSerialNumber());
+            line.put("quantity", item.getQuantity());
+            line.put("price", item.getPrice());
+            items.add(line);
+        }
+        body.put("items", items);
+        body.put("subtotal", receipt.getSubtotalPaise() / 100.0);
+        body.put("taxAmount", receipt.getTaxPaise() / 100.0);
+        body.put("discountAmount", receipt.getDiscountPaise() / 100.0);
+        body.put("totalAmount", receipt.getTotalPaise() / 100.0);
+        body.put("paymentMethod", receipt.getPaymentMethod());
+        body.put("paymentStatus", receipt.getPaymentStatus());
+        body.put("paymentId", receipt.getPaymentId());
+        body.put("timestamp", receipt.getTimestamp());
+        body.put("status", receipt.getStatus());
+        body.put("receiptUrl", receipt.getReceiptUrl());
+        body.values().removeIf(value -> value == null);
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to render receipt", e);
+        }
+    }
+
+    /**
+     * A fixed-width slip, {@code scanbill.receipts.width} columns wide.
+     */
+    String text(Receipt receipt) {
+        StringBuilder out = new StringBuilder(512);
+        String rule = "-".repeat(width) + "\n";
+        center(out, "RECEIPT");
+        row(out, "Order", receipt.getId());
+        if (receipt.getTimestamp() != null) {
+            row(out, "Date", PRINTED_AT.format(receipt.getTimestamp()));
+        }
+        if (receipt.getCustomerName() != null) {
+            row(out, "Customer", receipt.getCustomerName());
+        }
+        out.append(rule);
+        for (CartItem item : lines(receipt)) {
+            out.append(fit(item.getProductName(), width)).append('\n');
+            row(out, "  " + item.getQuantity() + " x " + amount(item.getPricePaise()),
+                    amount(item.lineTotalPaise()));
+        }
+        out.append(rule);
+        row(out, "Subtotal", amount(receipt.getSubtotalPaise()));
+        row(out, "Tax", amount(receipt.getTaxPaise()));
+        if (receipt.getDiscountPaise() > 0) {
+            row(out, "Discount", "-" + amount(receipt.getDiscountPaise()));
+        }
+        row(out, "TOTAL", amount(receipt.getTotalPaise()));
+        out.append(rule);
+        if (receipt.getPaymentMethod() != null) {
+            row(out, "Paid by", receipt.getPaymentMethod());
+        }
+        if (receipt.getPaymentId() != null) {
+            row(out, "Ref", receipt.getPaymentId());
+        }
+        center(out, "Thank you");
+        return out.toString();
+    }
+
+    /**
+     * The text slip framed for a thermal printer: reset, the slip in ASCII
+     * (characters the printer cannot show become '?'), feed and partial cut.
+     */
+    private static byte[] escPos(String text) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(text.length() + 16);
+        out.writeBytes(ESC_POS_INIT);
+        out.writeBytes(text.getBytes(StandardCharsets.US_ASCII));
+        out.writeBytes(ESC_POS_FEED_AND_CUT);
+        return out.toByteArray();
+    }
+
+    private static List<CartItem> lines(Receipt receipt) {
+        return receipt.getItems() != null ? receipt.getItems() : List.of();
+    }
+
+    private void center(StringBuilder out, String text) {
+        String fitted = fit(text, width);
+        out.append(" ".repeat((width - fitted.length()) / 2)).append(fitted).append('\n');
+    }
+
+    /**
+     * {@code label} on the left, {@code value} right-aligned; the label gives way
+     * when both do not fit.
+     */
+    private void row(StringBuilder out, String label, String value) {
+        String right = fit(value != null ? value : "", width);
+        String left = fit(label, Math.max(0, width - right.length() - 1));
+        out.append(left).append(" ".repeat(width - left.length() - right.length())).append(right).append('\n');
+    }
+
+    private static String fit(String text, int max) {
+        String value = text != null ? text : "";
+        return value.length() <= max ? value : value.substring(0, max);
+    }
+
+    private static String amount(long paise) {
+        long abs = Math.abs(paise);
+        return (paise < 0 ? "-" : "") + abs / 100 + "." + (abs % 100 < 10 ? "0" : "") + abs % 100;
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.scanbill.service;
+
+import com.example.scanbill.model.Role;
+import com.example.scanbill.model.User;
+import com.example.scanbill.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Issues and checks the signed session tokens handed out at login. A token
+ * carries the user's id, role, store and document version, signed with
+ * HMAC-SHA256, so a request is authorized from the token alone. The one lookup
+ * left, whether the user still exists at that version, is answered from a cache
+ * that keeps each user for {@code scanbill.auth.user-cache-ttl}: saving a user
+ * (a new password or role) revokes their tokens within that window.
+ */
+@Slf4j
+@Service
+public class SessionTokenService implements MeterBinder {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final long ttlSeconds;
+    private final Clock clock;
+    private final LoadingCache<String, Optional<User>> users;
+    private final ThreadLocal<Mac> macs;
+
+    public SessionTokenService(UserRepository userRepository,
+            @Value("${scanbill.auth.token-secret:}") String secret,
+            @Value("${scanbill.auth.token-ttl:12h}") Duration ttl,
+            @Value("${scanbill.auth.user-cache-ttl:30s}") Duration userCacheTtl) {
+        this(userRepository, secret, ttl, userCacheTtl, Clock.systemUTC());
+    }
+
+    SessionTokenService(UserRepository userRepository, String secret, Duration ttl, Duration userCacheTtl,
+            Clock clock) {
+        this.key = new SecretKeySpec(secretBytes(secret), ALGORITHM);
+        this.ttlSeconds = ttl.toSeconds();
+        this.clock = clock;
+        this.users = Caffeine.newBuilder()
+                .expireAfterWrite(userCacheTtl)
+                .maximumSize(100_000)
+                .recordStats()
+                .build(userRepository::findById);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * What a verified token says about its bearer.
+     */
+    public record Session(String userId, Role role, String storeId, long expiresAt) {
+    }
+
+    /**
+     * A token for {@code user}, valid for {@code scanbill.auth.token-ttl}.
+     */
+    public String issue(User user) {
+        long expiresAt = clock.instant().getEpochSecond() + ttlSeconds;
+        String payload = String.join("|", user.getId(), user.getRole().name(),
+                user.getStoreId() != null ? user.getStoreId() : "", String.valueOf(version(user)),
+                String.valueOf(expiresAt));
+        String body = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return body + "." + ENCODER.encodeToString(sign(body));
+    }
+
+    /**
+     * The session behind {@code token}, or empty when it is malformed, forged,
+     * expired, or its user has since been deleted or saved again.
+     */
+    public Optional<Session> verify(String token) {
+        Optional<String[]> fields = fields(token);
+        if (fields.isEmpty()) {
+            return Optional.empty();
+        }
+        String[] f = fields.get();
+        Optional<User> user = users.get(f[0]);
+        if (user.isEmpty() || version(user.get()) != Long.parseLong(f[3])) {
+            return Optional.empty();
+        }
+        return Optional.of(session(f));
+    }
+
+    /**
+     * Drops the cached copy of a user this node just saved.
+     */
+    public void evict(String userId) {
+        if (userId != null) {
+            users.invalidate(userId);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, users, "session.users");
+    }
+
+    /**
+     * The payload fields of a well-signed, unexpired token.
+     */
+    private Optional<String[]> fields(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.')) {
+            return Optional.empty();
+        }
+        String body = token.substring(0, dot);
+        try {
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(body), signature)) {
+                return Optional.empty();
+            }
+            String[] f = new String(DECODER.decode(body), StandardCharsets.UTF_8).split("\\|", -1);
+            if (f.length != 5 || Long.parseLong(f[4]) <= clock.instant().getEpochSecond()) {
+                return Optional.empty();
+            }
+            Role.valueOf(f[1]);
+            Long.parseLong(f[3]);
+            return Optional.of(f);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Session session(String[] f) {
+        return new Session(f[0], Role.valueOf(f[1]), f[2].isEmpty() ? null : f[2], Long.parseLong(f[4]));
+    }
+
+    private static long version(User user) {
+        return user.getVersion() != null ? user.getVersion() : 0L;
+    }
+
+    private byte[] sign(String body) {
+        return macs.get().doFinal(body.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+        }
+    }
+
+    /**
+     * Without a configured secret each start signs with a random one: tokens
+     * then neither survive a restart nor work across nodes.
+     */
+    private static byte[] secretBytes(String secret) {
+        if (secret != null && !secret.isBlank()) {
+            return secret.getBytes(StandardCharsets.UTF_8);
+        }
+        log.warn("scanbill.auth.token-secret is not set; using a random per-process secret");
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return random;
+    }
+}
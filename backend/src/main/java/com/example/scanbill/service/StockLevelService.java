@@ -0,0 +1,266 @@
+package com.example.scanbill.service;
+
+import com.example.scanbill.model.CartItem;
+import com.example.scanbill.model.ChangeStreamResetEvent;
+import com.example.scanbill.model.InventoryChangeEvent;
+import com.example.scanbill.model.InventoryItem;
+import com.example.scanbill.model.SeedCompletedEvent;
+import com.example.scanbill.model.StockLevel;
+import com.example.scanbill.repository.InventoryItemRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.client.result.UpdateResult;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains the {@code stock_levels} counters and serves them from a short-lived
+ * cache. Writers only ever $inc an existing counter; a counter that does not
+ * exist yet is built from a count of the unit documents the first time it is
+ * read, which covers products stocked before counters existed. While that
+ * count runs the counter is marked as building: writers skip it, since the
+ * count already sees their units, and readers neither trust nor cache it.
+ */
+@Slf4j
+@Service
+public class StockLevelService {
+    // A counter still building after this long lost its builder and is taken over
+    private static final Duration BUILD_TIMEOUT = Duration.ofMinutes(1);
+
+    private final MongoTemplate mongoTemplate;
+    private final InventoryItemRepository inventoryItemRepository;
+    private final Cache<String, StockLevel> levels;
+
+    public StockLevelService(MongoTemplate mongoTemplate, InventoryItemRepository inventoryItemRepository,
+            @Value("${scanbill.stock.cache-ttl:5s}") Duration cacheTtl,
+            @Value("${scanbill.stock.cache-max-size:100000}") long cacheMaxSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.levels = Caffeine.newBuilder()
+                .expireAfterWrite(cacheTtl)
+                .maximumSize(cacheMaxSize)
+                .build();
+    }
+
+    public StockLevel getStockLevel(String storeId, String barcode) {
+        String id = levelId(storeId, barcode);
+        StockLevel level = levels.getIfPresent(id);
+        if (level == null) {
+            level = mongoTemplate.findById(id, StockLevel.class);
+            if (level == null || level.getBuildingSince() != null) {
+                level = backfill(storeId, barcode, level);
+            }
+            if (level.getBuildingSince() == null) {
+                levels.put(id, level);
+            }
+        }
+        return level;
+    }
+
+    /**
+     * Counts {@code units} newly written AVAILABLE units. Failures are logged, not
+     * thrown: the units are already stored and {@link #rebuild} recovers the count.
+     */
+    public void recordAdded(String storeId, String barcode, long units) {
+        if (units == 0) {
+            return;
+        }
+        try {
+            String id = levelId(storeId, barcode);
+            mongoTemplate.updateFirst(built(id), new Update().inc("available", units), StockLevel.class);
+            levels.invalidate(id);
+        } catch (RuntimeException e) {
+            log.error("Failed to count {} new units of {} in store {}: {}", units, barcode, storeId, e.getMessage());
+        }
+    }
+
+    /**
+     * Moves the units of a completed checkout from available to sold, one counter
+     * update per product. Lines from carts scanned before lines carried their
+     * barcode are resolved through the checkout's claim token instead.
+     */
+    public void recordSold(String storeId, List<CartItem> items, String claimToken) {
+        try {
+            Map<String, Long> soldByBarcode = new HashMap<>();
+            for (CartItem item : items) {
+                if (item.getBarcode() == null) {
+                    soldByBarcode = claimedByBarcode(claimToken);
+                    break;
+                }
+                soldByBarcode.merge(item.getBarcode(), (long) item.getQuantity(), Long::sum);
+            }
+            if (soldByBarcode.isEmpty()) {
+                return;
+            }
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StockLevel.class);
+            for (Map.Entry<String, Long> sold : soldByBarcode.entrySet()) {
+                bulk.updateOne(built(levelId(storeId, sold.getKey())),
+                        new Update().inc("available", -sold.getValue()).inc("sold", sold.getValue()));
+            }
+            bulk.execute();
+            for (String barcode : soldByBarcode.keySet()) {
+                levels.invalidate(levelId(storeId, barcode));
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to update stock levels for store {}: {}", storeId, e.getMessage());
+        }
+    }
+
+    /**
+     * Drops the cached counter of a product whose units changed, on this node or
+     * another, so the next read sees the other node's $inc.
+     */
+    @EventListener
+    public void onInventoryChange(InventoryChangeEvent event) {
+        InventoryItem item = event.getItem();
+        if (item != null) {
+            levels.invalidate(levelId(item.getStoreId(), item.getBarcode()));
+        }
+    }
+
+    @EventListener
+    public void onChangeStreamReset(ChangeStreamResetEvent event) {
+        if ("inventory_items".equals(event.getCollection())) {
+            levels.invalidateAll();
+        }
+    }
+
+    /**
+     * A counter read while the seeder was still writing a store was backfilled
+     * from part of its units. Drop the seeded stores' counters so the next read
+     * of each builds it from the whole store. Tills may already be selling, so
+     * this deletes rather than {@link #rebuild}s: a checkout's $inc that misses
+     * a deleted counter is still seen by the count that replaces it.
+     */
+    @EventListener
+    public void onSeedCompleted(SeedCompletedEvent event) {
+        Set<String> storeIds = new HashSet<>(event.getStoreIds());
+        try {
+            mongoTemplate.remove(new Query(Criteria.where("storeId").in(storeIds)), StockLevel.class);
+        } catch (RuntimeException e) {
+            log.error("Failed to drop the stock levels of {} seeded stores: {}", storeIds.size(), e.getMessage());
+        }
+        levels.asMap().keySet().removeIf(id -> storeIds.contains(id.substring(0, id.indexOf(':'))));
+    }
+
+    /**
+     * Recounts every product of a store from its unit documents and overwrites
+     * the counters. Checkouts and ingestion that run between the aggregation and
+     * the write are lost, so run it while the store is quiet (after hours or with
+     * its tills closed).
+     */
+    public int rebuild(String storeId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("storeId").is(storeId)),
+                Aggregation.group("barcode", "status").count().as("units"));
+        Map<String, long[]> counts = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(aggregation, InventoryItem.class, Document.class)
+                .getMappedResults()) {
+            Document key = row.get("_id", Document.class);
+            long[] level = counts.computeIfAbsent(key.getString("barcode"), b -> new long[2]);
+            long units = ((Number) row.get("units")).longValue();
+            // A unit held in a cart is still unsold stock until checkout converts it
+            if ("AVAILABLE".equals(key.getString("status")) || "RESERVED".equals(key.getString("status"))) {
+                level[0] += units;
+            } else if ("SOLD".equals(key.getString("status"))) {
+                level[1] += units;
+            }
+        }
+        if (counts.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StockLevel.class);
+        counts.forEach((barcode, level) -> bulk.upsert(
+                new Query(Criteria.where("_id").is(levelId(storeId, barcode))),
+                new Update().set("storeId", storeId).set("barcode", barcode)
+                        .set("available", level[0]).set("sold", level[1]).unset("buildingSince")));
+        bulk.execute();
+        counts.keySet().forEach(barcode -> levels.invalidate(levelId(storeId, barcode)));
+        return counts.size();
+    }
+
+    /**
+     * Builds a missing counter from a count of the units. The request that
+     * creates it (or takes over one whose builder has gone quiet) counts and
+     * publishes the result; any other request counts for itself and gets a
+     * counter still marked as building, which is not cached. Units written
+     * between the count and the publish are not counted until {@link #rebuild}.
+     */
+    StockLevel backfill(String storeId, String barcode, StockLevel existing) {
+        String id = levelId(storeId, barcode);
+        // Millisecond precision, as stored, so the claim below can match on it
+        LocalDateTime since = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        boolean claimed;
+        if (existing == null) {
+            UpdateResult created = mongoTemplate.upsert(new Query(Criteria.where("_id").is(id)), new Update()
+                    .setOnInsert("storeId", storeId)
+                    .setOnInsert("barcode", barcode)
+                    .setOnInsert("available", 0L)
+                    .setOnInsert("sold", 0L)
+                    .setOnInsert("buildingSince", since), StockLevel.class);
+            claimed = created.getUpsertedId() != null;
+        } else if (existing.getBuildingSince().isBefore(since.minus(BUILD_TIMEOUT))) {
+            claimed = mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(id)
+                    .and("buildingSince").is(existing.getBuildingSince())),
+                    new Update().set("buildingSince", since), StockLevel.class).getModifiedCount() == 1;
+        } else {
+            claimed = false;
+        }
+
+        long available = inventoryItemRepository.countByBarcodeAndStatusAndStoreId(barcode, "AVAILABLE", storeId)
+                + inventoryItemRepository.countByBarcodeAndStatusAndStoreId(barcode, "RESERVED", storeId);
+        long sold = inventoryItemRepository.countByBarcodeAndStatusAndStoreId(barcode, "SOLD", storeId);
+        StockLevel counted = new StockLevel(id, storeId, barcode, available, sold, since);
+        if (!claimed) {
+            return counted;
+        }
+        StockLevel published = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(id).and("buildingSince").is(since)),
+                new Update().set("available", available).set("sold", sold).unset("buildingSince"),
+                FindAndModifyOptions.options().returnNew(true), StockLevel.class);
+        // Null when a rebuild or a takeover got there first
+        return published != null ? published : counted;
+    }
+
+    /**
+     * A counter that has finished building; writers only ever update these.
+     */
+    private static Query built(String id) {
+        return new Query(Criteria.where("_id").is(id).and("buildingSince").is(null));
+    }
+
+    private Map<String, Long> claimedByBarcode(String claimToken) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("claimToken").is(claimToken)),
+                Aggregation.group("barcode").count().as("units"));
+        Map<String, Long> claimed = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(aggregation, InventoryItem.class, Document.class)
+                .getMappedResults()) {
+            claimed.put(row.getString("_id"), ((Number) row.get("units")).longValue());
+        }
+        return claimed;
+    }
+
+    static String levelId(String storeId, String barcode) {
+        return storeId + ":" + barcode;
+    }
+}
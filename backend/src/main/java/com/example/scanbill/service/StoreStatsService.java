@@ -0,0 +1,206 @@
+package com.example.scanbill.service;
+
+import com.example.scanbill.model.CartItem;
+import com.example.scanbill.model.Order;
+import com.example.scanbill.model.Product;
+import com.example.scanbill.model.StoreDailyStats;
+import com.example.scanbill.repository.OrderRepository;
+import com.example.scanbill.repository.ProductRepository;
+import com.example.scanbill.repository.StoreDailyStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Maintains the {@code store_daily_stats} rollups. Checkout folds each new order
+ * in with a single upsert, so the dashboard reads one small document per day
+ * instead of every order the store has ever taken.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StoreStatsService {
+    private static final String FIRST_DAY = "0000-01-01";
+    private static final String LAST_DAY = "9999-12-31";
+    // How long after midnight a checkout may still land on the day before
+    private static final Duration SETTLE = Duration.ofMinutes(5);
+
+    private final StoreDailyStatsRepository storeDailyStatsRepository;
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Adds a freshly created order to its store's rollup for the day. Failures are
+     * logged rather than thrown: the order itself is already committed and the
+     * rollup can always be rebuilt from the orders collection.
+     */
+    public void recordOrder(Order order) {
+        try {
+            StoreDailyStats delta = new StoreDailyStats();
+            accumulate(delta, order, costPrices(order.getItems()));
+
+            String day = order.getTimestamp().toLocalDate().toString();
+            Query query = new Query(Criteria.where("id").is(rollupId(order.getStoreId(), day)));
+            Update update = new Update()
+                    .setOnInsert("storeId", order.getStoreId())
+                    .setOnInsert("day", day)
+                    .inc("revenuePaise", delta.getRevenuePaise())
+                    .inc("orderCount", delta.getOrderCount())
+                    .inc("itemsSold", delta.getItemsSold())
+                    .inc("taxPaise", delta.getTaxPaise())
+                    .inc("profitPaise", delta.getProfitPaise());
+            mongoTemplate.upsert(query, update, StoreDailyStats.class);
+        } catch (RuntimeException e) {
+            log.warn("Could not update stats rollup for order {}: {}", order.getId(), e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats(String storeId, LocalDate from, LocalDate to) {
+        List<StoreDailyStats> days;
+        if (from != null || to != null) {
+            Range<String> range = Range.closed(
+                    from != null ? from.toString() : FIRST_DAY,
+                    to != null ? to.toString() : LAST_DAY);
+            days = storeDailyStatsRepository.findByStoreIdAndDayBetweenOrderByDayAsc(storeId, range);
+        } else {
+            days = storeDailyStatsRepository.findByStoreIdOrderByDayAsc(storeId);
+        }
+
+        StoreDailyStats total = new StoreDailyStats();
+        List<Map<String, Object>> daily = new ArrayList<>(days.size());
+        for (StoreDailyStats day : days) {
+            total.setRevenuePaise(total.getRevenuePaise() + day.getRevenuePaise());
+            total.setOrderCount(total.getOrderCount() + day.getOrderCount());
+            total.setItemsSold(total.getItemsSold() + day.getItemsSold());
+            total.setTaxPaise(total.getTaxPaise() + day.getTaxPaise());
+            total.setProfitPaise(total.getProfitPaise() + day.getProfitPaise());
+            Map<String, Object> row = toResponse(day);
+            row.put("day", day.getDay());
+            daily.add(row);
+        }
+
+        Map<String, Object> stats = toResponse(total);
+        stats.put("days", daily);
+        return stats;
+    }
+
+    /**
+     * Recomputes a store's rollups for every closed day by streaming its orders.
+     * Run it to backfill stores that predate the rollups or to repair drift.
+     * <p>
+     * Checkout keeps $inc-ing the current day while this runs, so the cutoff is
+     * the start of the day that was current {@link #SETTLE} ago: days before it
+     * take no new orders and are rewritten with one upsert each, and days from it
+     * on are left to checkout's $incs, to be repaired by a rebuild once closed.
+     */
+    public int rebuild(String storeId) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(SETTLE).toLocalDate().atStartOfDay();
+        Map<String, Double> costByProductId = new HashMap<>();
+        for (Product product : productRepository.findByStoreId(storeId)) {
+            costByProductId.put(product.getId(), product.getCostPrice());
+        }
+
+        Map<String, StoreDailyStats> byDay = new TreeMap<>();
+        try (Stream<Order> orders = orderRepository.streamByStore(storeId, null, cutoff)) {
+            orders.forEach(order -> {
+                if (order.getTimestamp() == null) {
+                    return;
+                }
+                String day = order.getTimestamp().toLocalDate().toString();
+                accumulate(byDay.computeIfAbsent(day, d -> new StoreDailyStats()), order, costByProductId);
+            });
+        }
+
+        String cutoffDay = cutoff.toLocalDate().toString();
+        if (!byDay.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StoreDailyStats.class);
+            byDay.forEach((day, rollup) -> bulk.upsert(
+                    new Query(Criteria.where("id").is(rollupId(storeId, day))),
+                    new Update()
+                            .set("storeId", storeId)
+                            .set("day", day)
+                            .set("revenuePaise", rollup.getRevenuePaise())
+                            .set("orderCount", rollup.getOrderCount())
+                            .set("itemsSold", rollup.getItemsSold())
+                            .set("taxPaise", rollup.getTaxPaise())
+                            .set("profitPaise", rollup.getProfitPaise())));
+            bulk.execute();
+        }
+        // Closed days whose orders are all gone
+        mongoTemplate.remove(new Query(Criteria.where("storeId").is(storeId)
+                .and("day").lt(cutoffDay).nin(byDay.keySet())), StoreDailyStats.class);
+        log.info("Rebuilt {} daily stats rollups for store {} before {}", byDay.size(), storeId, cutoffDay);
+        return byDay.size();
+    }
+
+    private void accumulate(StoreDailyStats rollup, Order order, Map<String, Double> costByProductId) {
+        long items = 0;
+        long profit = 0;
+        if (order.getItems() != null) {
+            for (CartItem item : order.getItems()) {
+                items += item.getQuantity();
+                Double cost = costByProductId.get(item.getProductId());
+                if (cost != null) {
+                    profit += item.lineTotalPaise() - item.lineTaxPaise() - toPaise(cost) * item.getQuantity();
+                }
+            }
+        }
+        rollup.setRevenuePaise(rollup.getRevenuePaise() + order.getTotalPaise());
+        rollup.setOrderCount(rollup.getOrderCount() + 1);
+        rollup.setItemsSold(rollup.getItemsSold() + items);
+        rollup.setTaxPaise(rollup.getTaxPaise() + order.getTaxPaise());
+        rollup.setProfitPaise(rollup.getProfitPaise() + profit);
+    }
+
+    private Map<String, Double> costPrices(List<CartItem> items) {
+        Set<String> productIds = new HashSet<>();
+        if (items != null) {
+            for (CartItem item : items) {
+                productIds.add(item.getProductId());
+            }
+        }
+        Map<String, Double> costs = new HashMap<>();
+        for (Product product : productRepository.findAllById(productIds)) {
+            costs.put(product.getId(), product.getCostPrice());
+        }
+        return costs;
+    }
+
+    private Map<String, Object> toResponse(StoreDailyStats stats) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("totalRevenue", stats.getRevenuePaise() / 100.0);
+        response.put("totalOrders", stats.getOrderCount());
+        response.put("itemsSold", stats.getItemsSold());
+        response.put("taxAmount", stats.getTaxPaise() / 100.0);
+        response.put("profit", stats.getProfitPaise() / 100.0);
+        return response;
+    }
+
+    private static String rollupId(String storeId, String day) {
+        return storeId + ":" + day;
+    }
+
+    private static long toPaise(double amount) {
+        return Math.round(amount * 100);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.scanbill.component;
+
+import com.example.scanbill.model.InventoryChangeEvent;
+import com.example.scanbill.model.Product;
+import com.example.scanbill.model.ProductChangeEvent;
+import com.example.scanbill.repository.ProductRepository;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ChangeStreamListenerTest {
+
+    private final MappingMongoConverter converter = converter();
+
+    private static MappingMongoConverter converter() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext context = new MongoMappingContext();
+        context.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, context);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    @Test
+    public void testUnitChangeCarriesTheCurrentDocument() {
+        ObjectId id = new ObjectId();
+        Document unit = new Document("_id", id)
+                .append("barcode", "B1")
+                .append("serialNumber", "B1-U000001")
+                .append("status", "RESERVED")
+                .append("storeId", "store1")
+                .append("heldBy", "user1");
+
+        Object event = ChangeStreamListener.toEvent("inventory_items", "update",
+                new BsonDocument("_id", new BsonObjectId(id)), unit, converter);
+
+        InventoryChangeEvent change = assertInstanceOf(InventoryChangeEvent.class, event);
+        assertEquals("update", change.getOperation());
+        assertEquals(id.toHexString(), change.getId());
+        assertEquals("B1-U000001", change.getItem().getSerialNumber());
+        assertEquals("user1", change.getItem().getHeldBy());
+    }
+
+    @Test
+    public void testProductDeleteEvictsByIdFromOtherNodesCache() {
+        Product product = new Product();
+        product.setId("p1");
+        product.setBarcode("B1");
+        ProductCatalogCache cache = new ProductCatalogCache(mock(ProductRepository.class), 100, Duration.ofMinutes(10));
+        cache.put(product);
+
+        Object event = ChangeStreamListener.toEvent("products", "delete",
+                new BsonDocument("_id", new BsonString("p1")), null, converter);
+        cache.onProductChange((ProductChangeEvent) event);
+
+        assertEquals(Optional.empty(), cache.findCached("B1"));
+        assertNull(ChangeStreamListener.toEvent("carts", "update", null, null, converter));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.scanbill.component;
+
+import com.example.scanbill.model.SeedProgress;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DataSeederTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private DataSeeder dataSeeder;
+
+    @BeforeEach
+    public void setUp() {
+        SeedProperties properties = new SeedProperties();
+        properties.setSkusPerStore(4);
+        properties.setUnitsPerSku(5);
+        properties.setBatchSize(8);
+        dataSeeder = new DataSeeder(mongoTemplate, passwordEncoder, properties, eventPublisher);
+    }
+
+    @Test
+    public void testCompletedStoreIsLeftAlone() {
+        when(mongoTemplate.findById("store-0002", SeedProgress.class))
+                .thenReturn(new SeedProgress("store-0002", 4, 20, LocalDateTime.now(), LocalDateTime.now()));
+
+        assertEquals(-1, dataSeeder.seedStore(2, "hash"));
+        verify(mongoTemplate, never()).bulkOps(any(), any(Class.class));
+        verify(mongoTemplate, never()).insert(any(Object.class));
+    }
+
+    @Test
+    public void testInterruptedStoreResumesSkippingWhatItAlreadyWrote() {
+        SeedProgress started = new SeedProgress("store-0001", 0, 0, LocalDateTime.now(), null);
+        when(mongoTemplate.findById("store-0001", SeedProgress.class)).thenReturn(started);
+        when(mongoTemplate.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), any(Class.class)))
+                .thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+
+        // The first unit batch was written before the restart and now comes back as duplicates
+        BulkWriteResult none = mock(BulkWriteResult.class);
+        when(none.getInsertedCount()).thenReturn(0);
+        List<BulkWriteError> duplicates = List.of(new BulkWriteError(11000, "dup", new BsonDocument(), 0));
+        BulkWriteResult full = mock(BulkWriteResult.class);
+        when(full.getInsertedCount()).thenReturn(8);
+        BulkWriteResult rest = mock(BulkWriteResult.class);
+        when(rest.getInsertedCount()).thenReturn(4, 4);
+        when(bulkOperations.execute())
+                .thenThrow(new BulkOperationException("E11000", new MongoBulkWriteException(none, duplicates, null,
+                        new ServerAddress(), Collections.emptySet())))
+                .thenReturn(full, rest, rest);
+
+        // Units in batches of 8, 8 and 4 plus one batch of 4 products; the first batch added nothing
+        assertEquals(16, dataSeeder.seedStore(1, "hash"));
+        verify(mongoTemplate, never()).insert(any(Object.class));
+        verify(bulkOperations, times(4)).execute();
+        assertNotNull(started.getCompletedAt());
+        assertEquals(20, started.getUnits());
+        verify(mongoTemplate).save(started);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.scanbill.component;
+
+import com.example.scanbill.model.Product;
+import com.example.scanbill.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductCatalogCacheTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductCatalogCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new ProductCatalogCache(productRepository, 100, Duration.ofMinutes(10));
+    }
+
+    private static Product product(String name, Long version) {
+        Product product = new Product();
+        product.setId("p1");
+        product.setBarcode("B1");
+        product.setName(name);
+        product.setVersion(version);
+        return product;
+    }
+
+    @Test
+    public void testOlderCopyDoesNotReplaceNewerVersion() {
+        cache.put(product("renamed", 3L));
+        // A read that loaded the product before the rename lands afterwards
+        cache.put(product("original", 2L));
+
+        assertEquals("renamed", cache.findCached("B1").orElseThrow().getName());
+    }
+
+    @Test
+    public void testNewerVersionReplacesCachedCopy() {
+        cache.put(product("original", 2L));
+        cache.put(product("renamed", 3L));
+
+        assertEquals("renamed", cache.findCached("B1").orElseThrow().getName());
+    }
+}
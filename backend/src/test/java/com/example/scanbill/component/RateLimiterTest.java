@@ -0,0 +1,118 @@
+package com.example.scanbill.component;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RateLimiterTest {
+
+    @Mock
+    private ScanBillMetrics scanBillMetrics;
+
+    private final AtomicLong now = new AtomicLong();
+    private RateLimitProperties properties;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new RateLimitProperties();
+        properties.setStore(new RateLimitProperties.Bucket(100, 100));
+        properties.setUser(new RateLimitProperties.Bucket(2, 3));
+        properties.setMaxConcurrentCheckouts(2);
+        properties.setMaxConcurrentCheckoutsPerStore(1);
+        lenient().when(scanBillMetrics.storeTag(anyString())).thenAnswer(call -> {
+            String storeId = call.getArgument(0);
+            return storeId.startsWith("store") ? storeId : "other";
+        });
+    }
+
+    private RateLimiter limiter() {
+        return new RateLimiter(properties, scanBillMetrics, now::get);
+    }
+
+    @Test
+    public void testTillGetsItsBurstThenWaitsForTheRate() {
+        RateLimiter limiter = limiter();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("store1", "till1").isZero());
+        }
+        // Two per second: the next token is half a second away
+        assertEquals(Duration.ofMillis(500), limiter.tryAcquire("store1", "till1"));
+        verify(scanBillMetrics).rateLimited("store1", "user");
+
+        // Another till in the store is unaffected
+        assertTrue(limiter.tryAcquire("store1", "till2").isZero());
+
+        now.addAndGet(Duration.ofMillis(500).toNanos());
+        assertTrue(limiter.tryAcquire("store1", "till1").isZero());
+    }
+
+    @Test
+    public void testStoreOverrideReplacesTheDefaultBucket() {
+        RateLimitProperties.StoreOverride big = new RateLimitProperties.StoreOverride();
+        big.setUser(new RateLimitProperties.Bucket(50, 50));
+        properties.getStores().put("store2", big);
+        RateLimiter limiter = limiter();
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire("store2", "till1").isZero());
+        }
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("store1", "till1").isZero());
+        }
+        assertFalse(limiter.tryAcquire("store1", "till1").isZero());
+    }
+
+    @Test
+    public void testCheckoutsAreShedOverTheConcurrencyLimit() {
+        RateLimiter limiter = limiter();
+        Semaphore first = limiter.tryAdmitCheckout("store1");
+        assertNotNull(first);
+        // One at a time per store
+        assertNull(limiter.tryAdmitCheckout("store1"));
+        Semaphore second = limiter.tryAdmitCheckout("store2");
+        assertNotNull(second);
+        // Two at a time on the node
+        assertNull(limiter.tryAdmitCheckout("store3"));
+        verify(scanBillMetrics).rateLimited("store1", "checkout-store");
+        verify(scanBillMetrics).rateLimited("store3", "checkout");
+
+        limiter.releaseCheckout(first);
+        assertNotNull(limiter.tryAdmitCheckout("store1"));
+    }
+
+    @Test
+    public void testTillIsNotChargedWhenItsStoreIsOutOfTokens() {
+        properties.setStore(new RateLimitProperties.Bucket(1, 1));
+        RateLimiter limiter = limiter();
+        assertTrue(limiter.tryAcquire("store1", "till1").isZero());
+        for (int i = 0; i < 5; i++) {
+            assertFalse(limiter.tryAcquire("store1", "till1").isZero());
+        }
+        verify(scanBillMetrics, times(5)).rateLimited("store1", "store");
+
+        // Once the store refills, the till still has the rest of its burst
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertTrue(limiter.tryAcquire("store1", "till1").isZero());
+        verify(scanBillMetrics, never()).rateLimited("store1", "user");
+    }
+
+    @Test
+    public void testUnknownStoresShareOneCheckoutGate() {
+        RateLimiter limiter = limiter();
+        assertNotNull(limiter.tryAdmitCheckout("made-up-1"));
+        // Same gate as the first made-up id, which already holds its one permit
+        assertNull(limiter.tryAdmitCheckout("made-up-2"));
+        verify(scanBillMetrics).rateLimited("made-up-2", "checkout-store");
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.scanbill.component;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScanBillMetricsTest {
+
+    @Test
+    public void testUnknownStoresShareOneTagValue() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ScanBillMetrics metrics = new ScanBillMetrics(registry);
+        metrics.setKnownStores(List.of("store1"));
+
+        metrics.itemAlreadySold("store1", "scan");
+        for (int i = 0; i < 100; i++) {
+            metrics.itemAlreadySold("made-up-" + i, "scan");
+        }
+        metrics.itemAlreadySold(null, "scan");
+
+        assertEquals(1.0, registry.get("scanbill.inventory.already.sold").tag("store", "store1").counter().count());
+        assertEquals(100.0, registry.get("scanbill.inventory.already.sold").tag("store", "other").counter().count());
+        assertEquals(1.0, registry.get("scanbill.inventory.already.sold").tag("store", "none").counter().count());
+        assertEquals(3, registry.get("scanbill.inventory.already.sold").counters().size());
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.scanbill.component;
+
+import com.example.scanbill.model.CartItem;
+import com.example.scanbill.model.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StoreEventBroadcasterTest {
+
+    @Mock
+    private AsyncTaskExecutor taskExecutor;
+
+    @Mock
+    private ScanBillMetrics scanBillMetrics;
+
+    private final List<Runnable> pending = new ArrayList<>();
+    private StoreEventBroadcaster broadcaster;
+
+    /**
+     * Records what was written to the wire as text.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        final List<String> sent = new ArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sent.add(builder.build().stream().map(d -> String.valueOf(d.getData())).collect(Collectors.joining()));
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        lenient().doAnswer(invocation -> pending.add(invocation.getArgument(0))).when(taskExecutor)
+                .execute(any(Runnable.class));
+        broadcaster = new StoreEventBroadcaster(taskExecutor, scanBillMetrics, 2, Duration.ofMinutes(1), false);
+    }
+
+    private static Order order(String id, String storeId) {
+        Order order = new Order();
+        order.setId(id);
+        order.setStoreId(storeId);
+        order.setItems(List.of(new CartItem("p1", "Item", 5000, 0, 0, 2, "S1", "B1")));
+        return order;
+    }
+
+    private void runPending() {
+        while (!pending.isEmpty()) {
+            pending.remove(0).run();
+        }
+    }
+
+    @Test
+    public void testCheckoutReachesOnlyItsStoresFeeds() {
+        RecordingEmitter store1 = new RecordingEmitter();
+        RecordingEmitter store2 = new RecordingEmitter();
+        broadcaster.subscribe("store1", store1);
+        broadcaster.subscribe("store2", store2);
+
+        broadcaster.orderCreated(order("o1", "store1"));
+        runPending();
+
+        assertEquals(2, store1.sent.size());
+        assertTrue(store1.sent.get(0).startsWith("event:order-created"));
+        assertTrue(store1.sent.get(1).startsWith("event:stock"));
+        assertTrue(store2.sent.isEmpty());
+        // One drain per burst, not one task per event
+        verify(taskExecutor, times(1)).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void testSlowFeedIsToldToResyncInsteadOfBuffering() {
+        RecordingEmitter slow = new RecordingEmitter();
+        broadcaster.subscribe("store1", slow);
+
+        // Nothing drains while these are queued; the queue holds two events
+        broadcaster.paymentStatus(order("o1", "store1"));
+        broadcaster.paymentStatus(order("o2", "store1"));
+        broadcaster.paymentStatus(order("o3", "store1"));
+        runPending();
+
+        assertEquals(1, slow.sent.size());
+        assertTrue(slow.sent.get(0).startsWith("event:resync"));
+        verify(scanBillMetrics).liveEventsDropped("store1");
+    }
+
+    @Test
+    public void testRefusedDeliveryIsRetriedOnTheNextOffer() {
+        RecordingEmitter feed = new RecordingEmitter();
+        broadcaster.subscribe("store1", feed);
+        doThrow(new RejectedExecutionException("full")).doAnswer(invocation -> pending.add(invocation.getArgument(0)))
+                .when(taskExecutor).execute(any(Runnable.class));
+
+        broadcaster.paymentStatus(order("o1", "store1"));
+        runPending();
+        assertTrue(feed.sent.isEmpty());
+
+        // The heartbeat finds the event still queued and schedules the drain again
+        broadcaster.heartbeat();
+        runPending();
+        assertEquals(2, feed.sent.size());
+        assertTrue(feed.sent.get(0).startsWith("event:payment-status"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.scanbill.component;
+
+import com.example.scanbill.model.Cart;
+import com.example.scanbill.model.CartItem;
+import com.example.scanbill.repository.CartRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class WriteBehindCartStoreTest {
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private WriteBehindCartStore store;
+
+    @BeforeEach
+    public void setUp() {
+        store = new WriteBehindCartStore(cartRepository, mongoTemplate, 500, Duration.ofMinutes(30));
+    }
+
+    private CartItem line(String serial) {
+        return new CartItem("p1", "Item", 11800, 1800, 0, 1, serial, "B-p1");
+    }
+
+    @Test
+    public void testScansStayInMemoryUntilFlush() {
+        when(cartRepository.findByUserId("user1")).thenReturn(Optional.empty());
+
+        store.pushItem("user1", "store1", line("S1"));
+        store.pushItem("user1", "store1", line("S2"));
+        assertTrue(store.pushItem("user1", "store1", line("S1")).isEmpty());
+        Cart cart = store.pullItem("user1", line("S2")).orElseThrow();
+
+        assertEquals(List.of("S1"), cart.getItems().stream().map(CartItem::getSerialNumber).toList());
+        assertEquals(11800, cart.getTotalPaise());
+        verify(cartRepository, times(1)).findByUserId("user1");
+        verifyNoInteractions(mongoTemplate);
+
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Cart.class)).thenReturn(bulkOperations);
+        store.flush();
+
+        ArgumentCaptor<Cart> written = ArgumentCaptor.forClass(Cart.class);
+        verify(bulkOperations).replaceOne(any(Query.class), written.capture(), any(FindAndReplaceOptions.class));
+        verify(bulkOperations).execute();
+        assertEquals("user1", written.getValue().getUserId());
+        assertEquals(1, written.getValue().getItems().size());
+
+        // Nothing changed since, so the next round writes nothing
+        store.flush();
+        verify(mongoTemplate, times(1)).bulkOps(any(BulkOperations.BulkMode.class), eq(Cart.class));
+    }
+
+    @Test
+    public void testFailedFlushIsRetried() {
+        when(cartRepository.findByUserId("user1")).thenReturn(Optional.empty());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Cart.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute())
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(null);
+
+        store.pushItem("user1", "store1", line("S1"));
+        store.flush();
+        store.flush();
+
+        verify(bulkOperations, times(2)).replaceOne(any(Query.class), any(Cart.class),
+                any(FindAndReplaceOptions.class));
+    }
+
+    @Test
+    public void testReactiveProfileIsRejected() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("reactive");
+
+        assertThrows(IllegalStateException.class, () -> new WriteBehindCartStore(cartRepository, mongoTemplate,
+                environment, 500, Duration.ofMinutes(30)));
+    }
+}
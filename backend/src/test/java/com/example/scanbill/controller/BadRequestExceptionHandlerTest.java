@@ -0,0 +1,30 @@
+package com.example.scanbill.controller;
+
+import com.example.scanbill.service.IdempotencyService;
+import com.example.scanbill.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BadRequestExceptionHandlerTest {
+
+    @Test
+    public void testMalformedCursorIsABadRequest() throws Exception {
+        OrderService orderService = mock(OrderService.class);
+        when(orderService.getOrderPage("store1", null, null, "not-a-cursor", 50))
+                .thenThrow(new OrderService.InvalidCursorException("not-a-cursor", new IllegalArgumentException()));
+        MockMvc mvc = MockMvcBuilders
+                .standaloneSetup(new OrderController(orderService, mock(IdempotencyService.class)))
+                .setControllerAdvice(new BadRequestExceptionHandler())
+                .build();
+
+        mvc.perform(get("/api/orders/page").param("storeId", "store1").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid cursor: not-a-cursor"));
+    }
+}
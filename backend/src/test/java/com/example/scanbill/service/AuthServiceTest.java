@@ -0,0 +1,85 @@
+package com.example.scanbill.service;
+
+import com.example.scanbill.model.Role;
+import com.example.scanbill.model.User;
+import com.example.scanbill.repository.StoreRepository;
+import com.example.scanbill.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AuthServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private StoreRepository storeRepository;
+
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+    private SessionTokenService sessionTokenService;
+    private AuthService authService;
+
+    @BeforeEach
+    public void setUp() {
+        sessionTokenService = new SessionTokenService(userRepository, "test-secret", Duration.ofHours(1),
+                Duration.ofMinutes(1), Clock.fixed(Instant.parse("2024-01-02T10:00:00Z"), ZoneOffset.UTC));
+        authService = new AuthService(userRepository, storeRepository, passwordEncoder, sessionTokenService);
+    }
+
+    @Test
+    public void testLegacyPlaintextPasswordIsHashedOnLogin() {
+        User legacy = new User("u1", "admin1", "pass123", Role.ADMIN, "store1", 0L);
+        when(userRepository.findByUsername("admin1")).thenReturn(Optional.of(legacy));
+        when(userRepository.save(any(User.class))).thenAnswer(i -> i.getArgument(0));
+
+        User user = authService.login("admin1", "pass123");
+
+        assertTrue(AuthService.isHashed(user.getPassword()));
+        assertTrue(passwordEncoder.matches("pass123", user.getPassword()));
+        verify(userRepository).save(legacy);
+
+        // Once hashed, a wrong password and an unknown user fail the same way
+        RuntimeException wrong = assertThrows(RuntimeException.class, () -> authService.login("admin1", "nope"));
+        RuntimeException unknown = assertThrows(RuntimeException.class, () -> authService.login("ghost", "x"));
+        assertEquals(wrong.getMessage(), unknown.getMessage());
+    }
+
+    @Test
+    public void testTokenAuthorizesUntilTamperedOrUserSavedAgain() {
+        User user = new User("u1", "admin1", passwordEncoder.encode("pass123"), Role.ADMIN, "store1", 4L);
+        when(userRepository.findById("u1")).thenReturn(Optional.of(user));
+
+        String token = authService.issueToken(user);
+        SessionTokenService.Session session = sessionTokenService.verify(token).orElseThrow();
+        assertEquals("u1", session.userId());
+        assertEquals(Role.ADMIN, session.role());
+        assertEquals("store1", session.storeId());
+
+        // Repeat checks come from the cache
+        sessionTokenService.verify(token);
+        verify(userRepository, times(1)).findById("u1");
+
+        String forged = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertTrue(sessionTokenService.verify(forged).isEmpty());
+
+        // Saving the user (new password, role...) bumps its version and revokes the token
+        user.setVersion(5L);
+        sessionTokenService.evict("u1");
+        assertTrue(sessionTokenService.verify(token).isEmpty());
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.scanbill.service;
+
+import com.example.scanbill.component.CartStore;
+import com.example.scanbill.component.ProductCatalogCache;
+import com.example.scanbill.component.ScanBillMetrics;
+import com.example.scanbill.model.Cart;
+import com.example.scanbill.model.CartBatchResult;
+import com.example.scanbill.model.CartItem;
+import com.example.scanbill.model.InventoryItem;
+import com.example.scanbill.model.Product;
+import com.example.scanbill.model.ScanResult;
+import com.example.scanbill.repository.InventoryItemRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CartServiceTest {
+
+    @Mock
+    private CartStore cartStore;
+
+    @Mock
+    private ProductCatalogCache productCatalogCache;
+
+    @Mock
+    private InventoryItemRepository inventoryItemRepository;
+
+    @Mock
+    private ScanBillMetrics scanBillMetrics;
+
+    @Mock
+    private InventoryHoldService inventoryHoldService;
+
+    @InjectMocks
+    private CartService cartService;
+
+    private Product product(String id, double price, double taxRate) {
+        Product product = new Product();
+        product.setId(id);
+        product.setBarcode("B-" + id);
+        product.setName("Item " + id);
+        product.setPrice(price);
+        product.setTaxRate(taxRate);
+        return product;
+    }
+
+    @Test
+    public void testCartItemCarvesTaxOutOfInclusivePrice() {
+        CartItem item = CartService.toCartItem(product("p1", 118.0, 18.0), "S1");
+
+        assertEquals(11800, item.getPricePaise());
+        assertEquals(1800, item.getTaxPaise());
+        assertEquals(10000, item.lineSubtotalPaise());
+        assertEquals(118.0, item.getPrice());
+    }
+
+    @Test
+    public void testAddToCartPushesSingleLine() {
+        InventoryItem unit = new InventoryItem("i1", "B-p1", "S1", "RESERVED", "store1", null, "user1", null, 2L);
+        when(inventoryHoldService.hold("S1", "user1")).thenReturn(Optional.of(unit));
+        when(productCatalogCache.findByBarcode("B-p1")).thenReturn(Optional.of(product("p1", 118.0, 18.0)));
+        Cart updated = new Cart();
+        when(cartStore.pushItem(eq("user1"), eq("store1"), any(CartItem.class))).thenReturn(Optional.of(updated));
+
+        assertSame(updated, cartService.addToCart("user1", "S1", "store1"));
+
+        ArgumentCaptor<CartItem> line = ArgumentCaptor.forClass(CartItem.class);
+        verify(cartStore).pushItem(eq("user1"), eq("store1"), line.capture());
+        assertEquals("S1", line.getValue().getSerialNumber());
+        assertEquals(11800, line.getValue().lineTotalPaise());
+        // No read-modify-write of the whole cart
+        verify(cartStore, never()).getOrCreate(anyString(), anyString());
+    }
+
+    @Test
+    public void testAddToCartRejectsDuplicateSerial() {
+        InventoryItem unit = new InventoryItem("i1", "B-p1", "S1", "RESERVED", "store1", null, "user1", null, 2L);
+        when(inventoryHoldService.hold("S1", "user1")).thenReturn(Optional.of(unit));
+        when(productCatalogCache.findByBarcode("B-p1")).thenReturn(Optional.of(product("p1", 50.0, 0)));
+        when(cartStore.pushItem(eq("user1"), eq("store1"), any(CartItem.class))).thenReturn(Optional.empty());
+
+        assertThrows(RuntimeException.class, () -> cartService.addToCart("user1", "S1", "store1"));
+    }
+
+    @Test
+    public void testAddToCartRefusesUnitHeldByAnotherCart() {
+        when(inventoryHoldService.hold("S1", "user1")).thenReturn(Optional.empty());
+        when(inventoryItemRepository.findBySerialNumber("S1")).thenReturn(Optional.of(
+                new InventoryItem("i1", "B-p1", "S1", "RESERVED", "store1", null, "user2", null, 2L)));
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> cartService.addToCart("user1", "S1", "store1"));
+
+        assertEquals("Item is held in another cart", e.getMessage());
+        verify(cartStore, never()).pushItem(anyString(), anyString(), any());
+    }
+
+    @Test
+    public void testBatchResolvesEverythingInOnePass() {
+        when(inventoryItemRepository.findBySerialNumberIn(List.of("S1", "S2", "S3", "S4"))).thenReturn(List.of(
+                new InventoryItem("i1", "B-p1", "S1", "RESERVED", "store1", null, "user1", null, 2L),
+                new InventoryItem("i2", "B-p1", "S2", "RESERVED", "store1", null, "user1", null, 2L),
+                new InventoryItem("i3", "B-p1", "S3", "RESERVED", "store1", null, "user2", null, 2L)));
+        when(productCatalogCache.findAllByBarcodes(Set.of("B-p1")))
+                .thenReturn(Map.of("B-p1", product("p1", 118.0, 18.0)));
+        Cart before = new Cart();
+        before.setItems(new ArrayList<>(List.of(CartService.toCartItem(product("p1", 118.0, 18.0), "S2"),
+                CartService.toCartItem(product("p1", 118.0, 18.0), "S9"))));
+        when(cartStore.applyBatch(eq("user1"), eq("store1"), anyList(), eq(Set.of("S9", "S8"))))
+                .thenReturn(Optional.of(before));
+
+        CartBatchResult result = cartService.applyBatch("user1", "store1",
+                List.of("S1", "S2", "S3", "S4", "S1"), List.of("S9", "S8"));
+
+        assertEquals(List.of("ADDED", "ALREADY_IN_CART", "NOT_AVAILABLE", "NOT_FOUND", "DUPLICATE", "REMOVED",
+                "NOT_IN_CART"), result.getResults().stream().map(ScanResult::getStatus).toList());
+        assertEquals(List.of("S2", "S1"),
+                result.getCart().getItems().stream().map(CartItem::getSerialNumber).toList());
+        assertEquals(23600, result.getCart().getTotalPaise());
+        verify(cartStore, times(1)).applyBatch(anyString(), anyString(), anyList(), any());
+        verify(inventoryItemRepository, never()).findBySerialNumber(anyString());
+        verify(inventoryHoldService).holdAll(List.of("S1", "S2", "S3", "S4"), "user1");
+        verify(inventoryHoldService).release(Set.of("S9", "S8"), "user1");
+    }
+
+    @Test
+    public void testCalculateTotalSumsLines() {
+        Cart cart = new Cart();
+        cart.setItems(new ArrayList<>());
+        cart.getItems().add(CartService.toCartItem(product("p1", 19.99, 18.0), "S1"));
+        cart.getItems().add(CartService.toCartItem(product("p2", 250.0, 5.0), "S2"));
+
+        CartService.calculateTotal(cart);
+
+        assertEquals(26999, cart.getTotalPaise());
+        assertEquals(cart.getTotalPaise(), cart.getSubtotalPaise() + cart.getTaxPaise() - cart.getDiscountPaise());
+    }
+}
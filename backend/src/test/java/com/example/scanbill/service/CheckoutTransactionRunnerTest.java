@@ -0,0 +1,84 @@
+package com.example.scanbill.service;
+
+import com.example.scanbill.component.ScanBillMetrics;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.ServerAddress;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CheckoutTransactionRunnerTest {
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ScanBillMetrics scanBillMetrics;
+
+    private CheckoutTransactionRunner runner(int maxAttempts) {
+        return new CheckoutTransactionRunner(transactionTemplate, scanBillMetrics, maxAttempts, Duration.ZERO,
+                Duration.ZERO, Duration.ofSeconds(5));
+    }
+
+    private static RuntimeException writeConflict() {
+        BsonDocument response = new BsonDocument("ok", new BsonInt32(0))
+                .append("code", new BsonInt32(112))
+                .append("errmsg", new BsonString("WriteConflict"))
+                .append("errorLabels", new BsonArray(List.of(
+                        new BsonString(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL))));
+        return new DataIntegrityViolationException("write conflict",
+                new MongoCommandException(response, new ServerAddress()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRetriesWriteConflictsThenSucceeds() {
+        when(transactionTemplate.execute(any(TransactionCallback.class)))
+                .thenThrow(writeConflict())
+                .thenThrow(writeConflict())
+                .thenReturn("order-1");
+
+        assertEquals("order-1", runner(4).run("store1", () -> "unused"));
+        verify(scanBillMetrics, times(2)).checkoutTransactionRetry("store1", "write_conflict");
+        verify(scanBillMetrics).recordCheckoutAttempts("store1", 3);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBusinessFailureIsNotRetried() {
+        when(transactionTemplate.execute(any(TransactionCallback.class)))
+                .thenThrow(new RuntimeException("One or more items already sold. Please refresh cart."));
+
+        assertThrows(RuntimeException.class, () -> runner(4).run("store1", () -> "unused"));
+        verify(transactionTemplate, times(1)).execute(any(TransactionCallback.class));
+        verify(scanBillMetrics, never()).checkoutTransactionRetry(any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGivesUpAfterMaxAttempts() {
+        when(transactionTemplate.execute(any(TransactionCallback.class))).thenThrow(writeConflict());
+
+        assertThrows(OptimisticLockingFailureException.class, () -> runner(3).run("store1", () -> "unused"));
+        verify(transactionTemplate, times(3)).execute(any(TransactionCallback.class));
+        verify(scanBillMetrics).checkoutTransactionAbandoned("store1", "write_conflict");
+    }
+}
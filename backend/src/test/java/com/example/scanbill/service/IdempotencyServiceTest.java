@@ -0,0 +1,130 @@
+package com.example.scanbill.service;
+
+import com.example.scanbill.component.ScanBillMetrics;
+import com.example.scanbill.model.IdempotencyRecord;
+import com.example.scanbill.model.Order;
+import com.mongodb.client.result.DeleteResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ScanBillMetrics scanBillMetrics;
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    public void setUp() {
+        idempotencyService = new IdempotencyService(mongoTemplate, scanBillMetrics, Duration.ofHours(24),
+                Duration.ofSeconds(30), Duration.ofSeconds(5));
+    }
+
+    private Order order(String id) {
+        Order order = new Order();
+        order.setId(id);
+        return order;
+    }
+
+    @Test
+    public void testConcurrentDuplicateWaitsForFirstResult() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        CompletableFuture<Order> first = CompletableFuture.supplyAsync(() -> idempotencyService.execute(
+                "checkout", "key-1", "user1:store1", Order.class, () -> {
+                    runs.incrementAndGet();
+                    running.countDown();
+                    try {
+                        finish.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return order("o1");
+                }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Order> retry = CompletableFuture.supplyAsync(() -> idempotencyService.execute(
+                "checkout", "key-1", "user1:store1", Order.class, () -> {
+                    runs.incrementAndGet();
+                    return order("o2");
+                }));
+        verify(scanBillMetrics, timeout(5000)).idempotentReplay("checkout", "in_flight");
+        finish.countDown();
+
+        assertEquals("o1", first.get(5, TimeUnit.SECONDS).getId());
+        assertEquals("o1", retry.get(5, TimeUnit.SECONDS).getId());
+        assertEquals(1, runs.get());
+        verify(mongoTemplate, times(1)).insert(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    public void testCompletedKeyIsReplayedFromStore() {
+        when(mongoTemplate.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(mongoTemplate.findById("checkout:key-1", IdempotencyRecord.class)).thenReturn(new IdempotencyRecord(
+                "checkout:key-1", "user1:store1", "COMPLETED", order("o1"), null, LocalDateTime.now().plusHours(1)));
+
+        Order result = idempotencyService.execute("checkout", "key-1", "user1:store1", Order.class, () -> {
+            throw new AssertionError("must not run again");
+        });
+
+        assertEquals("o1", result.getId());
+        verify(scanBillMetrics).idempotentReplay("checkout", "stored");
+        assertThrows(RuntimeException.class, () -> idempotencyService.execute("checkout", "key-1", "user2:store1",
+                Order.class, () -> order("o2")));
+    }
+
+    @Test
+    public void testFailureReleasesKey() {
+        when(mongoTemplate.remove(any(Query.class), eq(IdempotencyRecord.class))).thenReturn(DeleteResult.acknowledged(1));
+
+        assertThrows(RuntimeException.class, () -> idempotencyService.execute("checkout", "key-1", "user1:store1",
+                Order.class, () -> {
+                    throw new RuntimeException("Cart is empty");
+                }));
+
+        verify(mongoTemplate).remove(any(Query.class), eq(IdempotencyRecord.class));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class));
+    }
+
+    @Test
+    public void testReactiveCompletedKeyIsReplayedWithoutSubscribing() {
+        when(mongoTemplate.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(mongoTemplate.findById("checkout:key-1", IdempotencyRecord.class)).thenReturn(new IdempotencyRecord(
+                "checkout:key-1", "user1:store1", "COMPLETED", order("o1"), null, LocalDateTime.now().plusHours(1)));
+        AtomicInteger runs = new AtomicInteger();
+
+        Order result = idempotencyService.executeMono("checkout", "key-1", "user1:store1", Order.class,
+                () -> Mono.fromSupplier(() -> {
+                    runs.incrementAndGet();
+                    return order("o2");
+                })).block(Duration.ofSeconds(5));
+
+        assertEquals("o1", result.getId());
+        assertEquals(0, runs.get());
+    }
+}
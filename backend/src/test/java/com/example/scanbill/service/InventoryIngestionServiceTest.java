@@ -0,0 +1,204 @@
+package com.example.scanbill.service;
+
+import com.example.scanbill.component.ProductCatalogCache;
+import com.example.scanbill.model.IngestionJob;
+import com.example.scanbill.model.IngestionLine;
+import com.example.scanbill.model.InventoryItem;
+import com.example.scanbill.model.Product;
+import com.example.scanbill.model.SerialSequence;
+import com.example.scanbill.repository.IngestionJobRepository;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InventoryIngestionServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private IngestionJobRepository ingestionJobRepository;
+
+    @Mock
+    private ProductCatalogCache productCatalogCache;
+
+    @Mock
+    private StockLevelService stockLevelService;
+
+    @Mock
+    private AsyncTaskExecutor taskExecutor;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private InventoryIngestionService service;
+
+    private IngestionJob stored;
+
+    @BeforeEach
+    public void setUp() {
+        service = new InventoryIngestionService(mongoTemplate, ingestionJobRepository, productCatalogCache,
+                stockLevelService, taskExecutor, 2);
+    }
+
+    private void stubJobStorage() {
+        when(ingestionJobRepository.save(any(IngestionJob.class))).thenAnswer(inv -> {
+            stored = inv.getArgument(0);
+            stored.setId("job1");
+            return stored;
+        });
+        when(ingestionJobRepository.findById("job1")).thenAnswer(inv -> Optional.of(stored));
+    }
+
+    private static BulkWriteResult inserted(int count) {
+        return BulkWriteResult.acknowledged(count, 0, 0, 0, Collections.emptyList(), Collections.emptyList());
+    }
+
+    @Test
+    public void testParseManifest() throws Exception {
+        List<String> rejected = new ArrayList<>();
+        List<IngestionLine> lines = InventoryIngestionService.parseManifest(new StringReader(
+                "barcode,quantity\n\nA001, 5\n# pallet 2\nA002,x\nA003\nA004,12\n"), rejected);
+
+        assertEquals(2, lines.size());
+        assertEquals("A001", lines.get(0).getBarcode());
+        assertEquals(5, lines.get(0).getQuantity());
+        assertEquals(12, lines.get(1).getQuantity());
+        assertEquals(List.of("Row 5: invalid quantity 'x'", "Row 6: expected barcode,quantity"), rejected);
+    }
+
+    @Test
+    public void testIngestWritesChunksWithSequenceSerials() {
+        stubJobStorage();
+        Product product = new Product();
+        product.setBarcode("A001");
+        product.setStoreId("store1");
+        when(productCatalogCache.findByBarcode("A001")).thenReturn(Optional.of(product));
+        when(productCatalogCache.findByBarcode("Z999")).thenReturn(Optional.empty());
+        // Sequence was at 10; reserving 3 hands out 11..13
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(SerialSequence.class))).thenReturn(new SerialSequence("A001", 13));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InventoryItem.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(inserted(2), inserted(1));
+
+        IngestionJob job = service.ingest("store1", "CSV",
+                List.of(new IngestionLine("A001", 3, 0, 0), new IngestionLine("Z999", 4, 0, 0)), List.of());
+
+        assertEquals(3, job.getTotalUnits());
+        assertEquals(List.of("Z999: product not found in store"), job.getRejected());
+        assertEquals(11, job.getLines().get(0).getFirstSequence());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<InventoryItem>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(bulkOperations, times(2)).insert(chunks.capture());
+        assertEquals(List.of("A001-U000011", "A001-U000012"),
+                chunks.getAllValues().get(0).stream().map(InventoryItem::getSerialNumber).toList());
+        assertEquals(List.of("A001-U000013"),
+                chunks.getAllValues().get(1).stream().map(InventoryItem::getSerialNumber).toList());
+        verify(stockLevelService).recordAdded("store1", "A001", 2);
+        verify(stockLevelService).recordAdded("store1", "A001", 1);
+    }
+
+    @Test
+    public void testResumeTreatsDuplicatesAsWritten() {
+        stored = new IngestionJob();
+        stored.setId("job1");
+        stored.setStoreId("store1");
+        stored.setStatus("FAILED");
+        stored.setTotalUnits(2);
+        stored.getLines().add(new IngestionLine("A001", 2, 1, 0));
+        when(ingestionJobRepository.findById("job1")).thenAnswer(inv -> Optional.of(stored));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(IngestionJob.class))).thenReturn(stored);
+        doAnswer(inv -> {
+            ((Runnable) inv.getArgument(0)).run();
+            return null;
+        }).when(taskExecutor).execute(any(Runnable.class));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InventoryItem.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        // The first attempt wrote unit 1 before failing
+        BulkWriteError duplicate = new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0);
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("E11000",
+                new MongoBulkWriteException(inserted(1), List.of(duplicate), null,
+                        new ServerAddress(), Collections.emptySet())));
+
+        service.resume("job1");
+
+        // Only the unit that was actually new is counted
+        verify(stockLevelService).recordAdded("store1", "A001", 1);
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, atLeastOnce()).updateFirst(any(Query.class), updates.capture(), eq(IngestionJob.class));
+        assertTrue(updates.getAllValues().stream()
+                .anyMatch(u -> "COMPLETED".equals(u.getUpdateObject().get("$set", Document.class)
+                        .get("status"))));
+    }
+
+    @Test
+    public void testConcurrentResumeRunsJobOnce() {
+        stored = new IngestionJob();
+        stored.setId("job1");
+        stored.setStatus("FAILED");
+        stored.setUpdatedAt(LocalDateTime.now().minusMinutes(5));
+        when(ingestionJobRepository.findById("job1")).thenReturn(Optional.of(stored));
+        // Another resume claimed the job between our read and our claim
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(IngestionJob.class))).thenReturn(null);
+
+        assertThrows(RuntimeException.class, () -> service.resume("job1"));
+
+        verify(taskExecutor, never()).execute(any(Runnable.class));
+        ArgumentCaptor<Query> claim = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findAndModify(claim.capture(), any(Update.class), any(FindAndModifyOptions.class),
+                eq(IngestionJob.class));
+        assertEquals("FAILED", claim.getValue().getQueryObject().get("status"));
+        assertEquals(stored.getUpdatedAt(), claim.getValue().getQueryObject().get("updatedAt"));
+    }
+
+    @Test
+    public void testJobThatFailsToSaveReservesNoSerials() {
+        Product product = new Product();
+        product.setBarcode("A001");
+        product.setStoreId("store1");
+        when(productCatalogCache.findByBarcode("A001")).thenReturn(Optional.of(product));
+        when(ingestionJobRepository.save(any(IngestionJob.class))).thenThrow(new RuntimeException("write failed"));
+
+        assertThrows(RuntimeException.class, () -> service.ingestAsync("store1", "CSV",
+                List.of(new IngestionLine("A001", 3, 0, 0)), List.of()));
+
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(SerialSequence.class));
+        verify(taskExecutor, never()).execute(any(Runnable.class));
+    }
+}
@@ -1,24 +1,31 @@
 package com.example.scanbill.service;
 
+import com.example.scanbill.component.CartStore;
+import com.example.scanbill.component.ScanBillMetrics;
+import com.example.scanbill.component.StoreEventBroadcaster;
 import com.example.scanbill.model.Cart;
 import com.example.scanbill.model.CartItem;
-import com.example.scanbill.model.InventoryItem;
 import com.example.scanbill.model.Order;
-import com.example.scanbill.repository.CartRepository;
+import com.example.scanbill.model.OrderPage;
 import com.example.scanbill.repository.InventoryItemRepository;
 import com.example.scanbill.repository.OrderRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,11 +35,29 @@ public class OrderServiceTest {
     private OrderRepository orderRepository;
 
     @Mock
-    private CartRepository cartRepository;
+    private CartStore cartStore;
 
     @Mock
     private InventoryItemRepository inventoryItemRepository;
 
+    @Mock
+    private InventoryHoldService inventoryHoldService;
+
+    @Mock
+    private StoreStatsService storeStatsService;
+
+    @Mock
+    private StockLevelService stockLevelService;
+
+    @Mock
+    private ScanBillMetrics scanBillMetrics;
+
+    @Mock
+    private CheckoutTransactionRunner checkoutTransactionRunner;
+
+    @Mock
+    private StoreEventBroadcaster storeEventBroadcaster;
+
     @InjectMocks
     private OrderService orderService;
 
@@ -47,21 +72,22 @@ public class OrderServiceTest {
         cart.setUserId(userId);
         cart.setStoreId(storeId);
         cart.setItems(new ArrayList<>());
-        cart.getItems().add(new CartItem("prod1", "Item 1", 100.0, 1, "S123"));
-        cart.setTotalAmount(100.0);
+        cart.getItems().add(new CartItem("prod1", "Item 1", 10000, 1525, 0, 1, "S123", "B1"));
+        cart.setTotalPaise(10000);
 
-        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(cart));
+        when(cartStore.find(userId)).thenReturn(Optional.of(cart));
 
-        // Mock Inventory Item
-        InventoryItem item = new InventoryItem("i1", "B123", "S123", "AVAILABLE", storeId, 1L);
-        when(inventoryItemRepository.findBySerialNumber("S123")).thenReturn(Optional.of(item));
+        // Mock Inventory Claim
+        when(inventoryItemRepository.convertHolds(eq(List.of("S123")), eq(userId), anyString(), any()))
+                .thenReturn(1L);
 
         // Mock Order Save
         Order savedOrder = new Order();
         savedOrder.setId("order1");
         savedOrder.setStatus("PAID");
         savedOrder.setIdempotencyKey(idempotencyKey);
-        when(orderRepository.save(any(Order.class))).thenReturn(savedOrder);
+        ArgumentCaptor<Order> orderCaptor = ArgumentCaptor.forClass(Order.class);
+        when(orderRepository.save(orderCaptor.capture())).thenReturn(savedOrder);
 
         // Execute
         Order result = orderService.checkout(userId, "John", "999", storeId, idempotencyKey);
@@ -69,9 +95,18 @@ public class OrderServiceTest {
         // Verify
         assertEquals("PAID", result.getStatus());
         assertEquals(idempotencyKey, result.getIdempotencyKey());
-        verify(inventoryItemRepository, times(1)).saveAll(any());
-        verify(cartRepository, times(1)).save(cart); // Should clear cart
-        assertTrue(cart.getItems().isEmpty());
+        verify(inventoryItemRepository, times(1)).convertHolds(any(), anyString(), anyString(), any());
+        verify(inventoryHoldService, never()).restore(anyString(), anyString());
+        verify(cartStore, times(1)).removeItems(userId, List.of("S123")); // Should clear cart
+        verify(storeStatsService, times(1)).recordOrder(savedOrder);
+        verify(stockLevelService, times(1)).recordSold(eq(storeId), any(), anyString());
+
+        // Order carries the paise breakdown of the cart
+        Order placed = orderCaptor.getValue();
+        assertEquals(10000, placed.getTotalPaise());
+        assertEquals(8475, placed.getSubtotalPaise());
+        assertEquals(1525, placed.getTaxPaise());
+        assertEquals(0, placed.getDiscountPaise());
     }
 
     @Test
@@ -91,8 +126,8 @@ public class OrderServiceTest {
         assertEquals("order-existing", result.getId());
 
         // Verify we NEVER touched the cart or inventory
-        verify(cartRepository, never()).findByUserId(anyString());
-        verify(inventoryItemRepository, never()).saveAll(any());
+        verify(cartStore, never()).find(anyString());
+        verify(inventoryItemRepository, never()).convertHolds(any(), anyString(), anyString(), any());
     }
 
     @Test
@@ -101,7 +136,7 @@ public class OrderServiceTest {
         Cart cart = new Cart();
         cart.setItems(new ArrayList<>()); // Empty
 
-        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(cart));
+        when(cartStore.find(userId)).thenReturn(Optional.of(cart));
 
         assertThrows(RuntimeException.class, () -> {
             orderService.checkout(userId, "John", "999", "store1", "key1");
@@ -113,15 +148,114 @@ public class OrderServiceTest {
         String userId = "user1";
         Cart cart = new Cart();
         cart.setItems(new ArrayList<>());
-        cart.getItems().add(new CartItem("p1", "Item Sold", 50.0, 1, "S-SOLD"));
+        cart.getItems().add(new CartItem("p1", "Item Sold", 5000, 0, 0, 1, "S-SOLD", "B1"));
 
-        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(cart));
+        when(cartStore.find(userId)).thenReturn(Optional.of(cart));
 
-        InventoryItem item = new InventoryItem("i1", "B1", "S-SOLD", "SOLD", "store1", 1L);
-        when(inventoryItemRepository.findBySerialNumber("S-SOLD")).thenReturn(Optional.of(item));
+        // Unit already SOLD: the conditional claim matches nothing
+        when(inventoryItemRepository.convertHolds(any(), anyString(), anyString(), any())).thenReturn(0L);
 
         assertThrows(RuntimeException.class, () -> {
             orderService.checkout(userId, "John", "999", "store1", "key1");
         });
+        verify(inventoryHoldService, times(1)).restore(anyString(), eq(userId));
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    public void testCheckoutPartialClaimRollsBack() {
+        String userId = "user1";
+        Cart cart = new Cart();
+        cart.setItems(new ArrayList<>());
+        cart.getItems().add(new CartItem("p1", "Item 1", 5000, 0, 0, 1, "S-1", "B1"));
+        cart.getItems().add(new CartItem("p2", "Item 2", 5000, 0, 0, 1, "S-2", "B2"));
+
+        when(cartStore.find(userId)).thenReturn(Optional.of(cart));
+
+        // Another till sold S-2 first, so only one of the two units is claimed
+        ArgumentCaptor<String> claimToken = ArgumentCaptor.forClass(String.class);
+        when(inventoryItemRepository.convertHolds(any(), anyString(), claimToken.capture(), any())).thenReturn(1L);
+
+        assertThrows(RuntimeException.class, () -> {
+            orderService.checkout(userId, "John", "999", "store1", "key1");
+        });
+        // S-1 goes back on hold for this cart rather than back on the shelf
+        verify(inventoryHoldService, times(1)).restore(claimToken.getValue(), userId);
+        verify(inventoryItemRepository, never()).releaseClaim(anyString(), anyString());
+        verify(cartStore, never()).removeItems(anyString(), any());
+        assertEquals(2, cart.getItems().size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testTransactionalCheckoutNeedsNoCompensation() {
+        String userId = "user1";
+        Cart cart = new Cart();
+        cart.setItems(new ArrayList<>());
+        cart.getItems().add(new CartItem("p1", "Item 1", 5000, 0, 0, 1, "S-1", "B1"));
+        cart.getItems().add(new CartItem("p2", "Item 2", 5000, 0, 0, 1, "S-2", "B2"));
+
+        when(cartStore.find(userId)).thenReturn(Optional.of(cart));
+        when(cartStore.joinsTransactions()).thenReturn(true);
+        when(checkoutTransactionRunner.isEnabled()).thenReturn(true);
+        when(checkoutTransactionRunner.run(eq("store1"), any()))
+                .thenAnswer(invocation -> ((Supplier<Order>) invocation.getArgument(1)).get());
+        when(inventoryItemRepository.convertHolds(any(), anyString(), anyString(), any())).thenReturn(1L);
+
+        // The short claim aborts the transaction, which undoes the one unit it did claim
+        assertThrows(RuntimeException.class, () -> orderService.checkout(userId, "John", "999", "store1", null));
+        verify(inventoryHoldService, never()).restore(anyString(), anyString());
+        verify(orderRepository, never()).save(any(Order.class));
+
+        when(inventoryItemRepository.convertHolds(any(), anyString(), anyString(), any())).thenReturn(2L);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order placed = orderService.checkout(userId, "John", "999", "store1", null);
+
+        assertEquals(10000, placed.getTotalPaise());
+        // Cleared inside the transaction, exactly once
+        verify(cartStore, times(1)).removeItems(userId, List.of("S-1", "S-2"));
+    }
+
+    @Test
+    public void testOrderPageCursorRoundTrip() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 15, 10, 30);
+        List<Order> firstBatch = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Order order = new Order();
+            order.setId("order" + i);
+            order.setTimestamp(now.minusMinutes(i));
+            firstBatch.add(order);
+        }
+        when(orderRepository.findPage("store1", null, null, null, null, 3)).thenReturn(firstBatch);
+
+        OrderPage first = orderService.getOrderPage("store1", null, null, null, 2);
+
+        assertEquals(2, first.getItems().size());
+        assertNotNull(first.getNextCursor());
+
+        // The cursor resumes after the last order returned on the first page
+        when(orderRepository.findPage("store1", null, null, now.minusMinutes(1), "order1", 3))
+                .thenReturn(List.of(firstBatch.get(2)));
+
+        OrderPage second = orderService.getOrderPage("store1", null, null, first.getNextCursor(), 2);
+
+        assertEquals(1, second.getItems().size());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    public void testMalformedOrderPageCursorIsRejected() {
+        assertThrows(OrderService.InvalidCursorException.class,
+                () -> orderService.getOrderPage("store1", null, null, "not-a-cursor", 2));
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    public void testRecentOrdersAreCappedLikeAPage() {
+        when(orderRepository.findPage("store1", null, null, null, null, 501)).thenReturn(List.of());
+
+        assertTrue(orderService.getRecentOrders("store1", 1_000_000).isEmpty());
+        verify(orderRepository).findPage("store1", null, null, null, null, 501);
     }
 }
@@ -0,0 +1,68 @@
+package com.example.scanbill.service;
+
+import com.example.scanbill.component.ProductCatalogCache;
+import com.example.scanbill.model.IngestionJob;
+import com.example.scanbill.model.IngestionLine;
+import com.example.scanbill.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private InventoryIngestionService inventoryIngestionService;
+
+    @Mock
+    private ProductCatalogCache productCatalogCache;
+
+    private ProductService productService;
+
+    @BeforeEach
+    public void setUp() {
+        productService = new ProductService(productRepository, inventoryIngestionService, productCatalogCache, 100);
+    }
+
+    private static IngestionJob job(String status) {
+        IngestionJob job = new IngestionJob();
+        job.setId("job1");
+        job.setStatus(status);
+        return job;
+    }
+
+    @Test
+    public void testSmallStockAdditionIsWrittenBeforeReturning() {
+        when(inventoryIngestionService.ingest(eq("store1"), eq("STOCK"), anyList(), anyList()))
+                .thenReturn(job("COMPLETED"));
+
+        assertEquals("COMPLETED", productService.addStock("A001", 100, "store1").getStatus());
+        verify(inventoryIngestionService, never()).ingestAsync(anyString(), anyString(), anyList(), anyList());
+    }
+
+    @Test
+    public void testLargeStockAdditionRunsInTheBackground() {
+        List<IngestionLine> lines = List.of(new IngestionLine("A001", 101, 0, 0));
+        when(inventoryIngestionService.ingestAsync("store1", "STOCK", lines, List.of())).thenReturn(job("RUNNING"));
+
+        IngestionJob job = productService.addStock("A001", 101, "store1");
+
+        assertEquals("job1", job.getId());
+        assertEquals("RUNNING", job.getStatus());
+        verify(inventoryIngestionService, never()).ingest(anyString(), anyString(), anyList(), any());
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.scanbill.service;
+
+import com.example.scanbill.component.ScanBillMetrics;
+import com.example.scanbill.component.StoreEventBroadcaster;
+import com.example.scanbill.model.Cart;
+import com.example.scanbill.model.CartItem;
+import com.example.scanbill.model.Order;
+import com.example.scanbill.repository.ReactiveCartRepository;
+import com.example.scanbill.repository.ReactiveInventoryItemRepository;
+import com.example.scanbill.repository.ReactiveOrderRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveOrderServiceTest {
+
+    @Mock
+    private ReactiveOrderRepository orderRepository;
+
+    @Mock
+    private ReactiveCartRepository cartRepository;
+
+    @Mock
+    private ReactiveInventoryItemRepository inventoryItemRepository;
+
+    @Mock
+    private InventoryHoldService inventoryHoldService;
+
+    @Mock
+    private StoreStatsService storeStatsService;
+
+    @Mock
+    private StockLevelService stockLevelService;
+
+    @Mock
+    private ScanBillMetrics scanBillMetrics;
+
+    @Mock
+    private StoreEventBroadcaster storeEventBroadcaster;
+
+    @Mock
+    private CheckoutTransactionRunner checkoutTransactionRunner;
+
+    @InjectMocks
+    private ReactiveOrderService orderService;
+
+    private Cart cartWith(String... serials) {
+        Cart cart = new Cart();
+        cart.setUserId("user1");
+        cart.setStoreId("store1");
+        cart.setItems(new ArrayList<>());
+        for (String serial : serials) {
+            cart.getItems().add(new CartItem("prod1", "Item 1", 10000, 1525, 0, 1, serial, "B1"));
+        }
+        return cart;
+    }
+
+    @Test
+    public void testCheckoutSuccess() {
+        when(orderRepository.findByIdempotencyKey("key-1")).thenReturn(Mono.empty());
+        when(cartRepository.findByUserId("user1")).thenReturn(Mono.just(cartWith("S1", "S2")));
+        when(inventoryItemRepository.convertHolds(eq(List.of("S1", "S2")), eq("user1"), anyString(), any()))
+                .thenReturn(Mono.just(2L));
+        when(orderRepository.save(any(Order.class))).thenAnswer(inv -> {
+            Order order = inv.getArgument(0);
+            order.setId("order1");
+            return Mono.just(order);
+        });
+        when(cartRepository.removeItems("user1", List.of("S1", "S2"))).thenReturn(Mono.empty());
+
+        StepVerifier.create(orderService.checkout("user1", "John", "999", "store1", "key-1"))
+                .assertNext(order -> {
+                    assertEquals("order1", order.getId());
+                    assertEquals("PAID", order.getStatus());
+                    assertEquals(20000, order.getTotalPaise());
+                    assertEquals(3050, order.getTaxPaise());
+                })
+                .verifyComplete();
+
+        verify(storeStatsService).recordOrder(any(Order.class));
+        verify(storeEventBroadcaster).orderCreated(any(Order.class));
+        verify(inventoryItemRepository, never()).restoreHolds(anyString(), anyString(), any());
+        // Recorded in doFinally, which runs on the worker thread after completion is signalled
+        verify(scanBillMetrics, timeout(1000)).recordCheckout(any(), eq("store1"), eq("success"));
+    }
+
+    @Test
+    public void testCheckoutRestoresHoldsAfterPartialClaim() {
+        when(cartRepository.findByUserId("user1")).thenReturn(Mono.just(cartWith("S1", "S2")));
+        ArgumentCaptor<String> claimToken = ArgumentCaptor.forClass(String.class);
+        when(inventoryItemRepository.convertHolds(any(), eq("user1"), claimToken.capture(), any()))
+                .thenReturn(Mono.just(1L));
+        when(inventoryItemRepository.restoreHolds(anyString(), eq("user1"), any())).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(orderService.checkout("user1", "John", "999", "store1", null))
+                .expectErrorMessage("One or more items already sold. Please refresh cart.")
+                .verify();
+
+        // The unit that was claimed goes back on hold for this cart
+        verify(inventoryItemRepository).restoreHolds(eq(claimToken.getValue()), eq("user1"), any());
+        verify(inventoryItemRepository, never()).releaseClaim(anyString(), anyString());
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(storeEventBroadcaster, never()).orderCreated(any(Order.class));
+        verify(cartRepository, never()).removeItems(anyString(), any());
+        verify(scanBillMetrics, timeout(1000)).recordCheckout(any(), eq("store1"), eq("sold_out"));
+    }
+
+    @Test
+    public void testTransactionalModeIsRejectedAtStartup() {
+        when(checkoutTransactionRunner.isEnabled()).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> orderService.rejectTransactionalMode());
+    }
+}
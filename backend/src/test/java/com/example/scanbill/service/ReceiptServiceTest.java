@@ -0,0 +1,82 @@
+package com.example.scanbill.service;
+
+import com.example.scanbill.model.CartItem;
+import com.example.scanbill.model.Receipt;
+import com.example.scanbill.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReceiptServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private ReceiptService receiptService;
+
+    @BeforeEach
+    public void setUp() {
+        receiptService = new ReceiptService(orderRepository, new ObjectMapper().findAndRegisterModules(), 100, 32);
+    }
+
+    private static Receipt receipt(String paymentStatus) {
+        Receipt receipt = new Receipt();
+        receipt.setId("order1");
+        receipt.setStatus("PAID");
+        receipt.setPaymentStatus(paymentStatus);
+        receipt.setPaymentMethod("CASH");
+        receipt.setTimestamp(LocalDateTime.of(2024, 1, 2, 10, 30));
+        receipt.setItems(List.of(new CartItem("p1", "Tea", 11800, 1800, 0, 2, "S1", "B1")));
+        receipt.setSubtotalPaise(20000);
+        receipt.setTaxPaise(3600);
+        receipt.setTotalPaise(23600);
+        receipt.setVersion(3L);
+        return receipt;
+    }
+
+    @Test
+    public void testSettledReceiptIsServedFromMemory() {
+        when(orderRepository.findReceiptById("order1")).thenReturn(Optional.of(receipt("SUCCESS")));
+
+        ReceiptService.Rendered first = receiptService.getReceipt("order1").orElseThrow();
+        ReceiptService.Rendered second = receiptService.getReceipt("order1").orElseThrow();
+
+        assertSame(first, second);
+        assertEquals("order1.3", first.etag());
+        verify(orderRepository, times(1)).findReceiptById("order1");
+    }
+
+    @Test
+    public void testUnsettledReceiptIsReadEveryTime() {
+        when(orderRepository.findReceiptById("order1")).thenReturn(Optional.of(receipt("INITIATED")));
+
+        receiptService.getReceipt("order1");
+        receiptService.getReceipt("order1");
+
+        verify(orderRepository, times(2)).findReceiptById("order1");
+    }
+
+    @Test
+    public void testSlipIsFixedWidthWithExactTotals() {
+        String[] lines = new String(receiptService.render(receipt("SUCCESS")).text(), StandardCharsets.UTF_8)
+                .split("\n");
+
+        for (String line : lines) {
+            assertTrue(line.length() <= 32, line);
+        }
+        assertTrue(List.of(lines).contains("  2 x 118.00              236.00"));
+        assertTrue(List.of(lines).contains("TOTAL                     236.00"));
+    }
+}
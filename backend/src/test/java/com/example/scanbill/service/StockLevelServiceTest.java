@@ -0,0 +1,140 @@
+package com.example.scanbill.service;
+
+import com.example.scanbill.model.SeedCompletedEvent;
+import com.example.scanbill.model.StockLevel;
+import com.example.scanbill.repository.InventoryItemRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockLevelServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private InventoryItemRepository inventoryItemRepository;
+
+    private StockLevelService stockLevelService;
+
+    @BeforeEach
+    public void setUp() {
+        stockLevelService = new StockLevelService(mongoTemplate, inventoryItemRepository, Duration.ofSeconds(5),
+                1000);
+    }
+
+    private void unitsCounted(long available, long reserved, long sold) {
+        when(inventoryItemRepository.countByBarcodeAndStatusAndStoreId("B1", "AVAILABLE", "store1"))
+                .thenReturn(available);
+        when(inventoryItemRepository.countByBarcodeAndStatusAndStoreId("B1", "RESERVED", "store1"))
+                .thenReturn(reserved);
+        when(inventoryItemRepository.countByBarcodeAndStatusAndStoreId("B1", "SOLD", "store1")).thenReturn(sold);
+    }
+
+    @Test
+    public void testCreatorPublishesItsCountOverTheBuildingCounter() {
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(StockLevel.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, new BsonString("store1:B1")));
+        unitsCounted(7, 2, 3);
+        StockLevel published = new StockLevel("store1:B1", "store1", "B1", 9, 3, null);
+        ArgumentCaptor<Query> claim = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        when(mongoTemplate.findAndModify(claim.capture(), update.capture(), any(FindAndModifyOptions.class),
+                eq(StockLevel.class))).thenReturn(published);
+
+        assertSame(published, stockLevelService.getStockLevel("store1", "B1"));
+
+        // The count is set, not added, and only while the counter is still the one this request created
+        assertNotNull(claim.getValue().getQueryObject().get("buildingSince"));
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals(9L, set.get("available"));
+        assertEquals(3L, set.get("sold"));
+        assertTrue(((Document) update.getValue().getUpdateObject().get("$unset")).containsKey("buildingSince"));
+        // Built, so the next read is served from the cache
+        stockLevelService.getStockLevel("store1", "B1");
+        verify(mongoTemplate, times(1)).findById("store1:B1", StockLevel.class);
+    }
+
+    @Test
+    public void testReaderOfCounterStillBuildingCountsForItselfWithoutCaching() {
+        StockLevel building = new StockLevel("store1:B1", "store1", "B1", 0, 0, LocalDateTime.now());
+        when(mongoTemplate.findById("store1:B1", StockLevel.class)).thenReturn(building);
+        unitsCounted(4, 0, 1);
+
+        StockLevel first = stockLevelService.getStockLevel("store1", "B1");
+        stockLevelService.getStockLevel("store1", "B1");
+
+        assertEquals(4, first.getAvailable());
+        assertEquals(1, first.getSold());
+        verify(mongoTemplate, times(2)).findById("store1:B1", StockLevel.class);
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), eq(StockLevel.class));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(StockLevel.class));
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(StockLevel.class));
+    }
+
+    @Test
+    public void testAbandonedBuildIsTakenOver() {
+        LocalDateTime stale = LocalDateTime.now().minusMinutes(5);
+        when(mongoTemplate.findById("store1:B1", StockLevel.class))
+                .thenReturn(new StockLevel("store1:B1", "store1", "B1", 0, 0, stale));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(StockLevel.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        unitsCounted(2, 0, 0);
+        StockLevel published = new StockLevel("store1:B1", "store1", "B1", 2, 0, null);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(StockLevel.class))).thenReturn(published);
+
+        assertSame(published, stockLevelService.getStockLevel("store1", "B1"));
+        ArgumentCaptor<Query> takeover = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(takeover.capture(), any(Update.class), eq(StockLevel.class));
+        assertNotNull(takeover.getValue().getQueryObject().get("buildingSince"));
+    }
+
+    @Test
+    public void testWritersOnlyUpdateBuiltCounters() {
+        stockLevelService.recordAdded("store1", "B1", 5);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(query.capture(), eq(new Update().inc("available", 5L)),
+                eq(StockLevel.class));
+        Document filter = query.getValue().getQueryObject();
+        assertTrue(filter.containsKey("buildingSince"));
+        assertNull(filter.get("buildingSince"));
+    }
+
+    @Test
+    public void testSeededStoresCountersAreDroppedNotOverwritten() {
+        when(mongoTemplate.findById("store1:B1", StockLevel.class))
+                .thenReturn(new StockLevel("store1:B1", "store1", "B1", 3, 0, null));
+        stockLevelService.getStockLevel("store1", "B1");
+
+        stockLevelService.onSeedCompleted(new SeedCompletedEvent(List.of("store1")));
+        stockLevelService.getStockLevel("store1", "B1");
+
+        verify(mongoTemplate).remove(any(Query.class), eq(StockLevel.class));
+        verify(mongoTemplate, never()).bulkOps(any(), eq(StockLevel.class));
+        // The cached counter went with it
+        verify(mongoTemplate, times(2)).findById("store1:B1", StockLevel.class);
+    }
+}
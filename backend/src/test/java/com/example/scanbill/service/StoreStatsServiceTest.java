@@ -0,0 +1,83 @@
+package com.example.scanbill.service;
+
+import com.example.scanbill.model.CartItem;
+import com.example.scanbill.model.Order;
+import com.example.scanbill.model.StoreDailyStats;
+import com.example.scanbill.repository.OrderRepository;
+import com.example.scanbill.repository.ProductRepository;
+import com.example.scanbill.repository.StoreDailyStatsRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StoreStatsServiceTest {
+
+    @Mock
+    private StoreDailyStatsRepository storeDailyStatsRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @InjectMocks
+    private StoreStatsService storeStatsService;
+
+    private Order order(LocalDateTime timestamp, long totalPaise) {
+        Order order = new Order();
+        order.setStoreId("store1");
+        order.setTimestamp(timestamp);
+        order.setTotalPaise(totalPaise);
+        order.setItems(List.of(new CartItem("p1", "Item", totalPaise, 0, 0, 1, "S1", "B1")));
+        return order;
+    }
+
+    @Test
+    public void testRebuildRewritesClosedDaysOnly() {
+        LocalDateTime twoDaysAgo = LocalDateTime.now().minusDays(2).withHour(12);
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        when(orderRepository.streamByStore(eq("store1"), isNull(), cutoff.capture())).thenReturn(Stream.of(
+                order(twoDaysAgo, 10000), order(twoDaysAgo.plusHours(1), 5000)));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StoreDailyStats.class))
+                .thenReturn(bulkOperations);
+
+        assertEquals(1, storeStatsService.rebuild("store1"));
+
+        // Checkout is still $inc-ing the open day, so the stream stops at midnight
+        assertEquals(LocalDateTime.now().minusMinutes(5).toLocalDate().atStartOfDay(), cutoff.getValue());
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations).upsert(any(Query.class), update.capture());
+        assertEquals(15000L, update.getValue().getUpdateObject().get("$set", Document.class)
+                .get("revenuePaise"));
+        assertEquals(2L, update.getValue().getUpdateObject().get("$set", Document.class)
+                .get("orderCount"));
+        verify(mongoTemplate).remove(any(Query.class), eq(StoreDailyStats.class));
+        verifyNoInteractions(storeDailyStatsRepository);
+    }
+}
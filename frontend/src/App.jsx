@@ -43,9 +43,22 @@ function App() {
         }
 
         const savedUser = sessionStorage.getItem('user');
-        if (savedUser) setUser(JSON.parse(savedUser));
+        if (savedUser) {
+            const parsed = JSON.parse(savedUser);
+            setSessionToken(parsed.token);
+            setUser(parsed);
+        }
     }, []);
 
+    // Cart and order calls are authorized by the session token issued at login
+    const setSessionToken = (token) => {
+        if (token) {
+            axios.defaults.headers.common['Authorization'] = `Bearer ${token}`;
+        } else {
+            delete axios.defaults.headers.common['Authorization'];
+        }
+    };
+
     const addToast = (message, type = 'success') => setToast({ message, type });
 
     const handleSetActiveTab = (tab) => {
@@ -56,13 +69,14 @@ function App() {
         setActiveTab(tab);
     };
 
-    const handleVerifyAdmin = (password) => {
-        if (password === user.password) {
+    const handleVerifyAdmin = async (password) => {
+        try {
+            await axios.post('/api/auth/login', { username: user.username, password });
             setIsAdminVerified(true);
             setShowSecurityGate(false);
             setActiveTab('admin');
             addToast("Identity Confirmed", "success");
-        } else {
+        } catch (err) {
             addToast("Invalid Authorization", "error");
         }
     };
@@ -85,12 +99,13 @@ function App() {
     const fetchOrders = async () => {
         if (!user || !user.storeId) return;
         try {
-            const res = await axios.get(`/api/orders?storeId=${user.storeId}`);
-            setOrders(res.data);
+            const res = await axios.get(`/api/orders/page?storeId=${user.storeId}&limit=100`);
+            setOrders(res.data.items);
         } catch (err) { }
     };
 
     const handleLogin = (userData) => {
+        setSessionToken(userData.token);
         setUser(userData);
         sessionStorage.setItem('user', JSON.stringify(userData));
         addToast(`Welcome back, ${userData.username}`);
@@ -98,6 +113,7 @@ function App() {
     };
 
     const handleLogout = () => {
+        setSessionToken(null);
         setUser(null);
         sessionStorage.removeItem('user');
         setCart(null);
@@ -112,7 +128,9 @@ function App() {
             setCart(res.data);
             addToast(`Acquired: ${serialNumber.split('-').pop()}`);
         } catch (err) {
-            addToast(err.response?.data?.message || "Error", "error");
+            // Rate-limit and auth refusals come back as plain text
+            const data = err.response?.data;
+            addToast(data?.message || (typeof data === 'string' && data) || "Error", "error");
         }
     };
 
@@ -3,6 +3,8 @@ import { Search, ShoppingBag, ArrowLeft } from 'lucide-react';
 import { motion, AnimatePresence } from 'framer-motion';
 import axios from 'axios';
 
+const UNIT_PICK_LIMIT = 24;
+
 const ProductCard = ({ product, onClick, index }) => (
     <motion.div
         initial={{ opacity: 0, y: 15 }}
@@ -29,6 +31,7 @@ const InventorySelector = ({ onAdd, addToast, storeId }) => {
     const [searchTerm, setSearchTerm] = useState('');
     const [selectedProduct, setSelectedProduct] = useState(null);
     const [availableUnits, setAvailableUnits] = useState([]);
+    const [availableCount, setAvailableCount] = useState(0);
     const [loading, setLoading] = useState(true);
 
     useEffect(() => {
@@ -49,8 +52,12 @@ const InventorySelector = ({ onAdd, addToast, storeId }) => {
         setLoading(true);
         setSelectedProduct(product);
         try {
-            const res = await axios.get(`/api/products/${product.barcode}/units?storeId=${storeId}`);
-            setAvailableUnits(res.data);
+            const [stock, units] = await Promise.all([
+                axios.get(`/api/products/${product.barcode}/stock?storeId=${storeId}`),
+                axios.get(`/api/products/${product.barcode}/units?storeId=${storeId}&limit=${UNIT_PICK_LIMIT}`)
+            ]);
+            setAvailableCount(stock.data.available);
+            setAvailableUnits(units.data);
             setLoading(false);
         } catch (err) {
             addToast("Failed to check inventory", "error");
@@ -114,7 +121,7 @@ const InventorySelector = ({ onAdd, addToast, storeId }) => {
                         <div className="pt-6">
                             <div className="flex justify-between items-center mb-8">
                                 <h2 className="text-xs font-black uppercase tracking-[0.2em] text-gray-400">Available Units</h2>
-                                <span className="bg-black text-white px-3 py-1 rounded-lg text-[9px] font-black uppercase">{availableUnits.length} units left</span>
+                                <span className="bg-black text-white px-3 py-1 rounded-lg text-[9px] font-black uppercase">{availableCount} units left</span>
                             </div>
 
                             <div className="grid grid-cols-2 gap-6">
@@ -32,6 +32,34 @@ const AdminDashboard = ({ user, handleLogout, addToast, storeId, onBack }) => {
         }
     }, [effectiveStoreId]);
 
+    // Live feed: apply new orders and payment updates as they happen instead of re-reading
+    useEffect(() => {
+        if (!effectiveStoreId) return;
+        const source = new EventSource(`${axios.defaults.baseURL || ''}/api/admin/events?storeId=${effectiveStoreId}`);
+        let reconnecting = false;
+        const resync = () => { fetchStats(); fetchOrders(); };
+        source.onopen = () => {
+            // Anything that happened while disconnected was not pushed
+            if (reconnecting) resync();
+            reconnecting = true;
+        };
+        source.addEventListener('order-created', (e) => {
+            const order = JSON.parse(e.data);
+            setOrders(prev => prev.some(o => o.id === order.id) ? prev : [order, ...prev].slice(0, 100));
+            setStats(prev => ({
+                ...prev,
+                totalRevenue: prev.totalRevenue + order.totalAmount,
+                totalOrders: prev.totalOrders + 1
+            }));
+        });
+        source.addEventListener('payment-status', (e) => {
+            const update = JSON.parse(e.data);
+            setOrders(prev => prev.map(o => o.id === update.id ? { ...o, ...update } : o));
+        });
+        source.addEventListener('resync', resync);
+        return () => source.close();
+    }, [effectiveStoreId]);
+
     const fetchStats = async () => {
         try {
             const res = await axios.get(`/api/admin/stats?storeId=${effectiveStoreId}`);
@@ -48,8 +76,8 @@ const AdminDashboard = ({ user, handleLogout, addToast, storeId, onBack }) => {
 
     const fetchOrders = async () => {
         try {
-            const res = await axios.get(`/api/admin/orders?storeId=${effectiveStoreId}`);
-            setOrders(res.data);
+            const res = await axios.get(`/api/admin/orders/page?storeId=${effectiveStoreId}&limit=100`);
+            setOrders(res.data.items);
         } catch (err) { }
     };
 
@@ -6,9 +6,12 @@ import Navbar from '../components/Navbar';
 import Modal from '../components/Modal';
 import AdminDashboard from './AdminDashboard';
 
+const UNIT_PICK_LIMIT = 30;
+
 // Product Detail Modal - Shows available inventory
 const ProductDetailView = ({ product, storeId, onAdd, onClose, addToast }) => {
     const [inventory, setInventory] = useState([]);
+    const [availableCount, setAvailableCount] = useState(0);
     const [loading, setLoading] = useState(true);
     const [adding, setAdding] = useState(null);
 
@@ -19,9 +22,13 @@ const ProductDetailView = ({ product, storeId, onAdd, onClose, addToast }) => {
     const fetchInventory = async () => {
         setLoading(true);
         try {
-            // Using correct backend endpoint: /api/products/{barcode}/units
-            const res = await axios.get(`/api/products/${product.barcode}/units?storeId=${storeId}`);
-            setInventory(res.data.filter(i => i.status === 'AVAILABLE'));
+            // Counts come from the stock counter; only a handful of units are listed to pick from
+            const [stock, units] = await Promise.all([
+                axios.get(`/api/products/${product.barcode}/stock?storeId=${storeId}`),
+                axios.get(`/api/products/${product.barcode}/units?storeId=${storeId}&limit=${UNIT_PICK_LIMIT}`)
+            ]);
+            setAvailableCount(stock.data.available);
+            setInventory(units.data);
         } catch (err) {
             console.error('Failed to fetch inventory:', err);
         } finally {
@@ -78,7 +85,7 @@ const ProductDetailView = ({ product, storeId, onAdd, onClose, addToast }) => {
                             <p className="text-4xl font-bold text-cred-gold mb-6">${product.price.toFixed(2)}</p>
                             <div className="flex items-center gap-2 text-cred-muted">
                                 <Package size={18} />
-                                <span>{inventory.length} units available</span>
+                                <span>{availableCount} units available</span>
                             </div>
                         </div>
                     </div>